@@ -76,38 +76,7 @@ public abstract class Agent<T> extends Thread implements StatusInfo {
 
 			if (currentTask != null) {
 
-				ReturnValue ret = null;
-
-				// only execute process if Service layer is ready
-				// (and not shutting down right now)
-				if (Services.getInstance().isInitialized()) {
-
-					if (createEnclosingTransaction()) {
-
-						try (final Tx tx = StructrApp.getInstance().tx()) {
-
-							ret = processTask(currentTask);
-							tx.success();
-
-						} catch (Throwable t) {
-
-							// task processing failed..
-							logger.error("Processing task {} failed: {}", currentTask.getType(), t.getMessage());
-						}
-
-					} else {
-
-						try {
-
-							ret = processTask(currentTask);
-
-						} catch (Throwable t) {
-
-							// task processing failed..
-							logger.error("Processing task {} failed: {}", currentTask.getType(), t.getMessage());
-						}
-					}
-				}
+				final ReturnValue ret = execute(currentTask);
 
 				if (ret != null && Retry.equals(ret) && currentTask.getRetryCount() < 2) {
 
@@ -140,6 +109,51 @@ public abstract class Agent<T> extends Thread implements StatusInfo {
 		agentService.notifyAgentStop(this);
 	}
 
+	/**
+	 * Processes the given task in the calling thread, in an enclosing
+	 * transaction if the agent requires it.
+	 *
+	 * @param task
+	 * @return the return value of processTask, or null if processing failed
+	 */
+	public final ReturnValue execute(final Task<T> task) {
+
+		ReturnValue ret = null;
+
+		// only execute process if Service layer is ready
+		// (and not shutting down right now)
+		if (Services.getInstance().isInitialized()) {
+
+			if (createEnclosingTransaction()) {
+
+				try (final Tx tx = StructrApp.getInstance().tx()) {
+
+					ret = processTask(task);
+					tx.success();
+
+				} catch (Throwable t) {
+
+					// task processing failed..
+					logger.error("Processing task {} failed: {}", task.getType(), t.getMessage());
+				}
+
+			} else {
+
+				try {
+
+					ret = processTask(task);
+
+				} catch (Throwable t) {
+
+					// task processing failed..
+					logger.error("Processing task {} failed: {}", task.getType(), t.getMessage());
+				}
+			}
+		}
+
+		return ret;
+	}
+
 	public final boolean assignTask(final Task<T> task) {
 
 		// TODO: do type check here
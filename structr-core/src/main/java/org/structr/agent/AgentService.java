@@ -18,19 +18,27 @@
  */
 package org.structr.agent;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import static org.structr.agent.ReturnValue.Retry;
+import org.structr.api.config.Settings;
 import org.structr.api.service.Command;
 import org.structr.api.service.RunnableService;
 import org.structr.api.service.StructrServices;
@@ -40,18 +48,31 @@ import org.structr.schema.ConfigurationProvider;
 /**
  * The agent service main class.
  *
+ * Tasks are dispatched to a pool of worker threads per task type. The number
+ * of workers is configured with application.agents.workers, and can be set
+ * per task type with application.agents.[TaskClassName].workers. If the persistent queue
+ * is enabled, tasks that implement {@link PersistentTask} are recorded in a
+ * {@link TaskJournal} and restored after a restart.
+ *
  *
  */
 public class AgentService extends Thread implements RunnableService {
 
 	private static final Logger logger = LoggerFactory.getLogger(AgentService.class.getName());
 
-	private final int maxAgents                          = 10;    // TODO: make configurable
+	public static final String QUEUE_DEPTH     = "queue_depth";
+	public static final String WORKER_COUNT    = "worker_count";
+	public static final String PROCESSED_TASKS = "processed_tasks";
+	public static final String AVERAGE_LATENCY = "average_latency";
+
 	private final Map<String, List<Agent>> runningAgents = new ConcurrentHashMap<>(10, 0.9f, 8);
 	private final Map<String, Class> agentClassCache     = new ConcurrentHashMap<>(10, 0.9f, 8);
-	private final Queue<Task> taskQueue                  = new ConcurrentLinkedQueue<>();
+	private final Map<String, WorkerPool> workerPools    = new ConcurrentHashMap<>();
+	private Map<Long, PersistentTask> restoredTasks      = Collections.emptyMap();
+	private ScheduledExecutorService retryExecutor       = null;
+	private TaskJournal journal                          = null;
 	private Set<Class> supportedCommands                 = null;
-	private boolean run                                  = false;
+	private volatile boolean run                         = false;
 
 	public AgentService() {
 
@@ -64,11 +85,16 @@ public class AgentService extends Thread implements RunnableService {
 
 	public void processTask(Task task) {
 
-		synchronized (taskQueue) {
+		long journalId = -1L;
 
-			taskQueue.add(task);
-			logger.debug("Task {} added to task queue", task);
+		if (journal != null && task instanceof PersistentTask) {
+
+			journalId = journal.add((PersistentTask)task);
 		}
+
+		getWorkerPool(task.getClass()).add(new QueuedTask(task, journalId));
+
+		logger.debug("Task {} added to task queue", task);
 	}
 
 	@Override
@@ -76,16 +102,24 @@ public class AgentService extends Thread implements RunnableService {
 
 		logger.info("AgentService started");
 
-		while (run) {
+		// restore tasks that were pending when the service was stopped
+		if (!restoredTasks.isEmpty()) {
+
+			logger.info("Restoring {} pending tasks from task journal", restoredTasks.size());
 
-			Task nextTask = taskQueue.poll();
-			if (nextTask != null) {
+			for (final Entry<Long, PersistentTask> entry : restoredTasks.entrySet()) {
 
-				assignNextAgentForTask(nextTask);
+				final PersistentTask task = entry.getValue();
+
+				getWorkerPool(task.getClass()).add(new QueuedTask(task, entry.getKey()));
 			}
 
-			// let others act
-			try { Thread.sleep(10); } catch(Throwable ignore) {}
+			restoredTasks = Collections.emptyMap();
+		}
+
+		// start workers for tasks that were added before the service was started
+		for (final WorkerPool pool : workerPools.values()) {
+			pool.start();
 		}
 	}
 
@@ -125,6 +159,13 @@ public class AgentService extends Thread implements RunnableService {
 
 	@Override
 	public boolean initialize(final StructrServices services) throws ClassNotFoundException, InstantiationException, IllegalAccessException {
+
+		if (Settings.AgentPersistentQueue.getValue()) {
+
+			journal       = new TaskJournal(new File(Settings.getBasePath() + "agent-tasks.journal"));
+			restoredTasks = journal.open();
+		}
+
 		return true;
 	}
 
@@ -132,18 +173,30 @@ public class AgentService extends Thread implements RunnableService {
 	public void initialized() {}
 
 	@Override
-	public void shutdown() {}
+	public void shutdown() {
+
+		if (journal != null) {
+			journal.close();
+		}
+	}
 
 	@Override
 	public void startService() throws Exception {
 
-		run = true;
+		retryExecutor = Executors.newSingleThreadScheduledExecutor();
+		run           = true;
+
 		this.start();
 	}
 
 	@Override
 	public void stopService() {
+
 		run = false;
+
+		if (retryExecutor != null) {
+			retryExecutor.shutdownNow();
+		}
 	}
 
 	@Override
@@ -151,58 +204,8 @@ public class AgentService extends Thread implements RunnableService {
 		return true;
 	}
 
-	private void assignNextAgentForTask(Task nextTask) {
-
-		Class taskClass    = nextTask.getClass();
-		List<Agent> agents = getRunningAgentsForTask(taskClass);
-
-		// need to synchronize on agents
-		synchronized (agents) {
-
-			// find next free agent (agents should be sorted by load, so one
-			// of the first should do..
-			for (Agent agent : agents) {
-
-				if (agent.assignTask(nextTask)) {
-
-					// ok, task is assigned
-					logger.debug("Task assigned to agent {}", agent.getName());
-
-					return;
-				}
-			}
-		}
-
-		// FIXME: find better solution for hard limit here!
-		if (agents.size() < maxAgents) {
-
-			// if we get here, task was not assigned to any agent, need to
-			// create a new one.
-			Agent agent = createAgent(nextTask);
-
-			if ((agent != null) && agent.assignTask(nextTask)) {
-				agent.start();
-			} else {
-
-				// re-add task..
-				synchronized (taskQueue) {
-					taskQueue.add(nextTask);
-				}
-			}
-		} else {
-
-			logger.debug("Overall agents limit reached, re-queueing task");
-
-			// re-add task..
-			synchronized (taskQueue) {
-				taskQueue.add(nextTask);
-			}
-		}
-	}
-
 	/**
-	 * Creates a new agent for the given Task. Note that the agent must be
-	 * started manually after creation.
+	 * Creates a new agent for the given Task.
 	 *
 	 * @param forTask
 	 * @return a new agent for the given task
@@ -279,7 +282,17 @@ public class AgentService extends Thread implements RunnableService {
 	 * @return tasks
 	 */
 	public Collection<Task> getTaskQueue() {
-		return (taskQueue);
+
+		final List<Task> tasks = new LinkedList<>();
+
+		for (final WorkerPool pool : workerPools.values()) {
+
+			for (final QueuedTask queued : pool.queue) {
+				tasks.add(queued.task);
+			}
+		}
+
+		return (tasks);
 	}
 
 	/**
@@ -290,6 +303,34 @@ public class AgentService extends Thread implements RunnableService {
 		return (runningAgents);
 	}
 
+	/**
+	 * Returns queue depth, number of workers, number of processed tasks
+	 * and average latency (in milliseconds, from submission to completion)
+	 * for each task type.
+	 *
+	 * @return a map of statistics by task type
+	 */
+	public Map<String, Map<String, Object>> getStatistics() {
+
+		final Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+
+		for (final Entry<String, WorkerPool> entry : workerPools.entrySet()) {
+
+			final WorkerPool pool          = entry.getValue();
+			final Map<String, Object> data = new LinkedHashMap<>();
+			final long processed           = pool.processed.sum();
+
+			data.put(QUEUE_DEPTH,     pool.queue.size());
+			data.put(WORKER_COUNT,    pool.workerCount);
+			data.put(PROCESSED_TASKS, processed);
+			data.put(AVERAGE_LATENCY, processed > 0 ? pool.latency.sum() / processed : 0L);
+
+			statistics.put(entry.getKey(), data);
+		}
+
+		return statistics;
+	}
+
 	private List<Agent> getRunningAgentsForTask(Class taskClass) {
 
 		List<Agent> agents = runningAgents.get(taskClass.getName());
@@ -305,6 +346,17 @@ public class AgentService extends Thread implements RunnableService {
 		return (agents);
 	}
 
+	private WorkerPool getWorkerPool(final Class taskClass) {
+
+		final WorkerPool pool = workerPools.computeIfAbsent(taskClass.getName(), k -> new WorkerPool(taskClass));
+
+		if (run) {
+			pool.start();
+		}
+
+		return pool;
+	}
+
 	@Override
 	public boolean isRunning() {
 		return (this.run);
@@ -325,4 +377,121 @@ public class AgentService extends Thread implements RunnableService {
 	public String getModuleName() {
 		return "agents";
 	}
+
+	// ----- nested classes -----
+	private static class QueuedTask {
+
+		private final long submitted = System.currentTimeMillis();
+		private Task task            = null;
+		private long journalId       = -1L;
+
+		public QueuedTask(final Task task, final long journalId) {
+
+			this.task      = task;
+			this.journalId = journalId;
+		}
+	}
+
+	private class WorkerPool {
+
+		private final BlockingQueue<QueuedTask> queue = new LinkedBlockingQueue<>();
+		private final LongAdder processed             = new LongAdder();
+		private final LongAdder latency               = new LongAdder();
+		private Class taskClass                       = null;
+		private boolean started                       = false;
+		private int workerCount                       = 0;
+
+		public WorkerPool(final Class taskClass) {
+
+			this.taskClass   = taskClass;
+			this.workerCount = Math.max(1, Settings.getOrCreateIntegerSetting("application.agents", taskClass.getSimpleName(), "workers").getValue(Settings.AgentWorkers.getValue()));
+		}
+
+		public void add(final QueuedTask task) {
+			queue.add(task);
+		}
+
+		public synchronized void start() {
+
+			if (!started) {
+
+				for (int i=0; i<workerCount; i++) {
+
+					final Thread worker = new Thread(this::work, taskClass.getSimpleName() + "Worker" + i);
+
+					worker.setDaemon(true);
+					worker.start();
+				}
+
+				started = true;
+			}
+		}
+
+		private void work() {
+
+			Agent agent = null;
+
+			try {
+
+				while (run) {
+
+					final QueuedTask queued = queue.poll(1, TimeUnit.SECONDS);
+					if (queued != null) {
+
+						// wait until the service layer is ready
+						while (run && !Services.getInstance().isInitialized()) {
+							Thread.sleep(100);
+						}
+
+						if (agent == null) {
+
+							agent = createAgent(queued.task);
+							if (agent != null) {
+
+								notifyAgentStart(agent);
+							}
+						}
+
+						if (agent != null) {
+
+							final ReturnValue ret = agent.execute(queued.task);
+
+							if (ret != null && Retry.equals(ret) && queued.task.getRetryCount() < 2) {
+
+								queued.task.incrementRetryCount();
+
+								// re-queue after some time
+								if (run) {
+
+									retryExecutor.schedule(() -> queue.add(queued), 2, TimeUnit.SECONDS);
+									continue;
+								}
+							}
+
+						} else {
+
+							logger.warn("No agent found for task {}, discarding task", queued.task.getType());
+						}
+
+						processed.increment();
+						latency.add(System.currentTimeMillis() - queued.submitted);
+
+						if (journal != null && queued.journalId >= 0) {
+							journal.remove(queued.journalId);
+						}
+					}
+				}
+
+			} catch (InterruptedException iex) {
+
+				logger.debug("Worker for {} interrupted", taskClass.getSimpleName());
+
+			} finally {
+
+				if (agent != null) {
+					notifyAgentStop(agent);
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.agent;
+
+/**
+ * A task that can be stored in the persistent task queue of the
+ * {@link AgentService}, so that it survives a restart.
+ *
+ * Implementing classes must provide a public constructor with a single
+ * String parameter that re-creates the task from its persistent state.
+ */
+public interface PersistentTask<T> extends Task<T> {
+
+	/**
+	 * Returns the state of this task as a single-line string.
+	 *
+	 * @return the persistent state
+	 */
+	String getPersistentState();
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.agent;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only file that records the queued and completed tasks
+ * of the {@link AgentService}, so that pending tasks can be
+ * restored after a restart.
+ *
+ * Each line is either "+ id className state" for a queued task or
+ * "- id" for a completed task. The file is compacted on startup and
+ * when it contains many more completed than pending entries.
+ */
+public class TaskJournal {
+
+	private static final Logger logger        = LoggerFactory.getLogger(TaskJournal.class.getName());
+	private static final int COMPACTION_LIMIT = 10000;
+
+	private final Map<Long, String> pending = new LinkedHashMap<>();
+	private File file                       = null;
+	private Writer writer                   = null;
+	private long nextId                     = 0L;
+	private int removed                     = 0;
+
+	public TaskJournal(final File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Reads the journal file and returns the pending tasks, keyed by
+	 * their journal id.
+	 *
+	 * @return the pending tasks
+	 */
+	public synchronized Map<Long, PersistentTask> open() {
+
+		final Map<Long, PersistentTask> tasks = new LinkedHashMap<>();
+
+		if (file.exists()) {
+
+			try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+
+				String line = null;
+
+				while ((line = reader.readLine()) != null) {
+
+					final String[] parts = line.split(" ", 4);
+
+					try {
+
+						final long id = Long.parseLong(parts[1]);
+
+						if ("+".equals(parts[0]) && parts.length == 4) {
+
+							pending.put(id, line);
+
+						} else if ("-".equals(parts[0])) {
+
+							pending.remove(id);
+						}
+
+						nextId = Math.max(nextId, id + 1);
+
+					} catch (Throwable t) {
+						logger.warn("Ignoring invalid task journal entry {}", line);
+					}
+				}
+
+			} catch (IOException ioex) {
+				logger.warn("Unable to read task journal {}: {}", file.getAbsolutePath(), ioex.getMessage());
+			}
+		}
+
+		for (final Iterator<Map.Entry<Long, String>> it = pending.entrySet().iterator(); it.hasNext();) {
+
+			final Map.Entry<Long, String> entry = it.next();
+			final String[] parts                = entry.getValue().split(" ", 4);
+
+			try {
+
+				final Class type = Class.forName(parts[2]);
+
+				tasks.put(entry.getKey(), (PersistentTask)type.getConstructor(String.class).newInstance(parts[3]));
+
+			} catch (Throwable t) {
+
+				logger.warn("Unable to restore task {} from journal, discarding it: {}", parts[2], t.getMessage());
+
+				// drop the entry so that it is not carried over on every restart
+				it.remove();
+			}
+		}
+
+		compact();
+
+		return tasks;
+	}
+
+	public synchronized long add(final PersistentTask task) {
+
+		final long id     = nextId++;
+		final String line = "+ " + id + " " + task.getClass().getName() + " " + task.getPersistentState();
+
+		pending.put(id, line);
+		write(line);
+
+		return id;
+	}
+
+	public synchronized void remove(final long id) {
+
+		if (pending.remove(id) != null) {
+
+			write("- " + id);
+
+			if (++removed > COMPACTION_LIMIT && removed > pending.size()) {
+				compact();
+			}
+		}
+	}
+
+	public synchronized int size() {
+		return pending.size();
+	}
+
+	public synchronized void close() {
+
+		if (writer != null) {
+
+			try {
+				writer.close();
+
+			} catch (IOException ioex) {
+				logger.warn("Unable to close task journal: {}", ioex.getMessage());
+			}
+
+			writer = null;
+		}
+	}
+
+	// ----- private methods -----
+	private void write(final String line) {
+
+		try {
+
+			if (writer == null) {
+				writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+			}
+
+			writer.write(line);
+			writer.write("\n");
+			writer.flush();
+
+		} catch (IOException ioex) {
+			logger.warn("Unable to write task journal {}: {}", file.getAbsolutePath(), ioex.getMessage());
+		}
+	}
+
+	private void compact() {
+
+		close();
+
+		final File tmp = new File(file.getAbsolutePath() + ".tmp");
+
+		try (final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+
+			for (final String line : pending.values()) {
+
+				out.write(line);
+				out.write("\n");
+			}
+
+		} catch (IOException ioex) {
+
+			logger.warn("Unable to compact task journal {}: {}", file.getAbsolutePath(), ioex.getMessage());
+			return;
+		}
+
+		if (!tmp.renameTo(file)) {
+			logger.warn("Unable to replace task journal {}", file.getAbsolutePath());
+		}
+
+		removed = 0;
+	}
+}
@@ -18,13 +18,16 @@
  */
 package org.structr.common;
 
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.structr.api.config.Settings;
 import org.structr.api.graph.Node;
 import org.structr.api.graph.PropertyContainer;
 import org.structr.api.graph.Relationship;
+import org.structr.api.util.Cachable;
+import org.structr.api.util.FixedSizeCache;
 import org.structr.core.graph.NodeInterface;
 
 /**
@@ -32,9 +35,10 @@ import org.structr.core.graph.NodeInterface;
  */
 public class AccessPathCache {
 
-	private static final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
-	private static final Set<String> allRelTypes       = new HashSet<>();
-	private static final Set<String> allUuids          = new HashSet<>();
+	private static final FixedSizeCache<String, CacheEntry> cache = new FixedSizeCache<>(Settings.AccessPathCacheSize.getValue());
+	private static final Map<String, Set<String>> relTypeIndex     = new ConcurrentHashMap<>();
+	private static final Map<String, Set<String>> uuidIndex        = new ConcurrentHashMap<>();
+	private static final LongAdder invalidations                   = new LongAdder();
 
 	public static PermissionResolutionMask get(final NodeInterface startNode, final NodeInterface endNode) {
 
@@ -53,8 +57,8 @@ public class AccessPathCache {
 		final CacheEntry entry = getOrCreateCacheEntry(startNode, endNode);
 
 		// remember UUIDs
-		allUuids.add(startNode.getUuid());
-		allUuids.add(endNode.getUuid());
+		addUuid(entry, startNode.getUuid());
+		addUuid(entry, endNode.getUuid());
 
 		entry.mask = mask;
 	}
@@ -66,8 +70,7 @@ public class AccessPathCache {
 
 		if (uuid != null) {
 
-			entry.uuids.add(uuid);
-			allUuids.add(uuid);
+			addUuid(entry, uuid);
 		}
 	}
 
@@ -80,50 +83,54 @@ public class AccessPathCache {
 
 			final String relType   = rel.getType().name();
 
-			entry.uuids.add(uuid);
-			allUuids.add(uuid);
+			addUuid(entry, uuid);
 
 			entry.relTypes.add(relType);
-			allRelTypes.add(relType);
-
+			index(relTypeIndex, relType, entry.key);
 		}
 	}
 
 	public static void invalidateForId(final String uuid) {
 
-		if (allUuids.contains(uuid)) {
-
-			for (final CacheEntry entry : cache.values()) {
+		final Set<String> keys = uuidIndex.remove(uuid);
+		if (keys != null) {
 
-				if (entry.uuids.contains(uuid)) {
-					cache.remove(entry.key);
-				}
+			for (final String key : keys) {
+				remove(key);
 			}
-
-			allUuids.remove(uuid);
 		}
 	}
 
 	public static void invalidateForRelType(final String relType) {
 
-		if (allRelTypes.contains(relType)) {
+		final Set<String> keys = relTypeIndex.remove(relType);
+		if (keys != null) {
 
-			for (final CacheEntry entry : cache.values()) {
-
-				if (entry.relTypes.contains(relType)) {
-					cache.remove(entry.key);
-				}
+			for (final String key : keys) {
+				remove(key);
 			}
-
-			allRelTypes.remove(relType);
 		}
 	}
 
 	public static void invalidate() {
 
-		allRelTypes.clear();
-		allUuids.clear();
 		cache.clear();
+		relTypeIndex.clear();
+		uuidIndex.clear();
+
+		invalidations.increment();
+	}
+
+	public static int size() {
+		return cache.size();
+	}
+
+	public static long getInvalidationCount() {
+		return invalidations.sum();
+	}
+
+	public static long getEvictionCount() {
+		return cache.getEvictionCount();
 	}
 
 	// ----- private methods -----
@@ -134,15 +141,44 @@ public class AccessPathCache {
 
 		if (entry == null) {
 
-			entry = new CacheEntry();
-			entry.key = cacheKey;
-
-			cache.put(cacheKey, entry);
+			entry = cache.putIfAbsent(cacheKey, new CacheEntry(cacheKey));
 		}
 
 		return entry;
 	}
 
+	private static void addUuid(final CacheEntry entry, final String uuid) {
+
+		entry.uuids.add(uuid);
+		index(uuidIndex, uuid, entry.key);
+	}
+
+	private static void index(final Map<String, Set<String>> index, final String value, final String key) {
+		index.computeIfAbsent(value, k -> ConcurrentHashMap.newKeySet()).add(key);
+	}
+
+	private static void unindex(final Map<String, Set<String>> index, final String value, final String key) {
+
+		index.computeIfPresent(value, (k, keys) -> {
+
+			keys.remove(key);
+
+			// remove empty sets so that the index does not grow without bounds
+			return keys.isEmpty() ? null : keys;
+		});
+	}
+
+	private static void remove(final String key) {
+
+		final CacheEntry entry = cache.remove(key);
+		if (entry != null) {
+
+			entry.unindex();
+
+			invalidations.increment();
+		}
+	}
+
 	private static String cacheKey(final NodeInterface startNode, final NodeInterface endNode) {
 		return startNode.getUuid() + endNode.getUuid();
 	}
@@ -157,11 +193,31 @@ public class AccessPathCache {
 	}
 
 	// ----- nested classes -----
-	private static class CacheEntry {
+	private static class CacheEntry implements Cachable {
 
-		protected Set<String> uuids             = new HashSet<>();
-		protected Set<String> relTypes          = new HashSet<>();
-		protected PermissionResolutionMask mask = null;
-		protected String key                    = null;
+		protected final Set<String> uuids                = ConcurrentHashMap.newKeySet();
+		protected final Set<String> relTypes             = ConcurrentHashMap.newKeySet();
+		protected volatile PermissionResolutionMask mask = null;
+		protected String key                             = null;
+
+		public CacheEntry(final String key) {
+			this.key = key;
+		}
+
+		@Override
+		public void onRemoveFromCache() {
+			unindex();
+		}
+
+		public void unindex() {
+
+			for (final String uuid : uuids) {
+				AccessPathCache.unindex(uuidIndex, uuid, key);
+			}
+
+			for (final String relType : relTypes) {
+				AccessPathCache.unindex(relTypeIndex, relType, key);
+			}
+		}
 	}
 }
@@ -18,11 +18,22 @@
  */
 package org.structr.common;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.graph.PropertyContainer;
+import org.structr.api.search.QueryContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObject;
 import org.structr.core.Result;
+import org.structr.core.property.AbstractPrimitiveProperty;
+import org.structr.core.property.PropertyKey;
 
 /**
  * Utility for pagination.
@@ -78,6 +89,67 @@ public class PagingHelper {
 
 	}
 
+	/**
+	 * Return a single page of the list, sorted with the given comparator.
+	 *
+	 * For positive page numbers, only the elements up to the end of the
+	 * requested page are kept in a bounded heap instead of sorting the
+	 * whole list. Equal elements keep their order, like in Collections.sort.
+	 *
+	 * @param list
+	 * @param comparator
+	 * @param pageSize
+	 * @param page
+	 * @return sorted subList
+	 */
+	public static <T> List<T> sortedSubList(final List<T> list, final Comparator<? super T> comparator, int pageSize, int page) {
+
+		final long limit = (long)pageSize * (long)page;
+
+		if (pageSize <= 0 || page <= 0 || limit >= list.size()) {
+
+			Collections.sort(list, comparator);
+
+			return subList(list, pageSize, page);
+		}
+
+		final Comparator<Ranked<T>> order = (r1, r2) -> {
+
+			final int result = comparator.compare(r1.value, r2.value);
+			return result != 0 ? result : Integer.compare(r1.position, r2.position);
+		};
+
+		// the head of the queue is the largest of the smallest elements
+		final PriorityQueue<Ranked<T>> queue = new PriorityQueue<>((int)limit, order.reversed());
+		int position                         = 0;
+
+		for (final T value : list) {
+
+			final Ranked<T> ranked = new Ranked<>(value, position++);
+
+			if (queue.size() < limit) {
+
+				queue.add(ranked);
+
+			} else if (order.compare(ranked, queue.peek()) < 0) {
+
+				queue.poll();
+				queue.add(ranked);
+			}
+		}
+
+		final List<Ranked<T>> top = new ArrayList<>(queue);
+		final List<T> result      = new ArrayList<>(pageSize);
+
+		Collections.sort(top, order);
+
+		for (final Ranked<T> ranked : top.subList((page - 1) * pageSize, top.size())) {
+			result.add(ranked.value);
+		}
+
+		return result;
+	}
+
 	/**
 	 * Return a single page of the result with the given paging parameters.
 	 *
@@ -115,7 +187,9 @@ public class PagingHelper {
 
 		if (pageSize > 0 && pageSize < Integer.MAX_VALUE) {
 
-			int pageCount = getPageCount(result.getRawResultCount(), pageSize);
+			// the count of a streaming result can be unknown
+			final Integer rawResultCount = result.getRawResultCount();
+			int pageCount                = rawResultCount != null ? getPageCount(rawResultCount, pageSize) : 0;
 
 			if (pageCount > 0) {
 
@@ -130,8 +204,159 @@ public class PagingHelper {
 		return result;
 	}
 
+	/**
+	 * Returns an opaque cursor that points to the position after the given
+	 * object in a result that is sorted by the given key, or null if the
+	 * value of the sort key cannot be used for keyset paging.
+	 *
+	 * @param obj the last object of a page
+	 * @param sortKey the sort key, or null
+	 * @return the cursor or null
+	 */
+	public static String getCursor(final GraphObject obj, final PropertyKey sortKey) {
+
+		if (!supportsKeysetPaging(sortKey)) {
+			return null;
+		}
+
+		final StringBuilder buf = new StringBuilder(obj.getUuid());
+
+		buf.append(":");
+
+		if (sortKey != null) {
+
+			final PropertyContainer container = obj.getPropertyContainer();
+			final String name                 = sortKey.dbName();
+			final Object value                = container.hasProperty(name) ? container.getProperty(name) : null;
+
+			if (value == null) {
+
+				buf.append("n");
+
+			} else if (value instanceof String) {
+
+				buf.append("s").append(value);
+
+			} else if (value instanceof Long) {
+
+				buf.append("l").append(value);
+
+			} else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+
+				buf.append("i").append(value);
+
+			} else if (value instanceof Double || value instanceof Float) {
+
+				buf.append("d").append(value);
+
+			} else if (value instanceof Boolean) {
+
+				buf.append("b").append(value);
+
+			} else {
+
+				// arrays etc. cannot be compared in the database
+				return null;
+			}
+		}
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Indicates whether results that are sorted by the given key can be
+	 * paged with a cursor. This is only the case for indexed properties
+	 * that are stored in the database, because the cursor condition and
+	 * the order are evaluated by the database query. Computed properties
+	 * like function or related node properties are sorted in memory.
+	 *
+	 * @param sortKey the sort key, or null
+	 * @return whether keyset paging is supported
+	 */
+	public static boolean supportsKeysetPaging(final PropertyKey sortKey) {
+		return sortKey == null || (sortKey instanceof AbstractPrimitiveProperty && sortKey.isIndexed() && !sortKey.isPassivelyIndexed() && sortKey.dbName() != null);
+	}
+
+	/**
+	 * Enables keyset paging in the given query context and sets the
+	 * position from the given cursor. An empty cursor denotes the
+	 * first page.
+	 *
+	 * @param queryContext
+	 * @param cursor a cursor created by getCursor, or an empty string
+	 * @throws FrameworkException
+	 */
+	public static void applyCursor(final QueryContext queryContext, final String cursor) throws FrameworkException {
+
+		if (cursor.isEmpty()) {
+
+			queryContext.keysetPaging();
+			return;
+		}
+
+		try {
+
+			final String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			final int pos        = decoded.indexOf(":");
+			final String uuid    = decoded.substring(0, pos);
+
+			if (pos == decoded.length() - 1) {
+
+				queryContext.after(null, uuid);
+				return;
+			}
+
+			final String value = decoded.substring(pos + 2);
+
+			switch (decoded.charAt(pos + 1)) {
+
+				case 'n':
+					queryContext.after(null, uuid);
+					return;
+
+				case 's':
+					queryContext.after(value, uuid);
+					return;
+
+				case 'l':
+					queryContext.after(Long.valueOf(value), uuid);
+					return;
+
+				case 'i':
+					queryContext.after(Integer.valueOf(value), uuid);
+					return;
+
+				case 'd':
+					queryContext.after(Double.valueOf(value), uuid);
+					return;
+
+				case 'b':
+					queryContext.after(Boolean.valueOf(value), uuid);
+					return;
+			}
+
+		} catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+			// handled below
+		}
+
+		throw new FrameworkException(422, "Invalid cursor " + cursor);
+	}
+
 	private static int getPageCount(int resultCount, int pageSize) {
 
 		return (int) Math.rint(Math.ceil((double) resultCount / (double) pageSize));
 	}
+
+	// ----- nested classes -----
+	private static class Ranked<T> {
+
+		private T value      = null;
+		private int position = 0;
+
+		public Ranked(final T value, final int position) {
+
+			this.value    = value;
+			this.position = position;
+		}
+	}
 }
@@ -0,0 +1,229 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.common;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.structr.api.config.Settings;
+import org.structr.api.util.Cachable;
+import org.structr.api.util.FixedSizeCache;
+
+/**
+ * Size-bounded cache for the results of permission resolution along
+ * permission-propagating relationships, keyed by node and principal.
+ *
+ * Each result is registered as a dependent of all the nodes that were
+ * visited while it was computed, and of the principal it was computed
+ * for, so that a modification of a node only invalidates the results
+ * that could have been affected by it.
+ */
+public class PermissionResolutionCache {
+
+	private static final FixedSizeCache<Long, Map<Long, Result>> results = new FixedSizeCache<>(Settings.PermissionCacheSize.getValue());
+	private static final FixedSizeCache<Long, Dependents> dependents     = new FixedSizeCache<>(Settings.PermissionCacheSize.getValue());
+	private static final LongAdder invalidations                         = new LongAdder();
+	private static final LongAdder misses                                = new LongAdder();
+	private static final LongAdder hits                                  = new LongAdder();
+
+	public static Boolean get(final long nodeId, final long principalId, final Permission permission) {
+
+		final Map<Long, Result> map = results.get(nodeId);
+		if (map != null) {
+
+			final Result result = map.get(principalId);
+			if (result != null) {
+
+				hits.increment();
+
+				return result.get(permission);
+			}
+		}
+
+		misses.increment();
+
+		return null;
+	}
+
+	public static void put(final long nodeId, final long principalId, final Permission permission, final boolean value, final Set<Long> dependencies) {
+
+		Map<Long, Result> map = results.get(nodeId);
+		if (map == null) {
+
+			map = results.putIfAbsent(nodeId, new ConcurrentHashMap<>());
+		}
+
+		Result result = map.get(principalId);
+		if (result == null) {
+
+			result = new Result();
+
+			final Result existing = map.putIfAbsent(principalId, result);
+			if (existing != null) {
+
+				result = existing;
+			}
+		}
+
+		result.set(permission, value);
+
+		// register result for invalidation
+		for (final Long dependency : dependencies) {
+			addDependent(dependency, nodeId);
+		}
+
+		// the result also depends on the principal, e.g. on its group memberships
+		addDependent(principalId, nodeId);
+	}
+
+	/**
+	 * Removes the cached results of the given node and of all nodes
+	 * whose results were computed using the given node.
+	 *
+	 * @param nodeId
+	 */
+	public static void invalidate(final long nodeId) {
+
+		final Queue<Long> queue = new LinkedList<>();
+		final Set<Long> seen    = new HashSet<>();
+
+		queue.add(nodeId);
+
+		while (!queue.isEmpty()) {
+
+			final Long id = queue.poll();
+			if (seen.add(id)) {
+
+				results.remove(id);
+
+				final Dependents set = dependents.get(id);
+				if (set != null) {
+
+					dependents.remove(id);
+					queue.addAll(set.ids);
+				}
+			}
+		}
+
+		invalidations.increment();
+	}
+
+	public static void invalidate() {
+
+		results.clear();
+		dependents.clear();
+
+		invalidations.increment();
+	}
+
+	public static long getHitCount() {
+		return hits.sum();
+	}
+
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	public static long getInvalidationCount() {
+		return invalidations.sum();
+	}
+
+	// ----- private methods -----
+	private static void addDependent(final long dependency, final long nodeId) {
+
+		if (dependency != nodeId) {
+
+			Dependents set = dependents.get(dependency);
+			if (set == null) {
+
+				set = dependents.putIfAbsent(dependency, new Dependents());
+			}
+
+			set.ids.add(nodeId);
+		}
+	}
+
+	// ----- nested classes -----
+	private static class Result {
+
+		private volatile boolean read          = false;
+		private volatile boolean write         = false;
+		private volatile boolean delete        = false;
+		private volatile boolean accessControl = false;
+
+		public Boolean get(final Permission permission) {
+
+			if (permission.equals(Permission.read)) {
+				return read;
+			}
+
+			if (permission.equals(Permission.write)) {
+				return write;
+			}
+
+			if (permission.equals(Permission.delete)) {
+				return delete;
+			}
+
+			if (permission.equals(Permission.accessControl)) {
+				return accessControl;
+			}
+
+			return null;
+		}
+
+		public void set(final Permission permission, final boolean value) {
+
+			// a granted permission is never overwritten with a denial
+			if (permission.equals(Permission.read)) {
+				read |= value;
+			}
+
+			if (permission.equals(Permission.write)) {
+				write |= value;
+			}
+
+			if (permission.equals(Permission.delete)) {
+				delete |= value;
+			}
+
+			if (permission.equals(Permission.accessControl)) {
+				accessControl |= value;
+			}
+		}
+	}
+
+	private static class Dependents implements Cachable {
+
+		private final Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+		@Override
+		public void onRemoveFromCache() {
+
+			// when the dependency information is lost, the dependent results must go as well
+			for (final Long id : ids) {
+				invalidate(id);
+			}
+		}
+	}
+}
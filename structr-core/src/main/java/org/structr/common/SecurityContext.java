@@ -61,6 +61,7 @@ public class SecurityContext {
 	private boolean doTransactionNotifications           = true;
 	private boolean modifyAccessTime                     = true;
 	private boolean ignoreResultCount                    = false;
+	private boolean streamResults                        = false;
 	private boolean ensureCardinality                    = true;
 	private int serializationDepth                       = -1;
 
@@ -791,6 +792,21 @@ public class SecurityContext {
 		return ignoreResultCount;
 	}
 
+	/**
+	 * Indicates that the results of top-level collection queries can be
+	 * streamed, i.e. that they are written in the transaction in which
+	 * they were created.
+	 *
+	 * @param doStream
+	 */
+	public void streamResults(final boolean doStream) {
+		this.streamResults = doStream;
+	}
+
+	public boolean streamResults() {
+		return streamResults;
+	}
+
 	public boolean doEnsureCardinality() {
 		return ensureCardinality;
 	}
@@ -18,8 +18,14 @@
  */
 package org.structr.common;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import org.apache.commons.lang3.StringUtils;
@@ -34,6 +40,7 @@ import org.structr.common.error.RangeToken;
 import org.structr.common.error.TooShortToken;
 import org.structr.common.error.UniqueToken;
 import org.structr.core.GraphObject;
+import org.structr.core.app.Query;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.graph.NodeInterface;
@@ -51,8 +58,18 @@ public class ValidationHelper {
 
 	private static final Logger logger = LoggerFactory.getLogger(ValidationHelper.class.getName());
 
-	private static final PropertyKey UnknownType       = new GenericProperty("unknown type");
-	private static final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+	private static final ThreadLocal<Map<String, Map<Object, List<GraphObject>>>> prefetchedValues = new ThreadLocal<>();
+	private static final PropertyKey UnknownType                                                   = new GenericProperty("unknown type");
+	private static final Map<String, Pattern> patterns                                             = new ConcurrentHashMap<>();
+	private static final Object[] uniquenessLocks                                                  = new Object[256];
+	private static final int PREFETCH_BATCH_SIZE                                                   = 500;
+
+	static {
+
+		for (int i=0; i<uniquenessLocks.length; i++) {
+			uniquenessLocks[i] = new Object();
+		}
+	}
 
 	// ----- public static methods -----
 	/**
@@ -507,7 +524,7 @@ public class ValidationHelper {
 		return true;
 	}
 
-	public static synchronized boolean isValidUniqueProperty(final GraphObject object, final PropertyKey key, final ErrorBuffer errorBuffer) {
+	public static boolean isValidUniqueProperty(final GraphObject object, final PropertyKey key, final ErrorBuffer errorBuffer) {
 
 		if (key != null) {
 
@@ -518,35 +535,38 @@ public class ValidationHelper {
 				List<GraphObject> result = null;
 
 				// use declaring class for inheritance-aware uniqueness
-				Class type = key.getDeclaringClass();
-				if (type == null || (AbstractNode.name.equals(key) && NodeInterface.class.equals(type))) {
+				final Class type = getUniquenessType(object, key);
 
-					// fallback: object type
-					type = object.getClass();
-				}
+				synchronized (getUniquenessLock(type, key, value)) {
 
-				try {
+					// use the result of a batched lookup if present
+					result = getPrefetchedObjects(type, key, value);
+					if (result == null) {
 
-					if (object instanceof NodeInterface) {
+						try {
 
-						result = StructrApp.getInstance()
-							.nodeQuery(type)
-							.and(key, value)
-							.getAsList();
+							if (object instanceof NodeInterface) {
 
-					} else {
+								result = StructrApp.getInstance()
+									.nodeQuery(type)
+									.and(key, value)
+									.getAsList();
 
-						result = StructrApp.getInstance()
-							.relationshipQuery(type)
-							.and(key, value)
-							.getAsList();
+							} else {
 
-					}
+								result = StructrApp.getInstance()
+									.relationshipQuery(type)
+									.and(key, value)
+									.getAsList();
 
-				} catch (FrameworkException fex) {
+							}
 
-					logger.warn("", fex);
+						} catch (FrameworkException fex) {
 
+							logger.warn("", fex);
+
+						}
+					}
 				}
 
 				/* This validation code runs at the end of a transaction, so if there
@@ -582,7 +602,7 @@ public class ValidationHelper {
 		return true;
 	}
 
-	public static synchronized boolean areValidCompoundUniqueProperties(final GraphObject object, final ErrorBuffer errorBuffer, final PropertyKey... keys) {
+	public static boolean areValidCompoundUniqueProperties(final GraphObject object, final ErrorBuffer errorBuffer, final PropertyKey... keys) {
 
 		if (keys != null && keys.length > 0) {
 
@@ -607,30 +627,33 @@ public class ValidationHelper {
 				type = object.getClass();
 			}
 
-			try {
+			synchronized (getUniquenessLock(type, null, new ArrayList<>(properties.values()))) {
 
-				if (object instanceof NodeInterface) {
+				try {
 
-					result = StructrApp.getInstance()
-						.nodeQuery(type)
-						.and(properties)
-						.disableSorting()
-						.getAsList();
+					if (object instanceof NodeInterface) {
 
-				} else {
+						result = StructrApp.getInstance()
+							.nodeQuery(type)
+							.and(properties)
+							.disableSorting()
+							.getAsList();
 
-					result = StructrApp.getInstance()
-						.relationshipQuery(type)
-						.and(properties)
-						.disableSorting()
-						.getAsList();
+					} else {
 
-				}
+						result = StructrApp.getInstance()
+							.relationshipQuery(type)
+							.and(properties)
+							.disableSorting()
+							.getAsList();
 
-			} catch (FrameworkException fex) {
+					}
+
+				} catch (FrameworkException fex) {
 
-				logger.warn("", fex);
+					logger.warn("", fex);
 
+				}
 			}
 
 			/* This validation code runs at the end of a transaction, so if there
@@ -665,42 +688,46 @@ public class ValidationHelper {
 		return true;
 	}
 
-	public static synchronized boolean isValidGloballyUniqueProperty(final GraphObject object, final PropertyKey key, final ErrorBuffer errorBuffer) {
+	public static boolean isValidGloballyUniqueProperty(final GraphObject object, final PropertyKey key, final ErrorBuffer errorBuffer) {
 
 		if (key != null) {
 
 			final Object value                 = object.getProperty(key);
 			List<? extends GraphObject> result = null;
 
-			try {
+			if (!(object instanceof NodeInterface) && !(object instanceof RelationshipInterface)) {
 
-				if (object instanceof NodeInterface) {
+				logger.error("GraphObject is neither NodeInterface nor RelationshipInterface");
 
-					result = StructrApp.getInstance()
-						.nodeQuery(NodeInterface.class)
-						.and(key, value)
-						.disableSorting()
-						.getAsList();
+				return false;
+			}
 
-				} else if (object instanceof RelationshipInterface) {
+			synchronized (getUniquenessLock(GraphObject.class, key, value)) {
 
-					result = StructrApp.getInstance()
-						.relationshipQuery(RelationshipInterface.class)
-						.and(key, value)
-						.disableSorting()
-						.getAsList();
+				try {
 
-				} else {
+					if (object instanceof NodeInterface) {
+
+						result = StructrApp.getInstance()
+							.nodeQuery(NodeInterface.class)
+							.and(key, value)
+							.disableSorting()
+							.getAsList();
 
-					logger.error("GraphObject is neither NodeInterface nor RelationshipInterface");
+					} else {
 
-					return false;
-				}
+						result = StructrApp.getInstance()
+							.relationshipQuery(RelationshipInterface.class)
+							.and(key, value)
+							.disableSorting()
+							.getAsList();
+					}
 
-			} catch (FrameworkException fex) {
+				} catch (FrameworkException fex) {
 
-				logger.warn("Unable to fetch list of nodes for uniqueness check", fex);
-				// handle error
+					logger.warn("Unable to fetch list of nodes for uniqueness check", fex);
+					// handle error
+				}
 			}
 
 			if (result != null) {
@@ -726,4 +753,158 @@ public class ValidationHelper {
 		return true;
 
 	}
+
+	/**
+	 * Looks up the existing nodes for the values of all unique properties of
+	 * the given objects with one query per type and property (in batches),
+	 * so that the validation of the individual objects doesn't need to run a
+	 * separate query for each object. The results are only visible to the
+	 * current thread and must be removed with clearPrefetchedUniqueValues.
+	 *
+	 * @param objects the objects that will be validated
+	 */
+	public static void prefetchUniqueValues(final Iterable<GraphObject> objects) {
+
+		final Map<String, Map<Object, List<GraphObject>>> prefetched = new LinkedHashMap<>();
+		final Map<String, Set<Object>> values                        = new LinkedHashMap<>();
+		final Map<String, PropertyKey> keys                          = new LinkedHashMap<>();
+		final Map<String, Class> types                               = new LinkedHashMap<>();
+		final Map<Class, List<PropertyKey>> uniqueKeys               = new LinkedHashMap<>();
+
+		for (final GraphObject object : objects) {
+
+			if (object instanceof NodeInterface) {
+
+				final List<PropertyKey> keysOfType = uniqueKeys.computeIfAbsent(object.getClass(), ValidationHelper::getUniquePropertyKeys);
+
+				for (final PropertyKey key : keysOfType) {
+
+					final Object value = object.getProperty(key);
+					if (value instanceof String || value instanceof Number) {
+
+						final Class type    = getUniquenessType(object, key);
+						final String mapKey = getPrefetchKey(type, key);
+
+						values.computeIfAbsent(mapKey, k -> new LinkedHashSet<>()).add(value);
+						keys.put(mapKey, key);
+						types.put(mapKey, type);
+					}
+				}
+			}
+		}
+
+		for (final Map.Entry<String, Set<Object>> entry : values.entrySet()) {
+
+			final String mapKey   = entry.getKey();
+			final Set<Object> set = entry.getValue();
+
+			// a single value is validated with a single query anyway
+			if (set.size() > 1) {
+
+				final Map<Object, List<GraphObject>> found = new LinkedHashMap<>();
+				final PropertyKey key                      = keys.get(mapKey);
+				final List<Object> list                    = new ArrayList<>(set);
+
+				try {
+
+					for (int i=0; i<list.size(); i+=PREFETCH_BATCH_SIZE) {
+
+						final List<Object> batch = list.subList(i, Math.min(list.size(), i + PREFETCH_BATCH_SIZE));
+						final Query query        = StructrApp.getInstance().nodeQuery(types.get(mapKey)).disableSorting();
+
+						query.and();
+
+						for (final Object value : batch) {
+
+							query.or(key, value);
+							found.put(value, new LinkedList<>());
+						}
+
+						query.parent();
+
+						for (final Object obj : query.getAsList()) {
+
+							final GraphObject foundObject = (GraphObject)obj;
+							final List<GraphObject> group = found.get(foundObject.getProperty(key));
+
+							if (group != null) {
+								group.add(foundObject);
+							}
+						}
+					}
+
+					prefetched.put(mapKey, found);
+
+				} catch (FrameworkException fex) {
+
+					logger.warn("Unable to prefetch values for uniqueness check of {}: {}", mapKey, fex.getMessage());
+				}
+			}
+		}
+
+		if (!prefetched.isEmpty()) {
+			prefetchedValues.set(prefetched);
+		}
+	}
+
+	public static void clearPrefetchedUniqueValues() {
+		prefetchedValues.remove();
+	}
+
+	// ----- private static methods -----
+	private static Class getUniquenessType(final GraphObject object, final PropertyKey key) {
+
+		final Class type = key.getDeclaringClass();
+		if (type == null || (AbstractNode.name.equals(key) && NodeInterface.class.equals(type))) {
+
+			// fallback: object type
+			return object.getClass();
+		}
+
+		return type;
+	}
+
+	/**
+	 * Returns the lock for the given combination of type, key and value, so
+	 * that only the validation of identical values is serialized.
+	 */
+	private static Object getUniquenessLock(final Class type, final PropertyKey key, final Object value) {
+
+		final int hash = Objects.hash(type.getName(), key != null ? key.dbName() : null, value);
+
+		return uniquenessLocks[(hash & 0x7fffffff) % uniquenessLocks.length];
+	}
+
+	private static List<GraphObject> getPrefetchedObjects(final Class type, final PropertyKey key, final Object value) {
+
+		final Map<String, Map<Object, List<GraphObject>>> prefetched = prefetchedValues.get();
+		if (prefetched != null) {
+
+			final Map<Object, List<GraphObject>> found = prefetched.get(getPrefetchKey(type, key));
+			if (found != null) {
+
+				return found.get(value);
+			}
+		}
+
+		return null;
+	}
+
+	private static String getPrefetchKey(final Class type, final PropertyKey key) {
+		return type.getName() + "." + key.dbName();
+	}
+
+	private static List<PropertyKey> getUniquePropertyKeys(final Class type) {
+
+		final List<PropertyKey> keys = new ArrayList<>();
+
+		for (final PropertyKey key : StructrApp.getConfiguration().getPropertySet(type, PropertyView.All)) {
+
+			if (key.isUnique()) {
+				keys.add(key);
+			}
+		}
+
+		return keys;
+	}
 }
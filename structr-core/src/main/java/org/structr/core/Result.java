@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import org.structr.api.util.Iterables;
 
 /**
  * Encapsulates the result of a query operation.
@@ -38,11 +39,13 @@ public class Result<T extends GraphObject> {
 	private boolean hasPartialContent = false;
 	private String propertyView       = null;
 	private List<T> results           = null;
+	private Iterable<T> source        = null;
 
 	private String searchString       = null;
 	private String queryTime          = null;
 	private String sortOrder          = null;
 	private String sortKey            = null;
+	private String nextCursor         = null;
 
 	private Integer resultCount       	= null;
 	private Integer pageCount         	= null;
@@ -84,23 +87,87 @@ public class Result<T extends GraphObject> {
 		this.nonGraphObject   = nonGraphObjectResult;
 	}
 
+	/**
+	 * Creates a result whose elements are produced lazily by the given
+	 * source, so that they can be written without holding all of them
+	 * in memory. The elements are collected into a list only when they
+	 * are accessed through the list methods of this class. A streaming
+	 * result must be consumed in the transaction that created it.
+	 *
+	 * @param source the elements
+	 * @param rawResultCount the overall count, or null if unknown
+	 * @return a streaming result
+	 */
+	public static <T extends GraphObject> Result<T> stream(final Iterable<T> source, final Integer rawResultCount) {
+
+		final Result<T> result = new Result<>(Collections.emptyList(), rawResultCount, true, false);
+
+		result.results     = null;
+		result.source      = source;
+		result.resultCount = rawResultCount;
+
+		return result;
+	}
+
 	@Override
 	public String toString() {
+
+		materialize();
+
 		return "Result(" + (results != null ? results.size() : 0) + ")";
 	}
 
 	public T get(final int i) {
+
+		materialize();
+
 		return results.get(i);
 	}
 
 	public boolean isEmpty() {
+
+		materialize();
+
 		return results == null || results.isEmpty();
 	}
 
 	public List<T> getResults() {
+
+		materialize();
+
 		return results;
 	}
 
+	public boolean isStreaming() {
+		return source != null;
+	}
+
+	/**
+	 * Returns the elements of this result without collecting them. The
+	 * source of a streaming result can only be consumed once, the result
+	 * is empty afterwards.
+	 *
+	 * @return the elements of this result
+	 */
+	public Iterable<T> iterable() {
+
+		if (source != null) {
+
+			final Iterable<T> elements = source;
+
+			source  = null;
+			results = Collections.emptyList();
+
+			return elements;
+		}
+
+		if (results != null) {
+			return results;
+		}
+
+		return Collections.emptyList();
+	}
+
 	public void setQueryTime(final String queryTime) {
 		this.queryTime = queryTime;
 	}
@@ -125,12 +192,25 @@ public class Result<T extends GraphObject> {
 		this.sortKey = sortKey;
 	}
 
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(final String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
 	public Integer getRawResultCount() {
 
 		if (resultCount != null) {
 			return resultCount;
 		}
 
+		// the count of a streaming result is not known in advance
+		if (source != null) {
+			return null;
+		}
+
 		return size();
 	}
 
@@ -225,4 +305,18 @@ public class Result<T extends GraphObject> {
 	public Object getNonGraphObjectResult() {
 		return nonGraphObject;
 	}
+
+	// ----- private methods -----
+	private void materialize() {
+
+		if (source != null) {
+
+			results = Iterables.toList(source);
+			source  = null;
+
+			if (resultCount == null) {
+				resultCount = results.size();
+			}
+		}
+	}
 }
@@ -50,6 +50,7 @@ public interface App extends Closeable {
 	public <T extends NodeInterface> T create(final Class<T> type, final String name) throws FrameworkException;
 	public <T extends NodeInterface> T create(final Class<T> type, final PropertyMap properties) throws FrameworkException;
 	public <T extends NodeInterface> T create(final Class<T> type, final NodeAttribute<?>... attributes) throws FrameworkException;
+	public <T extends NodeInterface> List<T> create(final Class<T> type, final List<PropertyMap> properties) throws FrameworkException;
 
 	public void delete(final NodeInterface node) throws FrameworkException;
 
@@ -25,7 +25,6 @@ import graphql.schema.GraphQLType;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -49,6 +48,7 @@ import org.structr.common.View;
 import org.structr.common.error.ErrorBuffer;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
+import org.structr.core.app.StructrApp;
 import org.structr.core.entity.relationship.Ownership;
 import org.structr.core.entity.relationship.SchemaRelationshipSourceNode;
 import org.structr.core.entity.relationship.SchemaRelationshipTargetNode;
@@ -80,7 +80,6 @@ import org.structr.schema.parser.Validator;
 public class SchemaRelationshipNode extends AbstractSchemaNode {
 
 	private static final Logger logger                              = LoggerFactory.getLogger(SchemaRelationshipNode.class.getName());
-	private static final Set<Class> propagatingRelTypes             = new HashSet<>();
 	private static final Pattern ValidKeyPattern                    = Pattern.compile("[a-zA-Z_]+");
 
 	public static final Property<SchemaNode> sourceNode             = new StartNode<>("sourceNode", SchemaRelationshipSourceNode.class);
@@ -141,15 +140,15 @@ public class SchemaRelationshipNode extends AbstractSchemaNode {
 
 
 	public static void registerPropagatingRelationshipType(final Class type) {
-		propagatingRelTypes.add(type);
+		StructrApp.getConfiguration().registerPropagatingRelationshipType(type);
 	}
 
 	public static void clearPropagatingRelationshipTypes() {
-		propagatingRelTypes.clear();
+		StructrApp.getConfiguration().clearPropagatingRelationshipTypes();
 	}
 
 	public static Set<Class> getPropagatingRelationshipTypes() {
-		return propagatingRelTypes;
+		return StructrApp.getConfiguration().getPropagatingRelationshipTypes();
 	}
 
 
@@ -551,10 +550,6 @@ public class SchemaRelationshipNode extends AbstractSchemaNode {
 
 		src.append(" {\n\n");
 
-		if (!Direction.None.equals(getProperty(permissionPropagation))) {
-			src.append("\tstatic {\n\t\tSchemaRelationshipNode.registerPropagatingRelationshipType(").append(_className).append(".class);\n\t}\n\n");
-		}
-
 		src.append(SchemaHelper.extractProperties(this, propertyNames, validators, compoundIndexKeys, enums, viewProperties, propertyValidators, errorBuffer));
 
 		SchemaHelper.extractViews(this, viewProperties, Collections.EMPTY_SET, errorBuffer);
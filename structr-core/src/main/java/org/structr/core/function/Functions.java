@@ -29,6 +29,8 @@ import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
+import org.structr.api.config.Settings;
+import org.structr.api.util.FixedSizeCache;
 import org.structr.common.error.FrameworkException;
 import org.structr.common.error.UnlicensedException;
 import org.structr.core.GraphObject;
@@ -60,8 +62,9 @@ import org.structr.schema.action.Function;
  */
 public class Functions {
 
-	private static final Map<String, Function<Object, Object>> functions = new LinkedHashMap<>();
-	public static final String NULL_STRING                               = "___NULL___";
+	private static final FixedSizeCache<String, Expression> expressionCache = new FixedSizeCache<>(Settings.ExpressionCacheSize.getValue());
+	private static final Map<String, Function<Object, Object>> functions    = new LinkedHashMap<>();
+	public static final String NULL_STRING                                  = "___NULL___";
 
 	public static void put(final boolean licensed, final int edition, final String name, final Function<Object, Object> function) {
 
@@ -73,6 +76,9 @@ public class Functions {
 
 			functions.put(name, new UnlicensedFunction(name, edition));
 		}
+
+		// cached expressions may have resolved the name to a value
+		clearExpressionCache();
 	}
 
 	public static Set<String> getNames() {
@@ -88,6 +94,26 @@ public class Functions {
 	}
 
 	public static Object evaluate(final ActionContext actionContext, final GraphObject entity, final String expression) throws FrameworkException, UnlicensedException {
+		return parse(expression).evaluate(actionContext, entity);
+	}
+
+	/**
+	 * Returns the expression tree for the given source text, using a
+	 * previously parsed tree if one exists. Expression trees do not
+	 * hold evaluation state (except for batch(), which is never cached),
+	 * so a tree can be shared across threads.
+	 *
+	 * @param expression
+	 * @return the root of the expression tree
+	 * @throws FrameworkException
+	 */
+	public static Expression parse(final String expression) throws FrameworkException {
+
+		final Expression cached = expressionCache.get(expression);
+		if (cached != null) {
+
+			return cached;
+		}
 
 		final String expressionWithoutNewlines = expression.replace('\n', ' ').replace('\r', ' ');
 		final StreamTokenizer tokenizer = new StreamTokenizer(new StringReader(expressionWithoutNewlines));
@@ -101,6 +127,7 @@ public class Functions {
 		Expression current = root;
 		Expression next = null;
 		String lastToken = null;
+		boolean cachable = true;
 		int token = 0;
 		int level = 0;
 
@@ -130,6 +157,11 @@ public class Functions {
 						throw new FrameworkException(422, "Invalid expression: mismatched opening bracket before " + tokenizer.sval);
 					}
 					next = checkReservedWords(tokenizer.sval);
+					if (next instanceof BatchExpression) {
+
+						// batch() stores its batch size in the expression tree
+						cachable = false;
+					}
 					Expression previousExpression = current.getPrevious();
 					if (tokenizer.sval.startsWith(".") && previousExpression != null && previousExpression instanceof FunctionExpression && next instanceof ValueExpression) {
 
@@ -214,7 +246,16 @@ public class Functions {
 			throw new FrameworkException(422, "Invalid expression: mismatched closing bracket after " + lastToken);
 		}
 
-		return root.evaluate(actionContext, entity);
+		if (cachable) {
+
+			expressionCache.put(expression, root);
+		}
+
+		return root;
+	}
+
+	public static void clearExpressionCache() {
+		expressionCache.clear();
 	}
 
 	public static String cleanString(final Object input) {
@@ -18,9 +18,11 @@
  */
 package org.structr.core.graph;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -29,6 +31,7 @@ import org.structr.api.NativeResult;
 import org.structr.api.ConstraintViolationException;
 import org.structr.api.DataFormatException;
 import org.structr.api.graph.Node;
+import org.structr.api.graph.RelationshipType;
 import org.structr.common.Permission;
 import org.structr.common.PropertyView;
 import org.structr.common.error.FrameworkException;
@@ -87,111 +90,164 @@ public class CreateNodeCommand<T extends NodeInterface> extends NodeServiceComma
 		if (graphDb != null) {
 
 			final NodeFactory<T> nodeFactory = new NodeFactory<>(securityContext);
-			final PropertyMap properties     = new PropertyMap(attributes);
-			final PropertyMap toNotify       = new PropertyMap();
-			final Object typeObject          = properties.get(AbstractNode.type);
-			final Class nodeType             = getTypeOrGeneric(typeObject);
-			final Set<String> labels         = TypeProperty.getLabelsForType(nodeType);
-			final CreationContainer tmp      = new CreationContainer();
-			final Date now                   = new Date();
-			final boolean isCreation         = true;
+			final NodeCreation creation      = prepare(user, attributes);
 
-			// use user-supplied UUID?
-			String uuid = properties.get(GraphObject.id);
-			if (uuid == null) {
+			node = finish(nodeFactory, user, creation, createNode(graphDb, user, creation.labels, creation.data));
+		}
 
-				// no, create new one
-				uuid = getNextUuid();
+		return node;
+	}
 
-				properties.put(GraphObject.id, uuid);
+	/**
+	 * Creates one node for each of the given property maps. Consecutive
+	 * entries of the same type are created in a single database operation,
+	 * so callers that create many nodes of the same type (e.g. importers)
+	 * should use this method instead of calling execute repeatedly.
+	 *
+	 * @param attributeList
+	 * @return the new nodes in the order of the input list
+	 * @throws FrameworkException
+	 */
+	public List<T> execute(final List<PropertyMap> attributeList) throws FrameworkException {
 
-			} else {
+		final DatabaseService graphDb = (DatabaseService) arguments.get("graphDb");
+		final Principal user          = securityContext.getUser(false);
+		final List<T> nodes           = new ArrayList<>();
 
-				// enable UUID validation
-				securityContext.uuidWasSetManually(true);
-			}
+		if (graphDb != null) {
 
-			// use property keys to set property values on creation dummy
-			// set default values for common properties in creation query
-			GraphObject.id.setProperty(securityContext, tmp, uuid);
-			GraphObject.type.setProperty(securityContext, tmp, nodeType.getSimpleName());
-			AbstractNode.createdDate.setProperty(securityContext, tmp, now);
-			AbstractNode.lastModifiedDate.setProperty(securityContext, tmp, now);
+			final NodeFactory<T> nodeFactory = new NodeFactory<>(securityContext);
+			final List<NodeCreation> batch   = new ArrayList<>();
+
+			for (final PropertyMap attributes : attributeList) {
 
-			// default property values
-			AbstractNode.visibleToPublicUsers.setProperty(securityContext, tmp,        getOrDefault(properties, AbstractNode.visibleToPublicUsers, false));
-			AbstractNode.visibleToAuthenticatedUsers.setProperty(securityContext, tmp, getOrDefault(properties, AbstractNode.visibleToAuthenticatedUsers, false));
-			AbstractNode.hidden.setProperty(securityContext, tmp,                      getOrDefault(properties, AbstractNode.hidden, false));
-			AbstractNode.deleted.setProperty(securityContext, tmp,                     getOrDefault(properties, AbstractNode.deleted, false));
+				final NodeCreation creation = prepare(user, attributes);
 
-			if (user != null) {
+				// labels cannot be parameterized, so a batch can only contain a single type
+				if (!batch.isEmpty() && !batch.get(0).nodeType.equals(creation.nodeType)) {
 
-				final String userId = user.getProperty(GraphObject.id);
+					createBatch(graphDb, nodeFactory, user, batch, nodes);
+				}
 
-				AbstractNode.createdBy.setProperty(securityContext, tmp, userId);
-				AbstractNode.lastModifiedBy.setProperty(securityContext, tmp, userId);
+				batch.add(creation);
 			}
 
-			// prevent double setting of properties
-			properties.remove(AbstractNode.id);
-			properties.remove(AbstractNode.type);
-			properties.remove(AbstractNode.visibleToPublicUsers);
-			properties.remove(AbstractNode.visibleToAuthenticatedUsers);
-			properties.remove(AbstractNode.hidden);
-			properties.remove(AbstractNode.deleted);
-			properties.remove(AbstractNode.lastModifiedDate);
-			properties.remove(AbstractNode.lastModifiedBy);
-			properties.remove(AbstractNode.createdDate);
-			properties.remove(AbstractNode.createdBy);
+			createBatch(graphDb, nodeFactory, user, batch, nodes);
+		}
 
-			// move properties to creation container that can be set directly on creation
-			tmp.filterIndexableForCreation(securityContext, properties, tmp, toNotify);
+		return nodes;
+	}
 
-			// collect default values and try to set them on creation
-			for (final PropertyKey key : StructrApp.getConfiguration().getPropertySet(nodeType, PropertyView.All)) {
+	// ----- private methods -----
+	private NodeCreation prepare(final Principal user, final PropertyMap attributes) throws FrameworkException {
 
-				if (key instanceof AbstractPrimitiveProperty && !tmp.hasProperty(key.jsonName())) {
+		final PropertyMap properties = new PropertyMap(attributes);
+		final PropertyMap toNotify   = new PropertyMap();
+		final Object typeObject      = properties.get(AbstractNode.type);
+		final Class nodeType         = getTypeOrGeneric(typeObject);
+		final Set<String> labels     = TypeProperty.getLabelsForType(nodeType);
+		final CreationContainer tmp  = new CreationContainer();
+		final Date now               = new Date();
 
-					final Object defaultValue = key.defaultValue();
-					if (defaultValue != null) {
+		// use user-supplied UUID?
+		String uuid = properties.get(GraphObject.id);
+		if (uuid == null) {
 
-						key.setProperty(securityContext, tmp, defaultValue);
-					}
-				}
-			}
+			// no, create new one
+			uuid = getNextUuid();
 
-			node = (T) nodeFactory.instantiateWithType(createNode(graphDb, user, labels, tmp.getData()), nodeType, null, isCreation);
-			if (node != null) {
+			properties.put(GraphObject.id, uuid);
 
-				TransactionCommand.nodeCreated(user, node);
+		} else {
 
-				securityContext.disableModificationOfAccessTime();
-				node.setProperties(securityContext, properties);
-				securityContext.enableModificationOfAccessTime();
+			// enable UUID validation
+			securityContext.uuidWasSetManually(true);
+		}
 
-				// ensure modification callbacks are called (necessary for validation)
-				for (final Entry<PropertyKey, Object> entry : toNotify.entrySet()) {
+		// use property keys to set property values on creation dummy
+		// set default values for common properties in creation query
+		GraphObject.id.setProperty(securityContext, tmp, uuid);
+		GraphObject.type.setProperty(securityContext, tmp, nodeType.getSimpleName());
+		AbstractNode.createdDate.setProperty(securityContext, tmp, now);
+		AbstractNode.lastModifiedDate.setProperty(securityContext, tmp, now);
 
-					final PropertyKey key = entry.getKey();
-					final Object value    = entry.getValue();
+		// default property values
+		AbstractNode.visibleToPublicUsers.setProperty(securityContext, tmp,        getOrDefault(properties, AbstractNode.visibleToPublicUsers, false));
+		AbstractNode.visibleToAuthenticatedUsers.setProperty(securityContext, tmp, getOrDefault(properties, AbstractNode.visibleToAuthenticatedUsers, false));
+		AbstractNode.hidden.setProperty(securityContext, tmp,                      getOrDefault(properties, AbstractNode.hidden, false));
+		AbstractNode.deleted.setProperty(securityContext, tmp,                     getOrDefault(properties, AbstractNode.deleted, false));
 
-					if (!key.isUnvalidated()) {
-						TransactionCommand.nodeModified(securityContext.getCachedUser(), (AbstractNode)node, key, null, value);
-					}
-				}
+		if (user != null) {
+
+			final String userId = user.getProperty(GraphObject.id);
+
+			AbstractNode.createdBy.setProperty(securityContext, tmp, userId);
+			AbstractNode.lastModifiedBy.setProperty(securityContext, tmp, userId);
+		}
+
+		// prevent double setting of properties
+		properties.remove(AbstractNode.id);
+		properties.remove(AbstractNode.type);
+		properties.remove(AbstractNode.visibleToPublicUsers);
+		properties.remove(AbstractNode.visibleToAuthenticatedUsers);
+		properties.remove(AbstractNode.hidden);
+		properties.remove(AbstractNode.deleted);
+		properties.remove(AbstractNode.lastModifiedDate);
+		properties.remove(AbstractNode.lastModifiedBy);
+		properties.remove(AbstractNode.createdDate);
+		properties.remove(AbstractNode.createdBy);
+
+		// move properties to creation container that can be set directly on creation
+		tmp.filterIndexableForCreation(securityContext, properties, tmp, toNotify);
+
+		// collect default values and try to set them on creation
+		for (final PropertyKey key : StructrApp.getConfiguration().getPropertySet(nodeType, PropertyView.All)) {
 
-				properties.clear();
+			if (key instanceof AbstractPrimitiveProperty && !tmp.hasProperty(key.jsonName())) {
 
-				// ensure indexing of newly created node
-				node.addToIndex();
+				final Object defaultValue = key.defaultValue();
+				if (defaultValue != null) {
 
-				// invalidate UUID cache
-				StructrApp.invalidate(uuid);
+					key.setProperty(securityContext, tmp, defaultValue);
+				}
 			}
 		}
 
+		return new NodeCreation(nodeType, labels, uuid, tmp.getData(), properties, toNotify);
+	}
+
+	private T finish(final NodeFactory<T> nodeFactory, final Principal user, final NodeCreation creation, final Node dbNode) throws FrameworkException {
+
+		final boolean isCreation = true;
+		final T node             = (T) nodeFactory.instantiateWithType(dbNode, creation.nodeType, null, isCreation);
+
 		if (node != null) {
 
+			TransactionCommand.nodeCreated(user, node);
+
+			securityContext.disableModificationOfAccessTime();
+			node.setProperties(securityContext, creation.properties);
+			securityContext.enableModificationOfAccessTime();
+
+			// ensure modification callbacks are called (necessary for validation)
+			for (final Entry<PropertyKey, Object> entry : creation.toNotify.entrySet()) {
+
+				final PropertyKey key = entry.getKey();
+				final Object value    = entry.getValue();
+
+				if (!key.isUnvalidated()) {
+					TransactionCommand.nodeModified(securityContext.getCachedUser(), (AbstractNode)node, key, null, value);
+				}
+			}
+
+			creation.properties.clear();
+
+			// ensure indexing of newly created node
+			node.addToIndex();
+
+			// invalidate UUID cache
+			StructrApp.invalidate(creation.uuid);
+
 			// notify node of its creation
 			node.onNodeCreation();
 
@@ -206,15 +262,39 @@ public class CreateNodeCommand<T extends NodeInterface> extends NodeServiceComma
 		return node;
 	}
 
-	// ----- private methods -----
+	private void createBatch(final DatabaseService graphDb, final NodeFactory<T> nodeFactory, final Principal user, final List<NodeCreation> batch, final List<T> nodes) throws FrameworkException {
+
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		final List<Map<String, Object>> data = new ArrayList<>();
+
+		for (final NodeCreation creation : batch) {
+			data.add(creation.data);
+		}
+
+		final List<Node> newNodes = createNodes(graphDb, user, batch.get(0).labels, data);
+		final int count           = batch.size();
+
+		for (int i=0; i<count; i++) {
+
+			final T node = finish(nodeFactory, user, batch.get(i), newNodes.get(i));
+			if (node != null) {
+
+				nodes.add(node);
+			}
+		}
+
+		batch.clear();
+	}
+
 	private Node createNode(final DatabaseService graphDb, final Principal user, final Set<String> labels, final Map<String, Object> properties) throws FrameworkException {
 
-		final Map<String, Object> parameters         = new HashMap<>();
-		final Map<String, Object> ownsProperties     = new HashMap<>();
-		final Map<String, Object> securityProperties = new HashMap<>();
-		final StringBuilder buf                      = new StringBuilder();
-		final String newUuid                         = (String)properties.get("id");
-		final String tenantId                        = graphDb.getTenantIdentifier();
+		final Map<String, Object> parameters = new HashMap<>();
+		final StringBuilder buf              = new StringBuilder();
+		final String newUuid                 = (String)properties.get("id");
+		final String tenantId                = graphDb.getTenantIdentifier();
 
 		if (user != null && user.shouldSkipSecurityRelationships() == false) {
 
@@ -236,23 +316,10 @@ public class CreateNodeCommand<T extends NodeInterface> extends NodeServiceComma
 			buf.append(" {nodeProperties})<-[s:SECURITY {securityProperties}]-(u)");
 			buf.append(" RETURN n");
 
-			// configure OWNS relationship
-			ownsProperties.put(GraphObject.id.dbName(),                getNextUuid());
-			ownsProperties.put(GraphObject.type.dbName(),              PrincipalOwnsNode.class.getSimpleName());
-			ownsProperties.put(AbstractRelationship.sourceId.dbName(), user.getUuid());
-			ownsProperties.put(AbstractRelationship.targetId.dbName(), newUuid);
-
-			// configure SECURITY relationship
-			securityProperties.put(Security.allowed.dbName(),              new String[] { Permission.read.name(), Permission.write.name(), Permission.delete.name(), Permission.accessControl.name() } );
-			securityProperties.put(GraphObject.id.dbName(),                getNextUuid());
-			securityProperties.put(GraphObject.type.dbName(),              Security.class.getSimpleName());
-			securityProperties.put(AbstractRelationship.sourceId.dbName(), user.getUuid());
-			securityProperties.put(AbstractRelationship.targetId.dbName(), newUuid);
-
 			// store properties in statement
 			parameters.put("userId",             user.getId());
-			parameters.put("ownsProperties",     ownsProperties);
-			parameters.put("securityProperties", securityProperties);
+			parameters.put("ownsProperties",     getOwnsProperties(user, newUuid));
+			parameters.put("securityProperties", getSecurityProperties(user, newUuid));
 
 		} else {
 
@@ -297,6 +364,72 @@ public class CreateNodeCommand<T extends NodeInterface> extends NodeServiceComma
 		throw new RuntimeException("Unable to create new node.");
 	}
 
+	private List<Node> createNodes(final DatabaseService graphDb, final Principal user, final Set<String> labels, final List<Map<String, Object>> properties) throws FrameworkException {
+
+		try {
+
+			final List<Node> newNodes = graphDb.createNodes(labels, properties);
+
+			if (newNodes.size() != properties.size()) {
+				throw new RuntimeException("Unable to create new nodes.");
+			}
+
+			if (user != null && user.shouldSkipSecurityRelationships() == false) {
+
+				final List<Map<String, Object>> ownsProperties     = new ArrayList<>();
+				final List<Map<String, Object>> securityProperties = new ArrayList<>();
+				final List<Node> userNodes                         = new ArrayList<>();
+				final Node userNode                                = user.getNode();
+
+				for (final Map<String, Object> nodeProperties : properties) {
+
+					final String newUuid = (String)nodeProperties.get("id");
+
+					ownsProperties.add(getOwnsProperties(user, newUuid));
+					securityProperties.add(getSecurityProperties(user, newUuid));
+					userNodes.add(userNode);
+				}
+
+				graphDb.createRelationships(userNodes, newNodes, graphDb.forName(RelationshipType.class, "OWNS"),     ownsProperties);
+				graphDb.createRelationships(userNodes, newNodes, graphDb.forName(RelationshipType.class, "SECURITY"), securityProperties);
+			}
+
+			return newNodes;
+
+		} catch (DataFormatException dex) {
+			throw new FrameworkException(422, dex.getMessage());
+		} catch (ConstraintViolationException qex) {
+			throw new FrameworkException(422, qex.getMessage());
+		}
+	}
+
+	private Map<String, Object> getOwnsProperties(final Principal user, final String newUuid) {
+
+		final Map<String, Object> ownsProperties = new HashMap<>();
+
+		// configure OWNS relationship
+		ownsProperties.put(GraphObject.id.dbName(),                getNextUuid());
+		ownsProperties.put(GraphObject.type.dbName(),              PrincipalOwnsNode.class.getSimpleName());
+		ownsProperties.put(AbstractRelationship.sourceId.dbName(), user.getUuid());
+		ownsProperties.put(AbstractRelationship.targetId.dbName(), newUuid);
+
+		return ownsProperties;
+	}
+
+	private Map<String, Object> getSecurityProperties(final Principal user, final String newUuid) {
+
+		final Map<String, Object> securityProperties = new HashMap<>();
+
+		// configure SECURITY relationship
+		securityProperties.put(Security.allowed.dbName(),              new String[] { Permission.read.name(), Permission.write.name(), Permission.delete.name(), Permission.accessControl.name() } );
+		securityProperties.put(GraphObject.id.dbName(),                getNextUuid());
+		securityProperties.put(GraphObject.type.dbName(),              Security.class.getSimpleName());
+		securityProperties.put(AbstractRelationship.sourceId.dbName(), user.getUuid());
+		securityProperties.put(AbstractRelationship.targetId.dbName(), newUuid);
+
+		return securityProperties;
+	}
+
 	private Class getTypeOrGeneric(final Object typeObject) {
 
 		if (typeObject != null) {
@@ -316,4 +449,25 @@ public class CreateNodeCommand<T extends NodeInterface> extends NodeServiceComma
 
 		return defaultValue;
 	}
+
+	// ----- nested classes -----
+	private static class NodeCreation {
+
+		private Map<String, Object> data = null;
+		private PropertyMap properties   = null;
+		private PropertyMap toNotify     = null;
+		private Set<String> labels       = null;
+		private Class nodeType           = null;
+		private String uuid              = null;
+
+		public NodeCreation(final Class nodeType, final Set<String> labels, final String uuid, final Map<String, Object> data, final PropertyMap properties, final PropertyMap toNotify) {
+
+			this.nodeType   = nodeType;
+			this.labels     = labels;
+			this.uuid       = uuid;
+			this.data       = data;
+			this.properties = properties;
+			this.toNotify   = toNotify;
+		}
+	}
 }
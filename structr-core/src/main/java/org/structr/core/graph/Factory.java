@@ -30,6 +30,7 @@ import org.slf4j.LoggerFactory;
 import org.structr.api.NetworkException;
 import org.structr.api.QueryResult;
 import org.structr.api.graph.Relationship;
+import org.structr.api.util.Iterables;
 import org.structr.common.FactoryDefinition;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
@@ -151,6 +152,49 @@ public abstract class Factory<S, T extends GraphObject> implements Adapter<S, T>
 
 	}
 
+	/**
+	 * Create structr nodes from a page of underlying database nodes that
+	 * was already paged and filtered by the database query.
+	 *
+	 * @param input
+	 * @return nodes
+	 * @throws org.structr.common.error.FrameworkException
+	 */
+	public List<T> instantiatePage(final QueryResult<S> input) throws FrameworkException {
+
+		final List<T> nodes = new ArrayList<>();
+
+		try (final QueryResult<S> tmp = input) {
+
+			for (final S item : tmp) {
+
+				final T n = instantiate(item);
+				if (n != null) {
+
+					nodes.add(n);
+				}
+			}
+
+		} catch (NetworkException nex) {
+			throw new FrameworkException(503, nex.getMessage());
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Create structr nodes lazily from a page of underlying database nodes
+	 * that was already paged and filtered by the database query. The nodes
+	 * are instantiated while the returned iterable is consumed, which must
+	 * happen in the current transaction.
+	 *
+	 * @param input
+	 * @return nodes
+	 */
+	public Iterable<T> instantiateLazily(final QueryResult<S> input) {
+		return Iterables.filter(n -> n != null, Iterables.map(this, input));
+	}
+
 	/**
 	 * Create structr nodes from all given underlying database nodes
 	 * No paging, but security check
@@ -19,10 +19,12 @@
 package org.structr.core.graph;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -36,6 +38,7 @@ import org.structr.api.graph.Relationship;
 import org.structr.api.graph.RelationshipType;
 import org.structr.common.RelType;
 import org.structr.common.SecurityContext;
+import org.structr.common.ValidationHelper;
 import org.structr.common.error.ErrorBuffer;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
@@ -107,13 +110,26 @@ public class ModificationQueue {
 
 		long t0 = System.currentTimeMillis();
 
-		// do validation and indexing
-		for (Entry<String, GraphObjectModificationState> entry : modifications.entrySet()) {
+		if (doValidation) {
 
-			// do callback according to entry state
-			if (!entry.getValue().doValidationAndIndexing(this, securityContext, errorBuffer, doValidation)) {
-				return false;
+			// look up existing values of unique properties with one query per type and key
+			ValidationHelper.prefetchUniqueValues(getValidatedObjects());
+		}
+
+		try {
+
+			// do validation and indexing
+			for (Entry<String, GraphObjectModificationState> entry : modifications.entrySet()) {
+
+				// do callback according to entry state
+				if (!entry.getValue().doValidationAndIndexing(this, securityContext, errorBuffer, doValidation)) {
+					return false;
+				}
 			}
+
+		} finally {
+
+			ValidationHelper.clearPrefetchedUniqueValues();
 		}
 
 		long t = System.currentTimeMillis() - t0;
@@ -408,6 +424,21 @@ public class ModificationQueue {
 	}
 
 	// ----- private methods -----
+	private List<GraphObject> getValidatedObjects() {
+
+		final List<GraphObject> objects = new ArrayList<>();
+
+		for (final GraphObjectModificationState state : modifications.values()) {
+
+			if ((state.isCreated() || state.isModified()) && !state.isDeleted()) {
+
+				objects.add(state.getGraphObject());
+			}
+		}
+
+		return objects;
+	}
+
 	private void modifyEndNodes(final Principal user, final NodeInterface startNode, final NodeInterface endNode, final RelationshipType relType) {
 
 		// only modify if nodes are accessible
@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.core.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.structr.api.DatabaseService;
+import org.structr.api.graph.Node;
+import org.structr.api.graph.RelationshipType;
+import org.structr.core.GraphObject;
+import org.structr.core.entity.Relation;
+import org.structr.core.property.PropertyKey;
+import org.structr.core.property.RelationProperty;
+
+/**
+ * Loads the relationships of all relationship properties in the given view
+ * of the given nodes, and the nodes at their other ends, in a single query,
+ * so that serializing a collection of nodes doesn't need separate queries
+ * for each node and property. Only the direction in which a property
+ * traverses its relationship is loaded.
+ */
+public class PrefetchRelationshipsCommand extends NodeServiceCommand {
+
+	public void execute(final Iterable<? extends GraphObject> objects, final String view) {
+
+		final DatabaseService graphDb               = (DatabaseService) arguments.get("graphDb");
+		final Map<Class, RelationshipTypes> typeMap = new HashMap<>();
+		final RelationshipTypes relationshipTypes   = new RelationshipTypes();
+		final List<Node> nodes                      = new ArrayList<>();
+
+		if (graphDb == null || view == null) {
+			return;
+		}
+
+		for (final GraphObject obj : objects) {
+
+			if (obj instanceof NodeInterface) {
+
+				final Node node = ((NodeInterface)obj).getNode();
+				if (node != null) {
+
+					nodes.add(node);
+					relationshipTypes.addAll(typeMap.computeIfAbsent(obj.getClass(), k -> getRelationshipTypes(obj.getPropertyKeys(view))));
+				}
+			}
+		}
+
+		if (!nodes.isEmpty() && !relationshipTypes.isEmpty()) {
+
+			graphDb.prefetchRelationships(nodes, relationshipTypes.outgoing, relationshipTypes.incoming);
+		}
+	}
+
+	/**
+	 * Loads the relationships of the given relationship properties of the
+	 * given nodes in a single query.
+	 *
+	 * @param objects
+	 * @param keys
+	 */
+	public void execute(final Iterable<? extends GraphObject> objects, final Iterable<PropertyKey> keys) {
+
+		final DatabaseService graphDb             = (DatabaseService) arguments.get("graphDb");
+		final RelationshipTypes relationshipTypes = getRelationshipTypes(keys);
+		final List<Node> nodes                    = new ArrayList<>();
+
+		if (graphDb == null || relationshipTypes.isEmpty()) {
+			return;
+		}
+
+		for (final GraphObject obj : objects) {
+
+			if (obj instanceof NodeInterface) {
+
+				final Node node = ((NodeInterface)obj).getNode();
+				if (node != null) {
+
+					nodes.add(node);
+				}
+			}
+		}
+
+		if (!nodes.isEmpty()) {
+
+			graphDb.prefetchRelationships(nodes, relationshipTypes.outgoing, relationshipTypes.incoming);
+		}
+	}
+
+	// ----- private methods -----
+	private RelationshipTypes getRelationshipTypes(final Iterable<PropertyKey> keys) {
+
+		final RelationshipTypes types = new RelationshipTypes();
+
+		if (keys != null) {
+
+			for (final PropertyKey key : keys) {
+
+				if (key instanceof RelationProperty) {
+
+					final RelationProperty property = (RelationProperty)key;
+					final Relation relation         = property.getRelation();
+
+					if (relation != null) {
+
+						// start node properties traverse their relationship in the incoming direction
+						if ("in".equals(property.getDirectionKey())) {
+
+							types.incoming.add(relation);
+
+						} else {
+
+							types.outgoing.add(relation);
+						}
+					}
+				}
+			}
+		}
+
+		return types;
+	}
+
+	// ----- nested classes -----
+	private static class RelationshipTypes {
+
+		private final Set<RelationshipType> outgoing = new LinkedHashSet<>();
+		private final Set<RelationshipType> incoming = new LinkedHashSet<>();
+
+		public void addAll(final RelationshipTypes other) {
+
+			outgoing.addAll(other.outgoing);
+			incoming.addAll(other.incoming);
+		}
+
+		public boolean isEmpty() {
+			return outgoing.isEmpty() && incoming.isEmpty();
+		}
+	}
+}
@@ -23,6 +23,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.structr.api.search.EmptyQuery;
 import org.structr.api.search.Occurrence;
 import org.structr.core.GraphObject;
+import org.structr.core.property.AbstractPrimitiveProperty;
 import org.structr.core.property.PropertyKey;
 
 /**
@@ -45,6 +46,21 @@ public class EmptySearchAttribute<T> extends PropertySearchAttribute<T> {
 		return EmptyQuery.class;
 	}
 
+	/**
+	 * Indicates whether the database query returns exactly the entities
+	 * that match this attribute, which is the case for stored properties
+	 * without a default value. Other keys (e.g. related nodes) must be
+	 * checked with includeInResult.
+	 *
+	 * @return whether this attribute is resolved in the database query
+	 */
+	public boolean isResolvedInQuery() {
+
+		final PropertyKey<T> key = getKey();
+
+		return getValue() == null && key instanceof AbstractPrimitiveProperty && key.isIndexed() && !key.isPassivelyIndexed() && key.relatedType() == null && key.defaultValue() == null;
+	}
+
 	@Override
 	public boolean includeInResult(GraphObject entity) {
 
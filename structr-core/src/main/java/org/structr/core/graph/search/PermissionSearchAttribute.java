@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.core.graph.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.structr.api.search.Occurrence;
+import org.structr.api.search.PermissionQuery;
+import org.structr.common.Permission;
+import org.structr.core.GraphObject;
+import org.structr.core.entity.Security;
+
+/**
+ * Restricts a node search to the nodes that the given principals are
+ * allowed to read, so that the database can do the filtering and paging.
+ * The permissions of the result are still checked when the nodes are
+ * instantiated, this attribute never excludes anything in memory.
+ */
+public class PermissionSearchAttribute<T> extends SearchAttribute<T> implements PermissionQuery {
+
+	private static final List<String> visibilityKeys = Arrays.asList(GraphObject.visibleToPublicUsers.dbName(), GraphObject.visibleToAuthenticatedUsers.dbName());
+
+	private Set<Long> principalIds = null;
+
+	public PermissionSearchAttribute(final Set<Long> principalIds) {
+
+		super(Occurrence.REQUIRED);
+
+		this.principalIds = principalIds;
+	}
+
+	@Override
+	public String toString() {
+		return "PermissionSearchAttribute(" + principalIds + ")";
+	}
+
+	@Override
+	public Class getQueryType() {
+		return PermissionQuery.class;
+	}
+
+	@Override
+	public boolean isExactMatch() {
+		return true;
+	}
+
+	@Override
+	public String getName() {
+		return null;
+	}
+
+	@Override
+	public boolean includeInResult(final GraphObject entity) {
+		return true;
+	}
+
+	// ----- interface PermissionQuery -----
+	@Override
+	public Set<Long> getPrincipalIds() {
+		return principalIds;
+	}
+
+	@Override
+	public List<String> getVisibilityKeys() {
+		return visibilityKeys;
+	}
+
+	@Override
+	public String getOwnershipType() {
+		return "OWNS";
+	}
+
+	@Override
+	public String getSecurityType() {
+		return "SECURITY";
+	}
+
+	@Override
+	public String getPermissionKey() {
+		return Security.allowed.dbName();
+	}
+
+	@Override
+	public String getPermission() {
+		return Permission.read.name();
+	}
+}
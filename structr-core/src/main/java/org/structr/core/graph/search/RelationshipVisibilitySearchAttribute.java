@@ -18,11 +18,16 @@
  */
 package org.structr.core.graph.search;
 
+import org.structr.api.search.Occurrence;
 import org.structr.api.search.RelationshipQuery;
 import org.structr.core.GraphObject;
 import org.structr.core.entity.AbstractRelationship;
 
-public class RelationshipVisibilitySearchAttribute<T> extends SearchAttribute<T> {
+public class RelationshipVisibilitySearchAttribute<T> extends SearchAttribute<T> implements RelationshipQuery {
+
+	public RelationshipVisibilitySearchAttribute() {
+		super(Occurrence.REQUIRED);
+	}
 
 	@Override
 	public boolean includeInResult(GraphObject entity) {
@@ -39,4 +44,11 @@ public class RelationshipVisibilitySearchAttribute<T> extends SearchAttribute<T>
 		return true;
 	}
 
+	@Override
+	public String getNodeVisibilityKey() {
+
+		// anonymous users can only see nodes that are visible to public users
+		return GraphObject.visibleToPublicUsers.dbName();
+	}
+
 }
@@ -24,9 +24,12 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.api.Predicate;
@@ -37,6 +40,7 @@ import org.structr.api.search.Occurrence;
 import org.structr.api.search.QueryContext;
 import org.structr.common.GraphObjectComparator;
 import org.structr.common.PagingHelper;
+import org.structr.common.Permission;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
 import org.structr.common.geo.GeoCodingResult;
@@ -46,6 +50,8 @@ import org.structr.core.Result;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.entity.AbstractRelationship;
+import org.structr.core.entity.Principal;
+import org.structr.core.entity.SchemaRelationshipNode;
 import org.structr.core.graph.Factory;
 import org.structr.core.graph.NodeInterface;
 import org.structr.core.graph.NodeServiceCommand;
@@ -68,6 +74,7 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 
 	private static final Map<String, Set<String>> subtypeMapForType = new LinkedHashMap<>();
 	private static final Set<String> baseTypes                      = new LinkedHashSet<>();
+	private static final Map<Class, Boolean> isGrantedOverrides     = new ConcurrentHashMap<>();
 
 	public static final String LAT_LON_SEARCH_KEYWORD     = "latlon";
 	public static final String LOCATION_SEARCH_KEYWORD    = "location";
@@ -95,6 +102,7 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 	private boolean includeDeletedAndHidden      = true;
 	private boolean sortDescending               = false;
 	private boolean doNotSort                    = false;
+	private boolean streamResult                 = false;
 	private Class type                           = null;
 	private int pageSize                         = Integer.MAX_VALUE;
 	private int page                             = 1;
@@ -111,9 +119,11 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 			return Result.EMPTY_RESULT;
 		}
 
-		final Factory<S, T> factory  = getFactory(securityContext, includeDeletedAndHidden, publicOnly, pageSize, page);
-		boolean hasGraphSources      = false;
-		boolean hasSpatialSource     = false;
+		// with keyset paging, the result always starts at the cursor position
+		final int actualPage               = queryContext.isKeysetPaging() ? 1 : page;
+		final Factory<S, T> factory        = getFactory(securityContext, includeDeletedAndHidden, publicOnly, pageSize, actualPage);
+		boolean hasGraphSources            = false;
+		boolean hasSpatialSource           = false;
 
 		if (securityContext.getUser(false) == null && !isRelationshipSearch()) {
 
@@ -135,7 +145,6 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 		// At this point, all search attributes are ready
 		final List<SourceSearchAttribute> sources    = new ArrayList<>();
 		boolean hasEmptySearchFields                 = false;
-		boolean hasRelationshipVisibilitySearch      = false;
 		Result intermediateResult                    = null;
 
 		// check for optional-only queries
@@ -161,7 +170,7 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 
 					}
 
-					if (item instanceof EmptySearchAttribute) {
+					if (item instanceof EmptySearchAttribute && !((EmptySearchAttribute)item).isResolvedInQuery()) {
 						hasEmptySearchFields = true;
 					}
 				}
@@ -191,13 +200,9 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 				hasGraphSources = true;
 			}
 
-			if (attr instanceof EmptySearchAttribute) {
+			if (attr instanceof EmptySearchAttribute && !((EmptySearchAttribute)attr).isResolvedInQuery()) {
 				hasEmptySearchFields = true;
 			}
-
-			if (attr instanceof RelationshipVisibilitySearchAttribute) {
-				hasRelationshipVisibilitySearch = true;
-			}
 		}
 
 		// only do "normal" query if no other sources are present
@@ -223,22 +228,42 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 					factory.disablePaging();
 				}
 
+				// let the database do the paging if the query result is exactly the readable result
+				if (!isRelationshipSearch() && !hasEmptySearchFields && !hasSpatialSource && comparator == null && actualPage > 0 && pageSize < Integer.MAX_VALUE && !getQueryContext().isSliced() && addPermissionSearchAttributes()) {
+
+					final int offset               = (actualPage - 1) * pageSize;
+					final QueryContext pageContext = new QueryContext(getQueryContext()).slice(offset, offset + pageSize);
+
+					if (streamResult) {
+
+						// count first, the page is read while the result is written
+						final Integer overallCount = securityContext.ignoreResultCount() ? null : (int)index.count(pageContext, rootGroup);
+
+						return Result.stream(factory.instantiateLazily(index.query(pageContext, rootGroup)), overallCount);
+					}
+
+					final List<T> nodes            = factory.instantiatePage(index.query(pageContext, rootGroup));
+					final int overallCount         = securityContext.ignoreResultCount() ? offset + nodes.size() : (int)index.count(pageContext, rootGroup);
+
+					return new Result(nodes, overallCount, true, false);
+				}
+
 				// do query
 				final QueryResult hits = index.query(getQueryContext(), rootGroup);
 				intermediateResult     = factory.instantiate(hits);
 
 				if (comparator != null) {
 
-					final List<T> rawResult = intermediateResult.getResults();
+					assertSortedInQuery();
 
-					Collections.sort(rawResult, comparator);
+					final List<T> rawResult = intermediateResult.getResults();
 
-					return new Result(PagingHelper.subList(rawResult, pageSize, page), rawResult.size(), true, false);
+					return new Result(PagingHelper.sortedSubList(rawResult, comparator, pageSize, actualPage), rawResult.size(), true, false);
 				}
 			}
 		}
 
-		if (intermediateResult != null && (hasEmptySearchFields || hasGraphSources || hasSpatialSource || hasRelationshipVisibilitySearch)) {
+		if (intermediateResult != null && (hasEmptySearchFields || hasGraphSources || hasSpatialSource)) {
 
 			// sorted result set
 			final Set<GraphObject> intermediateResultSet = new LinkedHashSet<>(intermediateResult.getResults());
@@ -284,11 +309,17 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 				}
 			}
 
-			// sort list
-			Collections.sort(finalResult, new GraphObjectComparator(sortKey, sortDescending));
+			// the query result is already sorted by the database unless it was merged with other sources
+			if (sortKey != null && (doNotSort || hasGraphSources || hasSpatialSource)) {
+
+				assertSortedInQuery();
+
+				// return sorted page of final result
+				return new Result(PagingHelper.sortedSubList(finalResult, new GraphObjectComparator(sortKey, sortDescending), pageSize, actualPage), resultCount, true, false);
+			}
 
 			// return paged final result
-			return new Result(PagingHelper.subList(finalResult, pageSize, page), resultCount, true, false);
+			return new Result(PagingHelper.subList(finalResult, pageSize, actualPage), resultCount, true, false);
 
 		} else {
 
@@ -432,6 +463,12 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 		return this;
 	}
 
+	@Override
+	public org.structr.core.app.Query<T> streamResult(final boolean streamResult) {
+		this.streamResult = streamResult;
+		return this;
+	}
+
 	@Override
 	public org.structr.core.app.Query<T> publicOnly() {
 		this.publicOnly = true;
@@ -738,6 +775,7 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 	// ----- static methods -----
 	public static synchronized void clearInheritanceMap() {
 		subtypeMapForType.clear();
+		isGrantedOverrides.clear();
 	}
 
 	public static synchronized Set<String> getAllSubtypesAsStringSet(final String type) {
@@ -847,6 +885,123 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 	}
 
 	// ----- private methods ----
+	/**
+	 * Adds the search attributes that resolve the read permissions of the
+	 * current user in the database query. Returns false if that is not
+	 * possible, e.g. because of permission-propagating relationships,
+	 * custom permission queries or types that override isGranted, in which
+	 * case the permissions are only checked in memory when the result is
+	 * instantiated.
+	 *
+	 * @return whether the database query result contains only readable nodes
+	 */
+	private boolean addPermissionSearchAttributes() {
+
+		final Principal user = securityContext.getUser(false);
+		if (user == null) {
+
+			// anonymous users can only see public nodes, which is already part of the query
+			return true;
+		}
+
+		if (securityContext.isSuperUser()) {
+
+			if (publicOnly) {
+				rootGroup.add(new PropertySearchAttribute(GraphObject.visibleToPublicUsers, true, Occurrence.REQUIRED, true));
+			}
+
+			return true;
+		}
+
+		// permission propagation can only be resolved in memory
+		if (!SchemaRelationshipNode.getPropagatingRelationshipTypes().isEmpty()) {
+			return false;
+		}
+
+		// custom permission resolution can only be done in memory
+		if (hasCustomPermissionResolution()) {
+			return false;
+		}
+
+		final PropertyKey<String> customQueryKey = StructrApp.key(Principal.class, "customPermissionQueryRead");
+		final Set<Long> principalIds             = new LinkedHashSet<>();
+		final List<Principal> principals        = new LinkedList<>();
+
+		principals.add(user);
+
+		// collect the user and all its groups
+		while (!principals.isEmpty()) {
+
+			final Principal principal = principals.remove(0);
+
+			if (principalIds.add(principal.getId())) {
+
+				if (principal.isAdmin() || StringUtils.isNotEmpty(principal.getProperty(customQueryKey))) {
+					return false;
+				}
+
+				principals.addAll(principal.getParents());
+			}
+		}
+
+		if (publicOnly) {
+			rootGroup.add(new PropertySearchAttribute(GraphObject.visibleToPublicUsers, true, Occurrence.REQUIRED, true));
+		}
+
+		rootGroup.add(new PermissionSearchAttribute(principalIds));
+
+		return true;
+	}
+
+	private boolean hasCustomPermissionResolution() {
+
+		// all types can be part of the result
+		if (type == null) {
+			return true;
+		}
+
+		final ConfigurationProvider config = StructrApp.getConfiguration();
+
+		for (final String subtype : getAllSubtypesAsStringSet(type.getSimpleName())) {
+
+			if (overridesIsGranted(config.getNodeEntityClass(subtype))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean overridesIsGranted(final Class type) {
+
+		if (type == null) {
+			return false;
+		}
+
+		return isGrantedOverrides.computeIfAbsent(type, t -> {
+
+			for (Class localType = t; localType != null && !AbstractNode.class.equals(localType); localType = localType.getSuperclass()) {
+
+				try {
+
+					localType.getDeclaredMethod("isGranted", Permission.class, SecurityContext.class);
+					return true;
+
+				} catch (NoSuchMethodException ignore) {}
+			}
+
+			return false;
+		});
+	}
+
+	private void assertSortedInQuery() throws FrameworkException {
+
+		// the cursor condition is evaluated by the database, it doesn't match a result that is sorted in memory
+		if (queryContext.isKeysetPaging()) {
+			throw new FrameworkException(400, "Keyset paging is not supported for results that are sorted in memory");
+		}
+	}
+
 	private void assertPropertyIsIndexed(final PropertyKey key) {
 
 		if (key != null && !key.isIndexed() && key instanceof AbstractPrimitiveProperty) {
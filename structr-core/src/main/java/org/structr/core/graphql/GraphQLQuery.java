@@ -21,17 +21,23 @@ package org.structr.core.graphql;
 import graphql.language.Field;
 import graphql.language.Selection;
 import graphql.language.SelectionSet;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.structr.api.Predicate;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
 import org.structr.core.app.Query;
 import org.structr.core.app.StructrApp;
+import org.structr.core.graph.PrefetchRelationshipsCommand;
 import org.structr.core.property.PropertyKey;
+import org.structr.core.property.RelationProperty;
 
 /**
  */
@@ -86,7 +92,98 @@ public class GraphQLQuery {
 		return query.getAsList();
 	}
 
+	/**
+	 * Loads the relationships of all selected relationship fields level by
+	 * level, with a single query for all objects of a level, so that the
+	 * nested selections of the given root objects can be resolved without
+	 * separate queries for each object.
+	 *
+	 * @param securityContext
+	 * @param objects the root objects of this query
+	 */
+	public void prefetch(final SecurityContext securityContext, final Iterable<GraphObject> objects) {
+
+		final List<GraphObject> list = new ArrayList<>();
+
+		for (final GraphObject obj : objects) {
+			list.add(obj);
+		}
+
+		prefetch(securityContext, list, getRootPath());
+	}
+
 	// ----- private methods -----
+	private void prefetch(final SecurityContext securityContext, final List<GraphObject> objects, final String path) {
+
+		final QueryConfig config             = configurations.get(path);
+		final List<PropertyKey> relationKeys = new ArrayList<>();
+
+		if (config == null || objects.isEmpty()) {
+			return;
+		}
+
+		for (final PropertyKey key : config.getPropertyKeys()) {
+
+			if (key instanceof RelationProperty) {
+				relationKeys.add(key);
+			}
+		}
+
+		if (relationKeys.isEmpty()) {
+			return;
+		}
+
+		StructrApp.getInstance(securityContext).command(PrefetchRelationshipsCommand.class).execute(objects, relationKeys);
+
+		for (final PropertyKey key : relationKeys) {
+
+			final String childPath          = path + "/" + key.jsonName();
+			final QueryConfig childConfig   = configurations.get(childPath);
+			final Set<GraphObject> children = new LinkedHashSet<>();
+
+			if (childConfig == null) {
+				continue;
+			}
+
+			final Predicate predicate = childConfig.getPredicateForPropertyKey(key);
+
+			for (final GraphObject obj : objects) {
+
+				final Object value = obj.getProperty(key, predicate);
+				if (value instanceof GraphObject) {
+
+					children.add((GraphObject)value);
+
+				} else if (value instanceof Iterable) {
+
+					// collect the same page of objects that will be serialized
+					final int pageSize = childConfig.getPageSize();
+					final int start    = (childConfig.getPage() - 1) * pageSize;
+					int count          = 0;
+					int pos            = 0;
+
+					for (final Object o : (Iterable)value) {
+
+						if (predicate == null || predicate.accept(o)) {
+
+							if (pos++ >= start && o instanceof GraphObject) {
+
+								children.add((GraphObject)o);
+								count++;
+							}
+
+							if (count >= pageSize) {
+								break;
+							}
+						}
+					}
+				}
+			}
+
+			prefetch(securityContext, new ArrayList<>(children), childPath);
+		}
+	}
+
 	private void init(final SecurityContext securityContext, final Class type, final Field field, final String path) throws FrameworkException {
 
 		final QueryConfig config = getConfig(path);
@@ -19,11 +19,9 @@
 package org.structr.core.script;
 
 import java.io.StringWriter;
-import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.script.Bindings;
@@ -31,16 +29,17 @@ import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
-import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang3.StringUtils;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.Undefined;
 import org.renjin.script.RenjinScriptEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.util.FixedSizeCache;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
 import org.structr.common.error.UnlicensedException;
@@ -57,9 +56,12 @@ import org.structr.schema.parser.DatePropertyParser;
  */
 public class Scripting {
 
-	private static final Logger logger                       = LoggerFactory.getLogger(Scripting.class.getName());
-	private static final Pattern ScriptEngineExpression      = Pattern.compile("^\\$\\{(\\w+)\\{(.*)\\}\\}$", Pattern.DOTALL);
-	private static final Map<String, Script> compiledScripts = Collections.synchronizedMap(new LRUMap<>(10000));
+	private static final Logger logger                                  = LoggerFactory.getLogger(Scripting.class.getName());
+	private static final Pattern ScriptEngineExpression                 = Pattern.compile("^\\$\\{(\\w+)\\{(.*)\\}\\}$", Pattern.DOTALL);
+	private static final FixedSizeCache<String, Script> compiledScripts = new FixedSizeCache<>(10000);
+	private static final ContextFactory contextFactory                  = new ContextFactory();
+	private static final ThreadLocal<Context> contexts                  = new ThreadLocal<>();
+	private static volatile ScriptableObject sharedScope                = null;
 
 	public static String replaceVariables(final ActionContext actionContext, final GraphObject entity, final Object rawValue) throws FrameworkException {
 
@@ -221,7 +223,13 @@ public class Scripting {
 			scriptingContext.setGenerateObserverCount(false);
 			scriptingContext.setGeneratingDebug(true);
 
-			final Scriptable scope = scriptingContext.initStandardObjects();
+			// per-call scope that inherits the standard objects from the shared scope
+			final ScriptableObject standardObjects = getSharedScope(scriptingContext);
+			final Scriptable scope                 = scriptingContext.newObject(standardObjects);
+
+			scope.setPrototype(standardObjects);
+			scope.setParentScope(null);
+
 			final StructrScriptable scriptable = new StructrScriptable(actionContext, entity, scriptingContext);
 
 			scriptable.setParentScope(scope);
@@ -323,7 +331,10 @@ public class Scripting {
 
 	public static Context setupJavascriptContext() {
 
-		final Context scriptingContext = new ContextFactory().enterContext();
+		// re-use the context of the current thread
+		final Context scriptingContext = contextFactory.enterContext(contexts.get());
+
+		contexts.set(scriptingContext);
 
 		// enable some optimizations..
 		scriptingContext.setLanguageVersion(Context.VERSION_1_2);
@@ -338,6 +349,14 @@ public class Scripting {
 		Context.exit();
 	}
 
+	/**
+	 * Discards the shared standard objects scope, it will be
+	 * re-created on the next evaluation.
+	 */
+	public static void clearSharedScope() {
+		sharedScope = null;
+	}
+
 	private static String embedInFunction(final ActionContext actionContext, final String source) {
 
 		final StringBuilder buf = new StringBuilder();
@@ -352,17 +371,34 @@ public class Scripting {
 
 	public static Script compileOrGetCached(final Context context, final String source, final String sourceName, final int lineNo) {
 
-		synchronized (compiledScripts) {
+		final Script script = compiledScripts.get(source);
+		if (script != null) {
 
-			Script script = compiledScripts.get(source);
-			if (script == null) {
+			return script;
+		}
 
-				script = context.compileString(source, sourceName, lineNo, null);
-				compiledScripts.put(source, script);
-			}
+		// compile outside of any lock, concurrent compilations of the same source are harmless
+		return compiledScripts.putIfAbsent(source, context.compileString(source, sourceName, lineNo, null));
+	}
 
-			return script;
+	private static ScriptableObject getSharedScope(final Context context) {
+
+		ScriptableObject scope = sharedScope;
+		if (scope == null) {
+
+			synchronized (Scripting.class) {
+
+				scope = sharedScope;
+				if (scope == null) {
+
+					// standard objects are sealed so that scripts cannot modify them for other callers
+					scope       = context.initStandardObjects(null, true);
+					sharedScope = scope;
+				}
+			}
 		}
+
+		return scope;
 	}
 
 	// this is only public to be testable :(
@@ -41,6 +41,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -82,16 +83,8 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	private static final Set<String> coreModules                                                   = new HashSet<>(Arrays.asList("core", "rest", "ui"));
 
-	private final Map<String, Class<? extends RelationshipInterface>> relationshipEntityClassCache = new ConcurrentHashMap<>(1000);
-	private final Map<String, Class<? extends NodeInterface>> nodeEntityClassCache                 = new ConcurrentHashMap(1000);
 	private final Map<String, Class<? extends Agent>> agentClassCache                              = new ConcurrentHashMap<>(100);
-
 	private final Set<String> agentPackages                                                        = new LinkedHashSet<>();
- 	private final Set<String> nodeEntityPackages                                                   = new LinkedHashSet<>();
- 	private final Set<String> relationshipPackages                                                 = new LinkedHashSet<>();
-
-	private final Map<String, Class> combinedTypeRelationClassCache                                = new ConcurrentHashMap<>(100);
-	private final Map<String, Set<Class>> interfaceCache                                           = new ConcurrentHashMap<>(2000);
 	private final Map<String, StructrModule> modules                                               = new ConcurrentHashMap<>(100);
 
 	private final String fileSep                                                                   = System.getProperty("file.separator");
@@ -100,20 +93,8 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 	private final String testClassesDir                                                            = fileSep.concat("test-classes");
 	private final String classesDir                                                                = fileSep.concat("classes");
 
-	private final Map<String, Map<String, Set<PropertyKey>>> globalPropertyViewMap                 = new ConcurrentHashMap<>(2000);
-	private final Map<String, Map<PropertyKey, Set<PropertyValidator>>> globalValidatorMap         = new ConcurrentHashMap<>(100);
-	private final Map<String, Map<String, PropertyKey>> globalClassDBNamePropertyMap               = new ConcurrentHashMap<>(2000);
-	private final Map<String, Map<String, PropertyKey>> globalClassJSNamePropertyMap               = new ConcurrentHashMap<>(2000);
-	private final Map<String, Map<String, PropertyGroup>> globalAggregatedPropertyGroupMap         = new ConcurrentHashMap<>(100);
-	private final Map<String, Map<String, PropertyGroup>> globalPropertyGroupMap                   = new ConcurrentHashMap<>(100);
-	private final Map<String, Map<String, ViewTransformation>> viewTransformations                 = new ConcurrentHashMap<>(100);
-	private final Map<String, Set<Transformation<GraphObject>>> globalTransformationMap            = new ConcurrentHashMap<>(100);
-	private final Map<String, Map<String, Method>> exportedMethodMap                               = new ConcurrentHashMap<>(100);
-	private final Map<Class, Set<Class>> interfaceMap                                              = new ConcurrentHashMap<>(2000);
-	private final Map<String, Class> reverseInterfaceMap                                           = new ConcurrentHashMap<>(5000);
-
-	private final Set<PropertyKey> globalKnownPropertyKeys                                         = new LinkedHashSet<>();
-	private final Set<String> dynamicViews                                                         = new LinkedHashSet<>();
+	private volatile Schema schema                                                                 = new Schema();
+	private volatile Schema update                                                                 = null;
 
 	private FactoryDefinition factoryDefinition                                                    = new DefaultFactoryDefinition();
 	private LicenseManager licenseManager                                                          = null;
@@ -138,26 +119,17 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	@Override
 	public Map<String, Class<? extends NodeInterface>> getNodeEntities() {
-
-		synchronized (SchemaService.class) {
-			return nodeEntityClassCache;
-		}
+		return getSchema().nodeEntityClassCache;
 	}
 
 	@Override
 	public Map<String, Class<? extends RelationshipInterface>> getRelationshipEntities() {
-
-		synchronized (SchemaService.class) {
-			return relationshipEntityClassCache;
-		}
+		return getSchema().relationshipEntityClassCache;
 	}
 
 	@Override
 	public Set<Class> getClassesForInterface(final String simpleName) {
-
-		synchronized (SchemaService.class) {
-			return interfaceCache.get(simpleName);
-		}
+		return getSchema().interfaceCache.get(simpleName);
 	}
 
 	@Override
@@ -167,32 +139,31 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 		if ((simpleName != null) && (!simpleName.isEmpty())) {
 
-			synchronized (SchemaService.class) {
+			final Schema current = getSchema();
 
-				nodeEntityClass = nodeEntityClassCache.get(simpleName);
+			nodeEntityClass = current.nodeEntityClassCache.get(simpleName);
 
-				if (nodeEntityClass == null) {
+			if (nodeEntityClass == null) {
 
-					for (String possiblePath : nodeEntityPackages) {
+				for (String possiblePath : current.nodeEntityPackages) {
 
-						if (possiblePath != null) {
+					if (possiblePath != null) {
 
-							try {
+						try {
 
-								Class nodeClass = Class.forName(possiblePath + "." + simpleName);
+							Class nodeClass = Class.forName(possiblePath + "." + simpleName);
 
-								if (!Modifier.isAbstract(nodeClass.getModifiers())) {
+							if (!Modifier.isAbstract(nodeClass.getModifiers())) {
 
-									nodeEntityClassCache.put(simpleName, nodeClass);
-									nodeEntityClass = nodeClass;
+								current.nodeEntityClassCache.put(simpleName, nodeClass);
+								nodeEntityClass = nodeClass;
 
-									// first match wins
-									break;
+								// first match wins
+								break;
 
-								}
+							}
 
-							} catch (ClassNotFoundException ex) {}
-						}
+						} catch (ClassNotFoundException ex) {}
 					}
 				}
 			}
@@ -209,33 +180,32 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 		if ((name != null) && (name.length() > 0)) {
 
-			synchronized (SchemaService.class) {
+			final Schema current = getSchema();
 
-				relationClass = relationshipEntityClassCache.get(name);
+			relationClass = current.relationshipEntityClassCache.get(name);
 
-				if (relationClass == null) {
+			if (relationClass == null) {
 
-					for (String possiblePath : relationshipPackages) {
+				for (String possiblePath : current.relationshipPackages) {
 
-						if (possiblePath != null) {
+					if (possiblePath != null) {
 
-							try {
+						try {
 
-								Class nodeClass = Class.forName(possiblePath + "." + name);
+							Class nodeClass = Class.forName(possiblePath + "." + name);
 
-								if (!Modifier.isAbstract(nodeClass.getModifiers())) {
+							if (!Modifier.isAbstract(nodeClass.getModifiers())) {
 
-									relationshipEntityClassCache.put(name, nodeClass);
+								current.relationshipEntityClassCache.put(name, nodeClass);
 
-									// first match wins
-									return nodeClass;
+								// first match wins
+								return nodeClass;
 
-								}
+							}
 
-							} catch (ClassNotFoundException ex) {
+						} catch (ClassNotFoundException ex) {
 
-								// ignore
-							}
+							// ignore
 						}
 					}
 				}
@@ -288,22 +258,22 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	@Override
 	public Map<String, Class> getInterfaces() {
-		return reverseInterfaceMap;
+		return getSchema().reverseInterfaceMap;
 	}
 
 	@Override
 	public void setRelationClassForCombinedType(final String combinedType, final Class clazz) {
-		combinedTypeRelationClassCache.put(combinedType, clazz);
+		getSchema().combinedTypeRelationClassCache.put(combinedType, clazz);
 	}
 
 	@Override
 	public void setRelationClassForCombinedType(final String sourceType, final String relType, final String targetType, final Class clazz) {
-		combinedTypeRelationClassCache.put(getCombinedType(sourceType, relType, targetType), clazz);
+		getSchema().combinedTypeRelationClassCache.put(getCombinedType(sourceType, relType, targetType), clazz);
 	}
 
 	private Class getRelationClassForCombinedType(final String combinedType) {
 
-		Class cachedRelationClass = combinedTypeRelationClassCache.get(combinedType);
+		Class cachedRelationClass = getSchema().combinedTypeRelationClassCache.get(combinedType);
 
 		if (cachedRelationClass != null) {
 			return cachedRelationClass;
@@ -403,7 +373,7 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 			final Entry<Integer, Class> candidateEntry = candidates.entrySet().iterator().next();
 			final Class c = candidateEntry.getValue();
 
-			combinedTypeRelationClassCache.put(getCombinedType(sourceTypeName, relType, targetTypeName), c);
+			getSchema().combinedTypeRelationClassCache.put(getCombinedType(sourceTypeName, relType, targetTypeName), c);
 
 			return c;
 		}
@@ -496,24 +466,25 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 			final String simpleName = oldType.getSimpleName();
 			final String fqcn       = oldType.getName();
+			final Schema current    = getSchema();
 
-			nodeEntityClassCache.remove(simpleName);
-			relationshipEntityClassCache.remove(simpleName);
+			current.nodeEntityClassCache.remove(simpleName);
+			current.relationshipEntityClassCache.remove(simpleName);
 
-			nodeEntityPackages.remove(fqcn);
-			relationshipPackages.remove(fqcn);
+			current.nodeEntityPackages.remove(fqcn);
+			current.relationshipPackages.remove(fqcn);
 
-			globalPropertyViewMap.remove(fqcn);
-			globalClassDBNamePropertyMap.remove(fqcn);
-			globalClassJSNamePropertyMap.remove(fqcn);
+			current.globalPropertyViewMap.remove(fqcn);
+			current.globalClassDBNamePropertyMap.remove(fqcn);
+			current.globalClassJSNamePropertyMap.remove(fqcn);
 
-			interfaceMap.remove(oldType);
+			current.interfaceMap.remove(oldType);
 
 			// clear all
-			combinedTypeRelationClassCache.clear();
+			current.combinedTypeRelationClassCache.clear();
 
 			// clear interfaceCache manually..
-			for (final Set<Class> classes : interfaceCache.values()) {
+			for (final Set<Class> classes : current.interfaceCache.values()) {
 
 				if (classes.contains(oldType)) {
 					classes.remove(oldType);
@@ -529,6 +500,7 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 		// method requiring two different calls instead of one
 		final String simpleName = type.getSimpleName();
 		final String fqcn       = type.getName();
+		final Schema current    = getSchema();
 
 		// do not register types that match org.structr.*Mixin (helpers)
 		if (fqcn.startsWith("org.structr.") && simpleName.endsWith("Mixin")) {
@@ -537,34 +509,34 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 		if (AbstractNode.class.isAssignableFrom(type)) {
 
-			nodeEntityClassCache.put(simpleName, type);
-			nodeEntityPackages.add(fqcn.substring(0, fqcn.lastIndexOf(".")));
-			globalPropertyViewMap.remove(fqcn);
+			current.nodeEntityClassCache.put(simpleName, type);
+			current.nodeEntityPackages.add(fqcn.substring(0, fqcn.lastIndexOf(".")));
+			current.globalPropertyViewMap.remove(fqcn);
 		}
 
 		if (AbstractRelationship.class.isAssignableFrom(type)) {
 
-			relationshipEntityClassCache.put(simpleName, type);
-			relationshipPackages.add(fqcn.substring(0, fqcn.lastIndexOf(".")));
-			globalPropertyViewMap.remove(fqcn);
+			current.relationshipEntityClassCache.put(simpleName, type);
+			current.relationshipPackages.add(fqcn.substring(0, fqcn.lastIndexOf(".")));
+			current.globalPropertyViewMap.remove(fqcn);
 		}
 
 		// interface that extends NodeInterface, must be stored
 		if (type.isInterface() && GraphObject.class.isAssignableFrom(type)) {
 
-			reverseInterfaceMap.put(type.getSimpleName(), type);
+			current.reverseInterfaceMap.put(type.getSimpleName(), type);
 		}
 
 		for (final Class interfaceClass : type.getInterfaces()) {
 
 			final String interfaceName     = interfaceClass.getSimpleName();
-			Set<Class> classesForInterface = interfaceCache.get(interfaceName);
+			Set<Class> classesForInterface = current.interfaceCache.get(interfaceName);
 
 			if (classesForInterface == null) {
 
 				classesForInterface = new LinkedHashSet<>();
 
-				interfaceCache.put(interfaceName, classesForInterface);
+				current.interfaceCache.put(interfaceName, classesForInterface);
 			}
 
 			classesForInterface.add(type);
@@ -612,11 +584,11 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 			unregisterEntityType(type);
 		}
 
-		Map<String, Method> typeMethods = exportedMethodMap.get(fqcn);
+		Map<String, Method> typeMethods = current.exportedMethodMap.get(fqcn);
 		if (typeMethods == null) {
 
 			typeMethods = new HashMap<>();
-			exportedMethodMap.put(fqcn, typeMethods);
+			current.exportedMethodMap.put(fqcn, typeMethods);
 		}
 
 		typeMethods.putAll(getAnnotatedMethods(type, Export.class));
@@ -643,21 +615,43 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 		}
 	}
 
+	/**
+	 * Registers a relationship type that propagates permissions between
+	 * its source and target nodes. Like all other registrations, this is
+	 * only visible to other threads after the schema update is committed.
+	 *
+	 * @param type the relationship type
+	 */
+	@Override
+	public void registerPropagatingRelationshipType(final Class type) {
+		getSchema().propagatingRelationshipTypes.add(type);
+	}
+
+	@Override
+	public void clearPropagatingRelationshipTypes() {
+		getSchema().propagatingRelationshipTypes.clear();
+	}
+
+	@Override
+	public Set<Class> getPropagatingRelationshipTypes() {
+		return Collections.unmodifiableSet(getSchema().propagatingRelationshipTypes);
+	}
+
 	@Override
 	public Set<Class> getInterfacesForType(Class type) {
 
-		Set<Class> interfaces = interfaceMap.get(type);
+		Set<Class> interfaces = getSchema().interfaceMap.get(type);
 		if (interfaces == null) {
 
 			interfaces = new LinkedHashSet<>();
-			interfaceMap.put(type, interfaces);
+			getSchema().interfaceMap.put(type, interfaces);
 
 			for (Class iface : type.getInterfaces()) {
 
 				/*
 				if (GraphObject.class.isAssignableFrom(iface)) {
 
-					reverseInterfaceMap.put(iface.getSimpleName(), iface);
+					getSchema().reverseInterfaceMap.put(iface.getSimpleName(), iface);
 				}
 				*/
 
@@ -670,12 +664,12 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	@Override
 	public Map<String, Method> getExportedMethodsForType(Class type) {
-		return exportedMethodMap.get(type.getName());
+		return getSchema().exportedMethodMap.get(type.getName());
 	}
 
 	@Override
 	public boolean isKnownProperty(final PropertyKey key) {
-		return globalKnownPropertyKeys.contains(key);
+		return getSchema().globalKnownPropertyKeys.contains(key);
 	}
 
 	@Override
@@ -706,7 +700,7 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	@Override
 	public void registerConvertedProperty(PropertyKey propertyKey) {
-		globalKnownPropertyKeys.add(propertyKey);
+		getSchema().globalKnownPropertyKeys.add(propertyKey);
 	}
 
 	@Override
@@ -781,12 +775,12 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 		Set<String> views = new LinkedHashSet<>();
 
 		// add all existing views
-		for (Map<String, Set<PropertyKey>> view : globalPropertyViewMap.values()) {
+		for (Map<String, Set<PropertyKey>> view : getSchema().globalPropertyViewMap.values()) {
 			views.addAll(view.keySet());
 		}
 
 		// merge dynamic views in as well
-		views.addAll(dynamicViews);
+		views.addAll(getSchema().dynamicViews);
 
 		return Collections.unmodifiableSet(views);
 	}
@@ -805,8 +799,7 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	@Override
 	public void registerDynamicViews(final Set<String> dynamicViews) {
-		this.dynamicViews.clear();
-		this.dynamicViews.addAll(dynamicViews);
+		getSchema().dynamicViews = Collections.unmodifiableSet(new LinkedHashSet<>(dynamicViews));
 	}
 
 	@Override
@@ -982,7 +975,7 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 			registerProperty(type, propertyKey);
 
 			// scan all existing classes and find all classes that have the given type as a supertype
-			for (final Class possibleSubclass : nodeEntityClassCache.values()) {
+			for (final Class possibleSubclass : getNodeEntities().values()) {
 
 				// need to compare strings not classes here..
 				for (final Class supertype : getAllTypes(possibleSubclass)) {
@@ -1004,10 +997,66 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	@Override
 	public Map<String, Map<String, PropertyKey>> getTypeAndPropertyMapping() {
-		return Collections.unmodifiableMap(globalClassJSNamePropertyMap);
+		return Collections.unmodifiableMap(getSchema().globalClassJSNamePropertyMap);
+	}
+
+	/**
+	 * Starts a schema update in the current thread. All modifications
+	 * made by this thread are applied to a copy of the current schema,
+	 * which is only visible to this thread until it is published by
+	 * {@link #commitSchemaUpdate()}. All other threads keep using the
+	 * current schema without locking.
+	 */
+	@Override
+	public void beginSchemaUpdate() {
+		update = new Schema(schema, Thread.currentThread());
+	}
+
+	/**
+	 * Publishes the schema of the current update. Cache entries that other
+	 * threads have added to the current schema in the meantime are merged
+	 * into the new schema, except for dynamic types, which are defined by
+	 * the update alone.
+	 */
+	@Override
+	public void commitSchemaUpdate() {
+
+		final Schema newSchema = update;
+		if (newSchema != null && newSchema.owner == Thread.currentThread()) {
+
+			newSchema.merge(schema);
+
+			schema          = newSchema;
+			update          = null;
+			newSchema.owner = null;
+		}
+	}
+
+	/**
+	 * Discards the schema of the current update.
+	 */
+	@Override
+	public void rollbackSchemaUpdate() {
+
+		final Schema newSchema = update;
+		if (newSchema != null && newSchema.owner == Thread.currentThread()) {
+
+			update = null;
+		}
 	}
 
 	// ----- private methods -----
+	private Schema getSchema() {
+
+		final Schema newSchema = update;
+		if (newSchema != null && newSchema.owner == Thread.currentThread()) {
+
+			return newSchema;
+		}
+
+		return schema;
+	}
+
 	private void scanResources() {
 
 		Set<String> resourcePaths = getResourcesToScan();
@@ -1362,12 +1411,12 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	private Map<String, Set<PropertyKey>> getPropertyViewMapForType(final Class type) {
 
-		Map<String, Set<PropertyKey>> propertyViewMap = globalPropertyViewMap.get(type.getName());
+		Map<String, Set<PropertyKey>> propertyViewMap = getSchema().globalPropertyViewMap.get(type.getName());
 		if (propertyViewMap == null) {
 
 			propertyViewMap = new LinkedHashMap<>();
 
-			globalPropertyViewMap.put(type.getName(), propertyViewMap);
+			getSchema().globalPropertyViewMap.put(type.getName(), propertyViewMap);
 
 		}
 
@@ -1376,12 +1425,12 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	private Map<String, PropertyKey> getClassDBNamePropertyMapForType(final Class type) {
 
-		Map<String, PropertyKey> classDBNamePropertyMap = globalClassDBNamePropertyMap.get(type.getName());
+		Map<String, PropertyKey> classDBNamePropertyMap = getSchema().globalClassDBNamePropertyMap.get(type.getName());
 		if (classDBNamePropertyMap == null) {
 
 			classDBNamePropertyMap = new LinkedHashMap<>();
 
-			globalClassDBNamePropertyMap.put(type.getName(), classDBNamePropertyMap);
+			getSchema().globalClassDBNamePropertyMap.put(type.getName(), classDBNamePropertyMap);
 
 		}
 
@@ -1390,12 +1439,12 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	private Map<String, PropertyKey> getClassJSNamePropertyMapForType(final Class type) {
 
-		Map<String, PropertyKey> classJSNamePropertyMap = globalClassJSNamePropertyMap.get(type.getName());
+		Map<String, PropertyKey> classJSNamePropertyMap = getSchema().globalClassJSNamePropertyMap.get(type.getName());
 		if (classJSNamePropertyMap == null) {
 
 			classJSNamePropertyMap = new LinkedHashMap<>();
 
-			globalClassJSNamePropertyMap.put(type.getName(), classJSNamePropertyMap);
+			getSchema().globalClassJSNamePropertyMap.put(type.getName(), classJSNamePropertyMap);
 
 		}
 
@@ -1404,12 +1453,12 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	private Map<PropertyKey, Set<PropertyValidator>> getPropertyValidatorMapForType(final Class type) {
 
-		Map<PropertyKey, Set<PropertyValidator>> validatorMap = globalValidatorMap.get(type.getName());
+		Map<PropertyKey, Set<PropertyValidator>> validatorMap = getSchema().globalValidatorMap.get(type.getName());
 		if (validatorMap == null) {
 
 			validatorMap = new LinkedHashMap<>();
 
-			globalValidatorMap.put(type.getName(), validatorMap);
+			getSchema().globalValidatorMap.put(type.getName(), validatorMap);
 
 		}
 
@@ -1418,12 +1467,12 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	private Map<String, PropertyGroup> getAggregatedPropertyGroupMapForType(final Class type) {
 
-		Map<String, PropertyGroup> groupMap = globalAggregatedPropertyGroupMap.get(type.getName());
+		Map<String, PropertyGroup> groupMap = getSchema().globalAggregatedPropertyGroupMap.get(type.getName());
 		if (groupMap == null) {
 
 			groupMap = new LinkedHashMap<>();
 
-			globalAggregatedPropertyGroupMap.put(type.getName(), groupMap);
+			getSchema().globalAggregatedPropertyGroupMap.put(type.getName(), groupMap);
 
 		}
 
@@ -1432,12 +1481,12 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	private Map<String, PropertyGroup> getPropertyGroupMapForType(final Class type) {
 
-		Map<String, PropertyGroup> groupMap = globalPropertyGroupMap.get(type.getName());
+		Map<String, PropertyGroup> groupMap = getSchema().globalPropertyGroupMap.get(type.getName());
 		if (groupMap == null) {
 
 			groupMap = new LinkedHashMap<>();
 
-			globalPropertyGroupMap.put(type.getName(), groupMap);
+			getSchema().globalPropertyGroupMap.put(type.getName(), groupMap);
 
 		}
 
@@ -1448,12 +1497,12 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 		final String name = type.getName();
 
-		Set<Transformation<GraphObject>> transformations = globalTransformationMap.get(name);
+		Set<Transformation<GraphObject>> transformations = getSchema().globalTransformationMap.get(name);
 		if (transformations == null) {
 
 			transformations = new LinkedHashSet<>();
 
-			globalTransformationMap.put(name, transformations);
+			getSchema().globalTransformationMap.put(name, transformations);
 		}
 
 		return transformations;
@@ -1461,11 +1510,11 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 
 	private Map<String, ViewTransformation> getViewTransformationMapForType(final Class type) {
 
-		Map<String, ViewTransformation> viewTransformationMap = viewTransformations.get(type.getName());
+		Map<String, ViewTransformation> viewTransformationMap = getSchema().viewTransformations.get(type.getName());
 		if (viewTransformationMap == null) {
 
 			viewTransformationMap = new LinkedHashMap<>();
-			viewTransformations.put(type.getName(), viewTransformationMap);
+			getSchema().viewTransformations.put(type.getName(), viewTransformationMap);
 		}
 
 		return viewTransformationMap;
@@ -1488,25 +1537,246 @@ public class JarConfigurationProvider implements ConfigurationProvider {
 	public void printCacheStats() {
 
 		System.out.println("###################################################");
- 		System.out.println("" + relationshipEntityClassCache.size());
- 		System.out.println("" + nodeEntityClassCache.size());
- 		System.out.println("" + nodeEntityPackages.size());
- 		System.out.println("" + relationshipPackages.size());
-		System.out.println("" + combinedTypeRelationClassCache.size());
- 		System.out.println("" + interfaceCache.size());
- 		System.out.println("" + globalPropertyViewMap.size());
-		System.out.println("" + globalValidatorMap.size());
- 		System.out.println("" + globalClassDBNamePropertyMap.size());
- 		System.out.println("" + globalClassJSNamePropertyMap.size());
-		System.out.println("" + globalAggregatedPropertyGroupMap.size());
-		System.out.println("" + globalPropertyGroupMap.size());
-		System.out.println("" + viewTransformations.size());
-		System.out.println("" + globalTransformationMap.size());
-		System.out.println("" + exportedMethodMap.size());
-		System.out.println("" + interfaceMap.size());
-	 	System.out.println("" + reverseInterfaceMap.size());
-		System.out.println("" + globalKnownPropertyKeys.size());
-		System.out.println("" + dynamicViews.size());
+ 		System.out.println("" + getSchema().relationshipEntityClassCache.size());
+ 		System.out.println("" + getSchema().nodeEntityClassCache.size());
+ 		System.out.println("" + getSchema().nodeEntityPackages.size());
+ 		System.out.println("" + getSchema().relationshipPackages.size());
+		System.out.println("" + getSchema().combinedTypeRelationClassCache.size());
+ 		System.out.println("" + getSchema().interfaceCache.size());
+ 		System.out.println("" + getSchema().globalPropertyViewMap.size());
+		System.out.println("" + getSchema().globalValidatorMap.size());
+ 		System.out.println("" + getSchema().globalClassDBNamePropertyMap.size());
+ 		System.out.println("" + getSchema().globalClassJSNamePropertyMap.size());
+		System.out.println("" + getSchema().globalAggregatedPropertyGroupMap.size());
+		System.out.println("" + getSchema().globalPropertyGroupMap.size());
+		System.out.println("" + getSchema().viewTransformations.size());
+		System.out.println("" + getSchema().globalTransformationMap.size());
+		System.out.println("" + getSchema().exportedMethodMap.size());
+		System.out.println("" + getSchema().interfaceMap.size());
+	 	System.out.println("" + getSchema().reverseInterfaceMap.size());
+		System.out.println("" + getSchema().globalKnownPropertyKeys.size());
+		System.out.println("" + getSchema().dynamicViews.size());
 		System.out.println("###################################################");
 	}
+
+	// ----- nested classes -----
+	/**
+	 * The type, property, view and validator registry of a schema.
+	 */
+	private static class Schema {
+
+		private final Map<String, Class<? extends RelationshipInterface>> relationshipEntityClassCache = new ConcurrentHashMap<>(1000);
+		private final Map<String, Class<? extends NodeInterface>> nodeEntityClassCache                 = new ConcurrentHashMap(1000);
+
+		private final Set<String> nodeEntityPackages                                                   = new CopyOnWriteArraySet<>();
+		private final Set<String> relationshipPackages                                                 = new CopyOnWriteArraySet<>();
+
+		private final Map<String, Class> combinedTypeRelationClassCache                                = new ConcurrentHashMap<>(100);
+		private final Map<String, Set<Class>> interfaceCache                                           = new ConcurrentHashMap<>(2000);
+
+		private final Map<String, Map<String, Set<PropertyKey>>> globalPropertyViewMap                 = new ConcurrentHashMap<>(2000);
+		private final Map<String, Map<PropertyKey, Set<PropertyValidator>>> globalValidatorMap         = new ConcurrentHashMap<>(100);
+		private final Map<String, Map<String, PropertyKey>> globalClassDBNamePropertyMap               = new ConcurrentHashMap<>(2000);
+		private final Map<String, Map<String, PropertyKey>> globalClassJSNamePropertyMap               = new ConcurrentHashMap<>(2000);
+		private final Map<String, Map<String, PropertyGroup>> globalAggregatedPropertyGroupMap         = new ConcurrentHashMap<>(100);
+		private final Map<String, Map<String, PropertyGroup>> globalPropertyGroupMap                   = new ConcurrentHashMap<>(100);
+		private final Map<String, Map<String, ViewTransformation>> viewTransformations                 = new ConcurrentHashMap<>(100);
+		private final Map<String, Set<Transformation<GraphObject>>> globalTransformationMap            = new ConcurrentHashMap<>(100);
+		private final Map<String, Map<String, Method>> exportedMethodMap                               = new ConcurrentHashMap<>(100);
+		private final Map<Class, Set<Class>> interfaceMap                                              = new ConcurrentHashMap<>(2000);
+		private final Map<String, Class> reverseInterfaceMap                                           = new ConcurrentHashMap<>(5000);
+
+		private final Set<PropertyKey> globalKnownPropertyKeys                                         = new LinkedHashSet<>();
+		private final Set<Class> propagatingRelationshipTypes                                          = new CopyOnWriteArraySet<>();
+		private volatile Set<String> dynamicViews                                                      = Collections.emptySet();
+
+		private Thread owner                                                                           = null;
+
+		public Schema() {
+		}
+
+		/**
+		 * Creates a copy of the given schema that can be modified without
+		 * affecting the original.
+		 */
+		public Schema(final Schema source, final Thread owner) {
+
+			this.owner = owner;
+
+			relationshipEntityClassCache.putAll(source.relationshipEntityClassCache);
+			nodeEntityClassCache.putAll(source.nodeEntityClassCache);
+			nodeEntityPackages.addAll(source.nodeEntityPackages);
+			relationshipPackages.addAll(source.relationshipPackages);
+			combinedTypeRelationClassCache.putAll(source.combinedTypeRelationClassCache);
+			reverseInterfaceMap.putAll(source.reverseInterfaceMap);
+			globalKnownPropertyKeys.addAll(source.globalKnownPropertyKeys);
+			propagatingRelationshipTypes.addAll(source.propagatingRelationshipTypes);
+
+			dynamicViews = source.dynamicViews;
+
+			copySets(source.interfaceCache, interfaceCache);
+			copySets(source.globalTransformationMap, globalTransformationMap);
+			copySets(source.interfaceMap, interfaceMap);
+
+			copyMaps(source.globalValidatorMap, globalValidatorMap);
+			copyMaps(source.globalClassDBNamePropertyMap, globalClassDBNamePropertyMap);
+			copyMaps(source.globalClassJSNamePropertyMap, globalClassJSNamePropertyMap);
+			copyMaps(source.globalAggregatedPropertyGroupMap, globalAggregatedPropertyGroupMap);
+			copyMaps(source.globalPropertyGroupMap, globalPropertyGroupMap);
+			copyMaps(source.viewTransformations, viewTransformations);
+			copyMaps(source.exportedMethodMap, exportedMethodMap);
+
+			for (final Entry<String, Map<String, Set<PropertyKey>>> entry : source.globalPropertyViewMap.entrySet()) {
+
+				final Map<String, Set<PropertyKey>> views = new LinkedHashMap<>();
+
+				copySets(entry.getValue(), views);
+
+				globalPropertyViewMap.put(entry.getKey(), views);
+			}
+		}
+
+		/**
+		 * Adds the entries of the given schema that are missing in this
+		 * schema, i.e. entries that were lazily added to the published
+		 * schema while this schema was updated. Entries of dynamic types
+		 * and the relation classes of combined types (which can refer to
+		 * dynamic types by their simple name) are not merged. Missing
+		 * collections are taken over as they are, so that callers which
+		 * still hold a reference to a lazily created collection keep
+		 * seeing the collection of the current schema.
+		 */
+		public void merge(final Schema source) {
+
+			mergeEntries(source.nodeEntityClassCache, nodeEntityClassCache);
+			mergeEntries(source.relationshipEntityClassCache, relationshipEntityClassCache);
+			mergeEntries(source.reverseInterfaceMap, reverseInterfaceMap);
+
+			mergeSets(source.interfaceCache, interfaceCache);
+			mergeSets(source.interfaceMap, interfaceMap);
+			mergeSets(source.globalTransformationMap, globalTransformationMap);
+
+			mergeMaps(source.globalValidatorMap, globalValidatorMap);
+			mergeMaps(source.globalClassDBNamePropertyMap, globalClassDBNamePropertyMap);
+			mergeMaps(source.globalClassJSNamePropertyMap, globalClassJSNamePropertyMap);
+			mergeMaps(source.globalAggregatedPropertyGroupMap, globalAggregatedPropertyGroupMap);
+			mergeMaps(source.globalPropertyGroupMap, globalPropertyGroupMap);
+			mergeMaps(source.viewTransformations, viewTransformations);
+			mergeMaps(source.exportedMethodMap, exportedMethodMap);
+
+			for (final Entry<String, Map<String, Set<PropertyKey>>> entry : source.globalPropertyViewMap.entrySet()) {
+
+				final String key                          = entry.getKey();
+				final Map<String, Set<PropertyKey>> views = globalPropertyViewMap.get(key);
+
+				if (!isDynamic(key)) {
+
+					if (views == null) {
+
+						globalPropertyViewMap.put(key, entry.getValue());
+
+					} else {
+
+						mergeSets(entry.getValue(), views);
+					}
+				}
+			}
+		}
+
+		private <K, V> void mergeEntries(final Map<K, V> source, final Map<K, V> target) {
+
+			for (final Entry<K, V> entry : source.entrySet()) {
+
+				final K key   = entry.getKey();
+				final V value = entry.getValue();
+
+				if (!isDynamic(key) && !isDynamic(value)) {
+					target.putIfAbsent(key, value);
+				}
+			}
+		}
+
+		private <K, V> void mergeSets(final Map<K, Set<V>> source, final Map<K, Set<V>> target) {
+
+			for (final Entry<K, Set<V>> entry : source.entrySet()) {
+
+				final K key      = entry.getKey();
+				final Set<V> set = entry.getValue();
+				Set<V> values    = target.get(key);
+
+				if (!isDynamic(key)) {
+
+					if (values == null && set.stream().noneMatch(this::isDynamic)) {
+
+						target.put(key, set);
+
+					} else {
+
+						if (values == null) {
+
+							values = new LinkedHashSet<>();
+							target.put(key, values);
+						}
+
+						for (final V value : set) {
+
+							if (!isDynamic(value)) {
+								values.add(value);
+							}
+						}
+					}
+				}
+			}
+		}
+
+		private <K, L, V> void mergeMaps(final Map<K, Map<L, V>> source, final Map<K, Map<L, V>> target) {
+
+			for (final Entry<K, Map<L, V>> entry : source.entrySet()) {
+
+				final K key            = entry.getKey();
+				final Map<L, V> values = target.get(key);
+
+				if (!isDynamic(key)) {
+
+					if (values == null) {
+
+						target.put(key, entry.getValue());
+
+					} else {
+
+						for (final Entry<L, V> value : entry.getValue().entrySet()) {
+							values.putIfAbsent(value.getKey(), value.getValue());
+						}
+					}
+				}
+			}
+		}
+
+		private boolean isDynamic(final Object value) {
+
+			if (value instanceof Class) {
+				return isDynamic(((Class)value).getName());
+			}
+
+			if (value instanceof String) {
+				return ((String)value).startsWith(DYNAMIC_TYPES_PACKAGE);
+			}
+
+			return false;
+		}
+
+		private <K, V> void copySets(final Map<K, Set<V>> source, final Map<K, Set<V>> target) {
+
+			for (final Entry<K, Set<V>> entry : source.entrySet()) {
+				target.put(entry.getKey(), new LinkedHashSet<>(entry.getValue()));
+			}
+		}
+
+		private <K, L, V> void copyMaps(final Map<K, Map<L, V>> source, final Map<K, Map<L, V>> target) {
+
+			for (final Entry<K, Map<L, V>> entry : source.entrySet()) {
+				target.put(entry.getKey(), new LinkedHashMap<>(entry.getValue()));
+			}
+		}
+	}
 }
@@ -44,10 +44,18 @@ public interface ConfigurationProvider {
 	public void initialize(final LicenseManager licenseManager);
 	public void shutdown();
 
+	public void beginSchemaUpdate();
+	public void commitSchemaUpdate();
+	public void rollbackSchemaUpdate();
+
 	public void unregisterEntityType(final Class oldType);
 	public void registerEntityType(final Class newType);
 	public void registerEntityCreationTransformation(final Class type, final Transformation<GraphObject> transformation);
 
+	public void registerPropagatingRelationshipType(final Class type);
+	public void clearPropagatingRelationshipTypes();
+	public Set<Class> getPropagatingRelationshipTypes();
+
 	public Map<String, Class<? extends Agent>> getAgents();
 	public Map<String, Class<? extends NodeInterface>> getNodeEntities();
 	public Map<String, Class<? extends RelationshipInterface>> getRelationshipEntities();
@@ -50,6 +50,7 @@ import org.structr.api.service.Command;
 import org.structr.api.service.Service;
 import org.structr.api.service.StructrServices;
 import org.structr.common.AccessPathCache;
+import org.structr.common.PermissionPropagation;
 import org.structr.common.error.ErrorBuffer;
 import org.structr.common.error.ErrorToken;
 import org.structr.common.error.FrameworkException;
@@ -60,10 +61,12 @@ import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.entity.SchemaNode;
 import org.structr.core.entity.SchemaRelationshipNode;
+import org.structr.core.function.Functions;
 import org.structr.core.graph.NodeInterface;
 import org.structr.core.graph.Tx;
 import org.structr.core.graph.search.SearchCommand;
 import org.structr.core.property.PropertyKey;
+import org.structr.core.script.Scripting;
 import org.structr.schema.compiler.DeleteSchemaNodeWhenMissingPackage;
 import org.structr.schema.compiler.ExtendNotionPropertyWithUuid;
 import org.structr.schema.compiler.MigrationHandler;
@@ -83,7 +86,7 @@ public class SchemaService implements Service {
 	private static final JsonSchema dynamicSchema                 = StructrSchema.newInstance(DynamicSchemaRootURI);
 	private static final AtomicBoolean compiling                  = new AtomicBoolean(false);
 	private static final AtomicBoolean updating                   = new AtomicBoolean(false);
-	private static GraphQLSchema graphQLSchema                    = null;
+	private static volatile GraphQLSchema graphQLSchema           = null;
 
 	static {
 
@@ -104,7 +107,7 @@ public class SchemaService implements Service {
 		return dynamicSchema;
 	}
 
-	public static synchronized GraphQLSchema getGraphQLSchema() {
+	public static GraphQLSchema getGraphQLSchema() {
 		return graphQLSchema;
 	}
 
@@ -126,6 +129,8 @@ public class SchemaService implements Service {
 
 				try (final Tx tx = app.tx()) {
 
+					final long t0 = System.currentTimeMillis();
+
 					// collect auto-generated schema nodes
 					SchemaService.ensureBuiltinTypesExist();
 
@@ -159,36 +164,59 @@ public class SchemaService implements Service {
 						schemaRelationship.initializeGraphQL(graphQLTypes);
 					}
 
+					final long t1 = System.currentTimeMillis();
+
 					// this is a very critical section :)
 					synchronized (SchemaService.class) {
 
-						// clear propagating relationship cache
-						SchemaRelationshipNode.clearPropagatingRelationshipTypes();
+						// other threads keep using the current schema until the new one is published
+						config.beginSchemaUpdate();
 
-						// compile all classes at once and register
-						final Map<String, Class> newTypes = nodeExtender.compile(errorBuffer);
+						try {
 
-						for (final Class newType : newTypes.values()) {
+							// clear propagating relationship cache
+							SchemaRelationshipNode.clearPropagatingRelationshipTypes();
 
-							// instantiate classes to execute static initializer of helpers
-							try {
+							// compile all classes at once and register
+							final Map<String, Class> newTypes = nodeExtender.compile(errorBuffer);
 
-								// do full reload
-								config.registerEntityType(newType);
-								newType.newInstance();
+							for (final Class newType : newTypes.values()) {
 
-							} catch (Throwable ignore) {}
-						}
+								// register all propagating types, reused classes are not initialized again
+								if (PermissionPropagation.class.isAssignableFrom(newType)) {
+									SchemaRelationshipNode.registerPropagatingRelationshipType(newType);
+								}
+
+								// instantiate classes to execute static initializer of helpers
+								try {
+
+									// do full reload
+									config.registerEntityType(newType);
+									newType.newInstance();
+
+								} catch (Throwable ignore) {}
+							}
+
+							// calculate difference between previous and new classes
+							removedClasses.keySet().removeAll(StructrApp.getConfiguration().getTypeAndPropertyMapping().keySet());
 
-						// calculate difference between previous and new classes
-						removedClasses.keySet().removeAll(StructrApp.getConfiguration().getTypeAndPropertyMapping().keySet());
+							config.commitSchemaUpdate();
+
+						} finally {
+
+							config.rollbackSchemaUpdate();
+						}
 					}
 
+					final long t2 = System.currentTimeMillis();
+
 					// create properties and views etc.
 					for (final SchemaNode schemaNode : app.nodeQuery(SchemaNode.class).getAsList()) {
 						schemaNode.createBuiltInSchemaEntities(errorBuffer);
 					}
 
+					final long t3 = System.currentTimeMillis();
+
 					success = !errorBuffer.hasError();
 
 					if (success) {
@@ -203,6 +231,12 @@ public class SchemaService implements Service {
 						// clear permission cache
 						AbstractNode.clearPermissionResolutionCache();
 
+						// clear parsed expressions
+						Functions.clearExpressionCache();
+
+						// re-create JavaScript standard objects
+						Scripting.clearSharedScope();
+
 						// inject views in configuration provider
 						config.registerDynamicViews(dynamicViews);
 
@@ -218,6 +252,10 @@ public class SchemaService implements Service {
 
 						tx.success();
 
+						final long t4 = System.currentTimeMillis();
+
+						logger.info("Schema reload took {} ms: {} ms source generation, {} ms compilation and registration, {} ms schema entities, {} ms hierarchy and indexes", new Object[] { t4 - t0, t1 - t0, t2 - t1, t3 - t2, t4 - t3 });
+
 
 						final GraphQLObjectType.Builder queryTypeBuilder = GraphQLObjectType.newObject();
 
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.schema.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache for the byte code of dynamic classes, so that unchanged
+ * classes do not need to be compiled again after a restart.
+ *
+ * Each entry contains the class files of a top-level class and its inner
+ * classes and is stored in a file whose name is the cache key. The key
+ * must change whenever the byte code could change, i.e. it must include
+ * the source of the class and of all classes it depends on.
+ */
+public class ClassFileCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ClassFileCache.class.getName());
+
+	private File directory = null;
+
+	public ClassFileCache(final File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the class files stored for the given key, or null if there
+	 * is no valid entry.
+	 *
+	 * @param key the cache key
+	 * @return the byte code by binary name, or null
+	 */
+	public Map<String, byte[]> get(final String key) {
+
+		final File file = new File(directory, key);
+		if (file.exists()) {
+
+			try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+				final Map<String, byte[]> classFiles = new LinkedHashMap<>();
+				final int count                      = in.readInt();
+
+				for (int i=0; i<count; i++) {
+
+					final String name  = in.readUTF();
+					final byte[] bytes  = new byte[in.readInt()];
+
+					in.readFully(bytes);
+
+					classFiles.put(name, bytes);
+				}
+
+				return classFiles;
+
+			} catch (IOException ioex) {
+
+				logger.warn("Unable to read cached class file {}: {}", file.getAbsolutePath(), ioex.getMessage());
+				file.delete();
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Stores the given class files for the given key. The file is written
+	 * to a temporary file first, so that concurrent readers never see an
+	 * incomplete entry.
+	 *
+	 * @param key the cache key
+	 * @param classFiles the byte code by binary name
+	 */
+	public void put(final String key, final Map<String, byte[]> classFiles) {
+
+		if (classFiles.isEmpty() || !(directory.isDirectory() || directory.mkdirs())) {
+			return;
+		}
+
+		final File file = new File(directory, key);
+		final File tmp  = new File(directory, key + ".tmp");
+
+		try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+
+			out.writeInt(classFiles.size());
+
+			for (final Map.Entry<String, byte[]> entry : classFiles.entrySet()) {
+
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue().length);
+				out.write(entry.getValue());
+			}
+
+		} catch (IOException ioex) {
+
+			logger.warn("Unable to write cached class file {}: {}", file.getAbsolutePath(), ioex.getMessage());
+			tmp.delete();
+
+			return;
+		}
+
+		if (!tmp.renameTo(file)) {
+
+			logger.warn("Unable to replace cached class file {}", file.getAbsolutePath());
+			tmp.delete();
+		}
+	}
+
+	public void remove(final String key) {
+		new File(directory, key).delete();
+	}
+
+	/**
+	 * Removes all entries except the ones with the given keys.
+	 *
+	 * @param keys the keys to keep
+	 */
+	public void retainAll(final Collection<String> keys) {
+
+		final File[] files = directory.listFiles();
+		if (files != null) {
+
+			for (final File file : files) {
+
+				if (!keys.contains(file.getName())) {
+
+					file.delete();
+				}
+			}
+		}
+	}
+}
@@ -20,19 +20,26 @@ package org.structr.schema.compiler;
 
 import java.io.IOException;
 import java.security.SecureClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.tools.FileObject;
 import javax.tools.ForwardingJavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.JavaFileObject.Kind;
 import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
 
 /**
  *
  *
  */
-public class ClassFileManager extends ForwardingJavaFileManager {
+public class ClassFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
 
 	/**
 	 * Instance of JavaClassObject that will store the compiled byte code of
@@ -40,6 +47,18 @@ public class ClassFileManager extends ForwardingJavaFileManager {
 	 */
 	private final Map<String, JavaClassObject> objects = new LinkedHashMap<>();
 
+	/**
+	 * Byte code created by the current compilation, which is added to
+	 * the compiled objects when the compilation was successful.
+	 */
+	private final Map<String, JavaClassObject> pending = new LinkedHashMap<>();
+
+	/**
+	 * Names of the classes that are compiled from source in the current
+	 * compilation, their byte code is hidden from the compiler.
+	 */
+	private Set<String> compiling = Collections.emptySet();
+
 	/**
 	 * Will initialize the manager with the specified standard java file
 	 * manager
@@ -60,24 +79,130 @@ public class ClassFileManager extends ForwardingJavaFileManager {
 	 */
 	@Override
 	public ClassLoader getClassLoader(final Location location) {
-		
+		return getClassLoader(Collections.emptyMap());
+	}
+
+	/**
+	 * Returns a class loader for the byte code of the current compilation
+	 * that resolves the given classes to the existing instances instead
+	 * of defining them again.
+	 *
+	 * @param reusableClasses classes that were loaded before, by name
+	 * @return class loader
+	 */
+	public synchronized ClassLoader getClassLoader(final Map<String, Class> reusableClasses) {
+
+		// use a snapshot so that classes are always defined from the byte code they were compiled with
+		final Map<String, JavaClassObject> snapshot = new HashMap<>(objects);
+
+		snapshot.putAll(pending);
+
 		return new SecureClassLoader() {
-			
+
 			@Override
 			protected Class<?> findClass(String name) throws ClassNotFoundException {
-				
-				final JavaClassObject obj = objects.get(name);
+
+				final Class reusable = reusableClasses.get(name);
+				if (reusable != null) {
+
+					return reusable;
+				}
+
+				final JavaClassObject obj = snapshot.get(name);
 				if (obj != null) {
-					
+
 					byte[] b = obj.getBytes();
 					return super.defineClass(name, obj.getBytes(), 0, b.length);
 				}
-				
+
 				throw new ClassNotFoundException(name);
 			}
 		};
 	}
 
+	/**
+	 * Starts a new compilation of the given classes, the byte code of all
+	 * other classes that were compiled before is available to the compiler.
+	 *
+	 * @param classNames the fully qualified names of the classes to compile
+	 */
+	public synchronized void begin(final Set<String> classNames) {
+
+		this.compiling = new LinkedHashSet<>(classNames);
+
+		pending.clear();
+	}
+
+	/**
+	 * Stores the byte code of the current compilation and removes the byte
+	 * code of the given classes and their inner classes.
+	 *
+	 * @param removedClassNames the fully qualified names of the removed classes
+	 */
+	public synchronized void commit(final Set<String> removedClassNames) {
+
+		final Set<String> outdated = new LinkedHashSet<>(removedClassNames);
+
+		outdated.addAll(compiling);
+
+		for (final String name : pending.keySet()) {
+			outdated.add(getTopLevelName(name));
+		}
+
+		objects.keySet().removeIf(name -> outdated.contains(getTopLevelName(name)));
+		objects.putAll(pending);
+
+		rollback();
+	}
+
+	/**
+	 * Adds the given byte code to the current compilation, so that the
+	 * class does not need to be compiled from source.
+	 *
+	 * @param binaryName the binary name of the class
+	 * @param bytes the byte code
+	 */
+	public synchronized void addClassFile(final String binaryName, final byte[] bytes) {
+
+		final JavaClassObject obj = new JavaClassObject(binaryName, Kind.CLASS);
+
+		obj.bos.write(bytes, 0, bytes.length);
+
+		pending.put(binaryName, obj);
+	}
+
+	/**
+	 * Returns the byte code of the given class and its inner classes
+	 * from the current compilation.
+	 *
+	 * @param className the fully qualified name of a class
+	 * @return the byte code, by binary name
+	 */
+	public synchronized Map<String, byte[]> getClassFiles(final String className) {
+
+		final Map<String, byte[]> classFiles = new LinkedHashMap<>();
+
+		for (final JavaClassObject obj : pending.values()) {
+
+			if (className.equals(getTopLevelName(obj.getBinaryName()))) {
+
+				classFiles.put(obj.getBinaryName(), obj.getBytes());
+			}
+		}
+
+		return classFiles;
+	}
+
+	/**
+	 * Discards the byte code of the current compilation.
+	 */
+	public synchronized void rollback() {
+
+		compiling = Collections.emptySet();
+
+		pending.clear();
+	}
+
 	/**
 	 * Gives the compiler an instance of the JavaClassObject so that the
 	 * compiler can write the byte code into it.
@@ -89,12 +214,72 @@ public class ClassFileManager extends ForwardingJavaFileManager {
 	 * @throws java.io.IOException
 	 */
 	@Override
-	public JavaFileObject getJavaFileForOutput(final Location location, final String className, final Kind kind, final FileObject sibling) throws IOException {
-		
+	public synchronized JavaFileObject getJavaFileForOutput(final Location location, final String className, final Kind kind, final FileObject sibling) throws IOException {
+
 		JavaClassObject obj = new JavaClassObject(className, kind);
-		
-		objects.put(className, obj);
-		
+
+		pending.put(className, obj);
+
 		return obj;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Adds the byte code of the classes that are not compiled from source
+	 * to the class path of the compiler.
+	 */
+	@Override
+	public synchronized Iterable<JavaFileObject> list(final Location location, final String packageName, final Set<Kind> kinds, final boolean recurse) throws IOException {
+
+		final Iterable<JavaFileObject> files = super.list(location, packageName, kinds, recurse);
+
+		if (StandardLocation.CLASS_PATH.equals(location) && kinds.contains(Kind.CLASS)) {
+
+			final List<JavaFileObject> result = new ArrayList<>();
+			final String prefix               = packageName + ".";
+
+			for (final JavaFileObject file : files) {
+				result.add(file);
+			}
+
+			final Map<String, JavaClassObject> available = new LinkedHashMap<>(objects);
+
+			available.putAll(pending);
+
+			for (final JavaClassObject obj : available.values()) {
+
+				final String name = obj.getBinaryName();
+
+				if (name.startsWith(prefix) && (recurse || name.indexOf('.', prefix.length()) < 0) && !compiling.contains(getTopLevelName(name))) {
+
+					result.add(obj);
+				}
+			}
+
+			return result;
+		}
+
+		return files;
+	}
+
+	@Override
+	public String inferBinaryName(final Location location, final JavaFileObject file) {
+
+		if (file instanceof JavaClassObject) {
+			return ((JavaClassObject)file).getBinaryName();
+		}
+
+		return super.inferBinaryName(location, file);
+	}
+
+	// ----- private methods -----
+	private String getTopLevelName(final String binaryName) {
+
+		final int pos = binaryName.indexOf('$');
+		if (pos >= 0) {
+
+			return binaryName.substring(0, pos);
+		}
+
+		return binaryName;
+	}
+}
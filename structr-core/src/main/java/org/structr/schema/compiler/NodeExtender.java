@@ -18,9 +18,13 @@
  */
 package org.structr.schema.compiler;
 
+import java.io.File;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -29,18 +33,22 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import javax.tools.Diagnostic;
 import javax.tools.Diagnostic.Kind;
 import javax.tools.DiagnosticListener;
 import javax.tools.JavaCompiler;
-import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.ToolProvider;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.api.config.Settings;
+import org.structr.common.VersionHelper;
 import org.structr.common.error.DiagnosticErrorToken;
 import org.structr.common.error.ErrorBuffer;
 import org.structr.core.Services;
@@ -49,6 +57,11 @@ import org.structr.core.graph.TransactionCommand;
 import org.structr.module.JarConfigurationProvider;
 
 /**
+ * Compiles the dynamic entity sources. Only the classes whose source has
+ * changed since the last successful compilation and the classes that
+ * depend on them are compiled again, all other classes are reused. The
+ * byte code of compiled classes is cached on disk, so that unchanged
+ * classes can be loaded without compilation after a restart.
  *
  *
  */
@@ -56,20 +69,23 @@ public class NodeExtender {
 
 	private static final Logger logger   = LoggerFactory.getLogger(NodeExtender.class.getName());
 
-	private static final JavaCompiler compiler       = ToolProvider.getSystemJavaCompiler();
-	private static final JavaFileManager fileManager = new ClassFileManager(compiler.getStandardFileManager(null, null, null));
-	private static final ClassLoader classLoader     = fileManager.getClassLoader(null);
-	private static final Map<String, Class> classes  = new TreeMap<>();
+	private static final Pattern IDENTIFIER            = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*");
+	private static final JavaCompiler compiler         = ToolProvider.getSystemJavaCompiler();
+	private static final ClassFileManager fileManager  = new ClassFileManager(compiler.getStandardFileManager(null, null, null));
+	private static final Map<String, String> sources   = new HashMap<>();
+	private static final ClassLoader classLoader       = new DynamicClassLoader();
+	private static volatile Map<String, Class> classes = Collections.emptyMap();
+	private static String fingerprint                  = null;
 
-	private List<JavaFileObject> jfiles  = null;
-	private Set<String> fqcns            = null;
-	private String initiatedBySessionId  = null;
+	private Map<String, JavaFileObject> jfiles = null;
+	private Map<String, String> contents       = null;
+	private String initiatedBySessionId        = null;
 
 	public NodeExtender(final String initiatedBySessionId) {
 
 		this.initiatedBySessionId = initiatedBySessionId;
-		this.jfiles               = new ArrayList<>();
-		this.fqcns                = new LinkedHashSet<>();
+		this.jfiles               = new LinkedHashMap<>();
+		this.contents             = new LinkedHashMap<>();
 	}
 
 	public static ClassLoader getClassLoader() {
@@ -89,9 +105,10 @@ public class NodeExtender {
 		if (className != null && content != null) {
 
 			final String packageName = JarConfigurationProvider.DYNAMIC_TYPES_PACKAGE;
+			final String fqcn        = packageName.concat(".".concat(className));
 
-			jfiles.add(new CharSequenceJavaFileObject(className, content));
-			fqcns.add(packageName.concat(".".concat(className)));
+			jfiles.put(fqcn, new CharSequenceJavaFileObject(className, content));
+			contents.put(fqcn, content);
 
 			if (Settings.LogSchemaOutput.getValue()) {
 
@@ -107,21 +124,84 @@ public class NodeExtender {
 	}
 
 	public synchronized Map<String, Class> compile(final ErrorBuffer errorBuffer) throws ClassNotFoundException {
+		return compile(errorBuffer, Settings.SchemaCache.getValue());
+	}
+
+	public String getInitiatedBySessionId () {
+		return initiatedBySessionId;
+	}
+
+	public void setInitiatedBySessionId (final String initiatedBySessionId) {
+		this.initiatedBySessionId = initiatedBySessionId;
+	}
+
+	// ----- private methods -----
+	private Map<String, Class> compile(final ErrorBuffer errorBuffer, final boolean useCache) throws ClassNotFoundException {
 
 		final Writer errorWriter     = new StringWriter();
 		final List<Class> newClasses = new LinkedList<>();
 
 		if (!jfiles.isEmpty()) {
 
-			logger.info("Compiling {} dynamic entities...", jfiles.size());
+			final long t0             = System.currentTimeMillis();
+			final Set<String> removed = new LinkedHashSet<>(classes.keySet());
+
+			removed.removeAll(jfiles.keySet());
+
+			final Map<String, Set<String>> dependencies   = getDependencies(removed);
+			final Set<String> changed                     = getClassesToCompile(removed, dependencies);
+			final Map<String, String> cacheKeys           = useCache ? getCacheKeys(changed, dependencies) : Collections.emptyMap();
+			final Map<String, Map<String, byte[]>> cached = new LinkedHashMap<>();
+			final ClassFileCache cache                    = new ClassFileCache(new File(Settings.getBasePath() + "schema-cache"));
+
+			for (final Map.Entry<String, String> entry : cacheKeys.entrySet()) {
+
+				final Map<String, byte[]> classFiles = cache.get(entry.getValue());
+				if (classFiles != null) {
+
+					cached.put(entry.getKey(), classFiles);
+				}
+			}
+
+			final Set<String> compile = new LinkedHashSet<>(changed);
+
+			compile.removeAll(cached.keySet());
 
-			Boolean success = compiler.getTask(errorWriter, fileManager, new Listener(errorBuffer), null, null, jfiles).call();
+			final List<JavaFileObject> files = compile.stream().map(jfiles::get).collect(Collectors.toList());
+			final long t1                    = System.currentTimeMillis();
+			Boolean success                  = true;
+
+			fileManager.begin(compile);
+
+			// cached byte code is used instead of the source
+			for (final Map<String, byte[]> classFiles : cached.values()) {
+
+				for (final Map.Entry<String, byte[]> entry : classFiles.entrySet()) {
+
+					fileManager.addClassFile(entry.getKey(), entry.getValue());
+				}
+			}
+
+			if (!files.isEmpty()) {
+
+				logger.info("Compiling {} of {} dynamic entities...", files.size(), jfiles.size());
+
+				success = compiler.getTask(errorWriter, fileManager, new Listener(errorBuffer), null, null, files).call();
+			}
+
+			final long t2 = System.currentTimeMillis();
 
 			if (success) {
 
-				final ClassLoader loader = fileManager.getClassLoader(null);
+				// classes that were not compiled again are reused
+				final Map<String, Class> reusable = new HashMap<>(classes);
+
+				reusable.keySet().removeAll(changed);
+				reusable.keySet().removeAll(removed);
 
-				for (final String fqcn : fqcns) {
+				final ClassLoader loader = fileManager.getClassLoader(reusable);
+
+				for (final String fqcn : jfiles.keySet()) {
 
 					try {
 
@@ -136,45 +216,260 @@ public class NodeExtender {
 					}
 				}
 
-				if (success) {
+				if (!success && !cached.isEmpty()) {
+
+					logger.warn("Unable to load cached dynamic entities, compiling again without cache.");
 
-					for (final Class oldType : classes.values()) {
-						StructrApp.getConfiguration().unregisterEntityType(oldType);
+					fileManager.rollback();
+
+					for (final String fqcn : cached.keySet()) {
+						cache.remove(cacheKeys.get(fqcn));
 					}
 
-					// clear classes map
-					classes.clear();
+					return compile(errorBuffer, false);
+				}
+			}
+
+			final long t3 = System.currentTimeMillis();
 
-					// add new classes to map
-					for (final Class newType : newClasses) {
-						classes.put(newType.getName(), newType);
+			if (success) {
+
+				if (useCache) {
+
+					for (final String fqcn : compile) {
+						cache.put(cacheKeys.get(fqcn), fileManager.getClassFiles(fqcn));
+					}
+
+					// remove outdated entries when the whole schema was processed
+					if (changed.size() == contents.size()) {
+						cache.retainAll(new HashSet<>(cacheKeys.values()));
 					}
+				}
 
-					logger.info("Successfully compiled {} dynamic entities: {}", new Object[] { jfiles.size(), jfiles.stream().map(f -> f.getName().replaceFirst("/", "")).collect(Collectors.joining(", ")) });
+				fileManager.commit(removed);
 
-					final Map<String, Object> data = new LinkedHashMap();
-					data.put("success", true);
-					TransactionCommand.simpleBroadcast("SCHEMA_COMPILED", data, getInitiatedBySessionId());
+				for (final Class oldType : classes.values()) {
+					StructrApp.getConfiguration().unregisterEntityType(oldType);
+				}
 
-					Services.getInstance().setOverridingSchemaTypesAllowed(false);
+				// publish new classes map, readers never see a partially filled map
+				final Map<String, Class> newClassMap = new TreeMap<>();
 
+				for (final Class newType : newClasses) {
+					newClassMap.put(newType.getName(), newType);
 				}
 
-			}
+				classes = Collections.unmodifiableMap(newClassMap);
 
+				// store sources for the next compilation
+				sources.clear();
+				sources.putAll(contents);
+
+				if (!cached.isEmpty()) {
+					logger.info("Loaded {} dynamic entities from cache.", cached.size());
+				}
+
+				if (!files.isEmpty()) {
+					logger.info("Successfully compiled {} dynamic entities: {}", new Object[] { files.size(), compile.stream().map(f -> f.substring(f.lastIndexOf(".") + 1)).collect(Collectors.joining(", ")) });
+				}
+
+				logger.info("Dynamic schema with {} entities ({} reused, {} cached) ready after {} ms: {} ms dependency analysis, {} ms compilation, {} ms class loading", new Object[] { jfiles.size(), jfiles.size() - changed.size(), cached.size(), t3 - t0, t1 - t0, t2 - t1, t3 - t2 });
+
+				final Map<String, Object> data = new LinkedHashMap();
+				data.put("success", true);
+				TransactionCommand.simpleBroadcast("SCHEMA_COMPILED", data, getInitiatedBySessionId());
+
+				Services.getInstance().setOverridingSchemaTypesAllowed(false);
+
+			} else {
+
+				fileManager.rollback();
+			}
 		}
 
 		return classes;
 	}
 
-	public String getInitiatedBySessionId () {
-		return initiatedBySessionId;
+	/**
+	 * Returns the names of the classes whose source changed, and of all
+	 * classes that refer to a changed or removed class, directly or
+	 * indirectly, because they must be linked against the new classes.
+	 */
+	private Set<String> getClassesToCompile(final Set<String> removed, final Map<String, Set<String>> dependencies) {
+
+		final Set<String> changed = new LinkedHashSet<>();
+
+		for (final Map.Entry<String, String> entry : contents.entrySet()) {
+
+			final String fqcn = entry.getKey();
+
+			if (!Settings.SchemaIncremental.getValue() || !classes.containsKey(fqcn) || !entry.getValue().equals(sources.get(fqcn))) {
+
+				changed.add(fqcn);
+			}
+		}
+
+		if (changed.size() == contents.size() || (changed.isEmpty() && removed.isEmpty())) {
+			return changed;
+		}
+
+		final Map<String, Set<String>> dependents = new HashMap<>();
+		final List<String> queue                  = new ArrayList<>(changed);
+
+		queue.addAll(removed);
+
+		for (final Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+
+			for (final String dependency : entry.getValue()) {
+
+				dependents.computeIfAbsent(dependency, k -> new LinkedHashSet<>()).add(entry.getKey());
+			}
+		}
+
+		while (!queue.isEmpty()) {
+
+			final Set<String> classesToCompile = dependents.get(queue.remove(0));
+			if (classesToCompile != null) {
+
+				for (final String fqcn : classesToCompile) {
+
+					if (changed.add(fqcn)) {
+						queue.add(fqcn);
+					}
+				}
+			}
+		}
+
+		return changed;
 	}
 
-	public void setInitiatedBySessionId (final String initiatedBySessionId) {
-		this.initiatedBySessionId = initiatedBySessionId;
+	/**
+	 * Returns the dynamic classes each class depends on, i.e. all dynamic
+	 * classes whose name occurs in its source.
+	 */
+	private Map<String, Set<String>> getDependencies(final Set<String> removed) {
+
+		final Map<String, String> simpleNames       = new HashMap<>();
+		final Map<String, Set<String>> dependencies = new HashMap<>();
+
+		for (final String fqcn : contents.keySet()) {
+			simpleNames.put(fqcn.substring(fqcn.lastIndexOf(".") + 1), fqcn);
+		}
+
+		for (final String fqcn : removed) {
+			simpleNames.put(fqcn.substring(fqcn.lastIndexOf(".") + 1), fqcn);
+		}
+
+		for (final Map.Entry<String, String> entry : contents.entrySet()) {
+
+			final String fqcn           = entry.getKey();
+			final Set<String> dependsOn = new LinkedHashSet<>();
+			final Matcher matcher       = IDENTIFIER.matcher(entry.getValue());
+
+			while (matcher.find()) {
+
+				final String dependency = simpleNames.get(matcher.group());
+				if (dependency != null && !dependency.equals(fqcn)) {
+
+					dependsOn.add(dependency);
+				}
+			}
+
+			dependencies.put(fqcn, dependsOn);
+		}
+
+		return dependencies;
+	}
+
+	/**
+	 * Returns the cache keys of the given classes. The byte code of a class
+	 * depends on the classes it refers to, so the key contains the source
+	 * of the class and of all classes it depends on, directly or indirectly,
+	 * as well as the version of Structr and of the Java runtime.
+	 */
+	private Map<String, String> getCacheKeys(final Set<String> classNames, final Map<String, Set<String>> dependencies) {
+
+		final Map<String, String> hashes = new HashMap<>();
+		final Map<String, String> keys   = new LinkedHashMap<>();
+		final String environment         = getEnvironment();
+
+		for (final String fqcn : classNames) {
+
+			final Set<String> closure = new TreeSet<>();
+			final List<String> queue  = new ArrayList<>();
+			final StringBuilder buf   = new StringBuilder(environment);
+
+			queue.add(fqcn);
+
+			while (!queue.isEmpty()) {
+
+				final String name = queue.remove(queue.size() - 1);
+
+				if (contents.containsKey(name) && closure.add(name)) {
+
+					queue.addAll(dependencies.get(name));
+				}
+			}
+
+			for (final String name : closure) {
+
+				buf.append("|");
+				buf.append(name);
+				buf.append(":");
+				buf.append(hashes.computeIfAbsent(name, k -> DigestUtils.sha256Hex(contents.get(k))));
+			}
+
+			keys.put(fqcn, DigestUtils.sha256Hex(buf.toString()));
+		}
+
+		return keys;
 	}
 
+	/**
+	 * Returns a hash of the version information and the modification times
+	 * of the class path, which identifies the classes the dynamic classes
+	 * are compiled against.
+	 */
+	private static synchronized String getEnvironment() {
+
+		if (fingerprint == null) {
+
+			final StringBuilder buf = new StringBuilder();
+
+			buf.append(VersionHelper.getFullVersionInfo());
+			buf.append(System.getProperty("java.vendor"));
+			buf.append(System.getProperty("java.version"));
+
+			for (final String path : VersionHelper.getClassPath().split(File.pathSeparator)) {
+
+				buf.append(path);
+				buf.append(getLastModified(new File(path)));
+			}
+
+			fingerprint = DigestUtils.sha256Hex(buf.toString());
+		}
+
+		return fingerprint;
+	}
+
+	private static long getLastModified(final File file) {
+
+		long lastModified = file.lastModified();
+
+		// class files in a directory do not change the modification time of the directory
+		final File[] children = file.listFiles();
+		if (children != null) {
+
+			for (final File child : children) {
+
+				lastModified = Math.max(lastModified, getLastModified(child));
+			}
+		}
+
+		return lastModified;
+	}
+
+	// ----- nested classes -----
 	private static class Listener implements DiagnosticListener<JavaFileObject> {
 
 		private ErrorBuffer errorBuffer = null;
@@ -202,4 +497,27 @@ public class NodeExtender {
 			}
 		}
 	}
+
+	/**
+	 * Class loader that resolves the names of the currently registered
+	 * dynamic classes.
+	 */
+	private static class DynamicClassLoader extends ClassLoader {
+
+		public DynamicClassLoader() {
+			super(NodeExtender.class.getClassLoader());
+		}
+
+		@Override
+		protected Class<?> findClass(final String name) throws ClassNotFoundException {
+
+			final Class type = classes.get(name);
+			if (type != null) {
+
+				return type;
+			}
+
+			throw new ClassNotFoundException(name);
+		}
+	}
 }
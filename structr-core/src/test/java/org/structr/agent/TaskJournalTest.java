@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.agent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class TaskJournalTest {
+
+	@Test
+	public void testRestorePendingTasks() throws IOException {
+
+		final File file = File.createTempFile("structr-test-", ".journal");
+
+		try {
+
+			final TaskJournal journal = new TaskJournal(file);
+
+			assertTrue("New journal should be empty", journal.open().isEmpty());
+
+			final long id1 = journal.add(new TestTask("one"));
+			final long id2 = journal.add(new TestTask("two"));
+			final long id3 = journal.add(new TestTask("three"));
+
+			journal.remove(id2);
+			journal.close();
+
+			// re-open to simulate a restart
+			final TaskJournal restarted           = new TaskJournal(file);
+			final Map<Long, PersistentTask> tasks = restarted.open();
+
+			assertEquals("Only pending tasks should be restored", 2, tasks.size());
+			assertEquals("Restored task has wrong state", "one",   tasks.get(id1).getPersistentState());
+			assertEquals("Restored task has wrong state", "three", tasks.get(id3).getPersistentState());
+
+			// ids must not be re-used after a restart
+			assertTrue("Journal ids should not be re-used", restarted.add(new TestTask("four")) > id3);
+
+			restarted.close();
+
+		} finally {
+
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testDiscardUnrestorableTasks() throws IOException {
+
+		final File file = File.createTempFile("structr-test-", ".journal");
+
+		try {
+
+			Files.write(file.toPath(), Arrays.asList(
+				"+ 0 " + TestTask.class.getName() + " one",
+				"+ 1 org.structr.agent.DoesNotExist two",
+				"+ 2 " + TestTask.class.getName() + " three"
+			), StandardCharsets.UTF_8);
+
+			final TaskJournal journal             = new TaskJournal(file);
+			final Map<Long, PersistentTask> tasks = journal.open();
+
+			assertEquals("Unrestorable task should not be restored", 2, tasks.size());
+			assertEquals("Unrestorable task should be removed from journal", 2, journal.size());
+
+			journal.close();
+
+			final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+
+			assertEquals("Compacted journal should only contain restorable tasks", 2, lines.size());
+			assertFalse("Compacted journal should not contain unrestorable task", lines.stream().anyMatch(line -> line.contains("DoesNotExist")));
+
+		} finally {
+
+			file.delete();
+		}
+	}
+
+	// ----- nested classes -----
+	public static class TestTask extends AbstractTask<String> implements PersistentTask<String> {
+
+		public TestTask(final String value) {
+			super("Test", null, value);
+		}
+
+		@Override
+		public String getPersistentState() {
+			return getWorkObjects().get(0);
+		}
+	}
+}
@@ -18,6 +18,7 @@
  */
 package org.structr.common;
 
+import java.util.ArrayList;
 import java.util.List;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -410,6 +411,69 @@ public class AccessControlTest extends StructrTest {
 
 	}
 
+	@Test
+	public void test07ResultCountWithPagingForUser() {
+
+		// remove auto-generated resource access objects
+		clearResourceAccess();
+
+		try {
+
+			final List<Principal> users = createTestNodes(Principal.class, 2);
+			final Principal user1       = users.get(0);
+			final Principal user2       = users.get(1);
+			final Class type            = TestOne.class;
+			final List<TestOne> nodes   = new ArrayList<>();
+
+			for (int i=0; i<10; i++) {
+				nodes.add(createTestNode(TestOne.class, new PropertyMap(AbstractNode.name, "node0" + i), user1));
+			}
+
+			// node 10 is owned by user2
+			nodes.add(createTestNode(TestOne.class, new PropertyMap(AbstractNode.name, "node10"), user2));
+
+			try (final Tx tx = app.tx()) {
+
+				final Group group = app.create(Group.class, "group");
+
+				group.addMember(user2);
+
+				nodes.get(1).setProperty(AbstractNode.visibleToAuthenticatedUsers, true);
+				nodes.get(3).setProperty(AbstractNode.visibleToPublicUsers, true);
+				nodes.get(5).grant(Permission.read, user2);
+				nodes.get(7).grant(Permission.read, group);
+				nodes.get(8).grant(Permission.write, user2);
+
+				tx.success();
+			}
+
+			final SecurityContext user2Context = SecurityContext.getInstance(user2, AccessMode.Backend);
+
+			try (final Tx tx = app.tx()) {
+
+				final Result page1 = StructrApp.getInstance(user2Context).nodeQuery(type).sort(AbstractNode.name).page(1).pageSize(2).getResult();
+				final Result page3 = StructrApp.getInstance(user2Context).nodeQuery(type).sort(AbstractNode.name).page(3).pageSize(2).getResult();
+
+				assertEquals("Invalid result count for paged query", 5, (int)page1.getRawResultCount());
+				assertEquals("Invalid result count for paged query", 5, (int)page3.getRawResultCount());
+
+				assertEquals(2, page1.size());
+				assertEquals(nodes.get(1).getUuid(), page1.get(0).getUuid());
+				assertEquals(nodes.get(3).getUuid(), page1.get(1).getUuid());
+
+				assertEquals(1, page3.size());
+				assertEquals(nodes.get(10).getUuid(), page3.get(0).getUuid());
+			}
+
+		} catch (FrameworkException ex) {
+
+			logger.warn("", ex);
+			fail("Unexpected exception");
+
+		}
+
+	}
+
 	@Test
 	public void test08WriteAccess() {
 
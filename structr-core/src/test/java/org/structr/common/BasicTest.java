@@ -26,6 +26,7 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -34,8 +35,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.api.NotFoundException;
 import org.structr.api.NotInTransactionException;
+import org.structr.api.graph.Direction;
 import org.structr.api.graph.RelationshipType;
 import org.structr.api.util.Iterables;
+import org.structr.bolt.wrapper.NodeWrapper;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
 import org.structr.core.Result;
@@ -70,13 +73,16 @@ import org.structr.core.entity.TestThree;
 import org.structr.core.entity.TestTwo;
 import org.structr.core.entity.relationship.NodeHasLocation;
 import org.structr.core.entity.relationship.PrincipalOwnsNode;
+import org.structr.core.graph.FlushCachesCommand;
 import org.structr.core.graph.NodeAttribute;
 import org.structr.core.graph.NodeInterface;
 import org.structr.core.graph.NodeServiceCommand;
+import org.structr.core.graph.PrefetchRelationshipsCommand;
 import org.structr.core.graph.RelationshipInterface;
 import org.structr.core.graph.Tx;
 import org.structr.core.property.PropertyKey;
 import org.structr.core.property.PropertyMap;
+import org.structr.core.property.RelationProperty;
 import org.structr.core.property.StringProperty;
 
 /**
@@ -680,6 +686,53 @@ public class BasicTest extends StructrTest {
 
 	}
 
+	@Test
+	public void test01CreateNodesInBatch() {
+
+		final List<PropertyMap> rows = new LinkedList<>();
+
+		for (int i=0; i<100; i++) {
+
+			final PropertyMap props = new PropertyMap();
+
+			props.put(AbstractNode.name, "node" + StringUtils.leftPad(Integer.toString(i), 3, "0"));
+
+			rows.add(props);
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final List<TestOne> nodes = app.create(TestOne.class, rows);
+
+			assertEquals("Invalid batch creation result", 100, nodes.size());
+			assertEquals("Invalid batch creation result", "node000", nodes.get(0).getName());
+			assertEquals("Invalid batch creation result", "node099", nodes.get(99).getName());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.error("", fex);
+			fail("Unexpected exception");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final List<TestOne> nodes = app.nodeQuery(TestOne.class).sort(AbstractNode.name).getAsList();
+
+			assertEquals("Invalid batch creation result", 100, nodes.size());
+			assertEquals("Invalid batch creation result", "node000", nodes.get(0).getName());
+			assertEquals("Invalid batch creation result", "node099", nodes.get(99).getName());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.error("", fex);
+			fail("Unexpected exception");
+		}
+	}
+
 	@Test
 	public void test02CreateNodeWithExistingUuid() {
 
@@ -1661,6 +1714,151 @@ public class BasicTest extends StructrTest {
 		}
 	}
 
+	@Test
+	public void testRelationshipsOnBatchNodeCreation() {
+
+		final List<PropertyMap> rows = new LinkedList<>();
+		Principal user               = null;
+
+		for (int i=0; i<10; i++) {
+
+			final PropertyMap props = new PropertyMap();
+
+			props.put(AbstractNode.name, "node" + i);
+
+			rows.add(props);
+		}
+
+		// create user
+		try (final Tx tx = app.tx()) {
+
+			user = app.create(Principal.class, "tester");
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+
+		final SecurityContext ctx = SecurityContext.getInstance(user, AccessMode.Backend);
+		final App userApp         = StructrApp.getInstance(ctx);
+
+		// create objects in batch mode with user context
+		try (final Tx tx = userApp.tx()) {
+
+			assertEquals("Invalid batch creation result", 10, userApp.create(TestOne.class, rows).size());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+
+		// check owner and security relationships with superuser context
+		try (final Tx tx = app.tx()) {
+
+			final List<TestOne> nodes = app.nodeQuery(TestOne.class).getAsList();
+
+			assertEquals("Invalid batch creation result", 10, nodes.size());
+
+			for (final TestOne node : nodes) {
+
+				assertEquals("Owner not set on batch node creation", user, node.getOwnerNode());
+
+				final Security security = node.getSecurityRelationship(user);
+
+				assertNotNull("Security relationship missing after batch node creation", security);
+				assertTrue("Creator should be granted read access", security.isAllowed(Permission.read));
+				assertTrue("Creator should be granted write access", security.isAllowed(Permission.write));
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+
+		// non-admin creator must be able to read the new objects
+		try (final Tx tx = userApp.tx()) {
+
+			assertEquals("Creator cannot read nodes created in batch mode", 10, userApp.nodeQuery(TestOne.class).getAsList().size());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+	}
+
+	@Test
+	public void testPrefetchRelationships() {
+
+		try (final Tx tx = app.tx()) {
+
+			final List<TestOne> testOnes = createTestNodes(TestOne.class, 3);
+			final List<TestSix> testSixs = createTestNodes(TestSix.class, 10);
+
+			for (final TestSix testSix : testSixs) {
+				testSix.setProperty(TestSix.manyToManyTestOnes, testOnes);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+
+		// start with empty relationship caches
+		FlushCachesCommand.flushAll();
+
+		try (final Tx tx = app.tx()) {
+
+			final RelationshipType relType = ((RelationProperty)TestSix.manyToManyTestOnes).getRelation();
+			final List<TestSix> testSixs   = app.nodeQuery(TestSix.class).getAsList();
+			final List<TestOne> testOnes   = app.nodeQuery(TestOne.class).getAsList();
+
+			app.command(PrefetchRelationshipsCommand.class).execute(testSixs, PropertyView.All);
+
+			// only the direction in which the properties traverse the relationship is loaded
+			for (final TestSix testSix : testSixs) {
+
+				final NodeWrapper node = (NodeWrapper)testSix.getNode();
+
+				assertTrue("Outgoing relationships should be cached after prefetching",   node.hasCachedRelationships(Direction.OUTGOING, relType));
+				assertFalse("Incoming relationships should not be cached after prefetching", node.hasCachedRelationships(Direction.INCOMING, relType));
+			}
+
+			app.command(PrefetchRelationshipsCommand.class).execute(testOnes, PropertyView.All);
+
+			for (final TestOne testOne : testOnes) {
+
+				final NodeWrapper node = (NodeWrapper)testOne.getNode();
+
+				assertTrue("Incoming relationships should be cached after prefetching",   node.hasCachedRelationships(Direction.INCOMING, relType));
+				assertFalse("Outgoing relationships should not be cached after prefetching", node.hasCachedRelationships(Direction.OUTGOING, relType));
+			}
+
+			for (final TestSix testSix : testSixs) {
+				assertEquals("Invalid number of related nodes after prefetching", 3, Iterables.count(testSix.getProperty(TestSix.manyToManyTestOnes)));
+			}
+
+			for (final TestOne testOne : testOnes) {
+				assertEquals("Invalid number of related nodes after prefetching", 10, Iterables.count(testOne.getProperty(TestOne.manyToManyTestSixs)));
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+	}
+
 	@Test
 	public void testNodeCreationWithForcedUuid() {
 
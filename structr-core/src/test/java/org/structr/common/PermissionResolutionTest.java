@@ -18,6 +18,7 @@
  */
 package org.structr.common;
 
+import java.util.List;
 import org.junit.Assert;
 import static org.junit.Assert.fail;
 import org.junit.Test;
@@ -26,6 +27,8 @@ import org.slf4j.LoggerFactory;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
+import org.structr.core.entity.AbstractNode;
+import org.structr.core.entity.Group;
 import org.structr.core.entity.Principal;
 import org.structr.core.entity.ResourceAccess;
 import org.structr.core.entity.SchemaNode;
@@ -36,6 +39,9 @@ import org.structr.core.graph.NodeAttribute;
 import org.structr.core.graph.NodeInterface;
 import org.structr.core.graph.Tx;
 import org.structr.core.property.PropertyKey;
+import org.structr.schema.export.StructrSchema;
+import org.structr.schema.json.JsonObjectType;
+import org.structr.schema.json.JsonSchema;
 
 /**
  * Test access control with different permission levels.
@@ -234,6 +240,199 @@ public class PermissionResolutionTest extends StructrTest {
 		}
 	}
 
+	@Test
+	public void test02PermissionResolutionCacheInvalidation() {
+
+		String instance1Id = null;
+		String instance2Id = null;
+		Principal user1    = null;
+		Group group1       = null;
+
+		try (final Tx tx = app.tx()) {
+
+			// create schema setup with read propagation from Type3 to Type4
+			final SchemaNode t3 = app.create(SchemaNode.class, "Type3");
+			final SchemaNode t4 = app.create(SchemaNode.class, "Type4");
+
+			app.create(SchemaRelationshipNode.class,
+				new NodeAttribute<>(SchemaRelationshipNode.sourceNode, t3),
+				new NodeAttribute<>(SchemaRelationshipNode.targetNode, t4),
+				new NodeAttribute<>(SchemaRelationshipNode.relationshipType, "RELATED"),
+				new NodeAttribute<>(SchemaRelationshipNode.sourceMultiplicity, "1"),
+				new NodeAttribute<>(SchemaRelationshipNode.targetMultiplicity, "1"),
+				new NodeAttribute<>(SchemaRelationshipNode.sourceJsonName, "source"),
+				new NodeAttribute<>(SchemaRelationshipNode.targetJsonName, "target"),
+				new NodeAttribute<>(SchemaRelationshipNode.permissionPropagation, Direction.Out),
+				new NodeAttribute<>(SchemaRelationshipNode.readPropagation, Propagation.Add)
+			);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final Class type3 = StructrApp.getConfiguration().getNodeEntityClass("Type3");
+			final Class type4 = StructrApp.getConfiguration().getNodeEntityClass("Type4");
+
+			final NodeInterface instance1 = app.create(type3, "instance1OfType3");
+			final NodeInterface instance2 = app.create(type4, "instance1OfType4");
+
+			instance1.setProperty(StructrApp.key(type3, "target"), instance2);
+
+			user1  = app.create(Principal.class, "user1");
+			group1 = app.create(Group.class, "group1");
+
+			instance1Id = instance1.getUuid();
+			instance2Id = instance2.getUuid();
+
+			// grant read access to user1 directly
+			instance1.grant(Permission.read, user1);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		final SecurityContext userContext = SecurityContext.getInstance(user1, AccessMode.Backend);
+
+		assertReadGranted("User1 should be able to read instance of Type4", instance2Id, userContext, true);
+
+		// a second check must be answered from the cache
+		final long hits = PermissionResolutionCache.getHitCount();
+
+		assertReadGranted("User1 should be able to read instance of Type4", instance2Id, userContext, true);
+		Assert.assertTrue("Permission resolution result should have been cached", PermissionResolutionCache.getHitCount() > hits);
+
+		// revoke direct grant
+		try (final Tx tx = app.tx()) {
+
+			app.getNodeById(instance1Id).revoke(Permission.read, user1);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		assertReadGranted("User1 should NOT be able to read instance of Type4 after revocation", instance2Id, userContext, false);
+
+		// grant access through a group
+		try (final Tx tx = app.tx()) {
+
+			group1.addMember(user1);
+			app.getNodeById(instance1Id).grant(Permission.read, group1);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		assertReadGranted("User1 should be able to read instance of Type4 through group1", instance2Id, userContext, true);
+
+		// remove user1 from group, the grant of the group must not apply any more
+		try (final Tx tx = app.tx()) {
+
+			group1.removeMember(user1);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		assertReadGranted("User1 should NOT be able to read instance of Type4 after leaving group1", instance2Id, userContext, false);
+
+		// add user1 again, then revoke the grant of the group
+		try (final Tx tx = app.tx()) {
+
+			group1.addMember(user1);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		assertReadGranted("User1 should be able to read instance of Type4 through group1", instance2Id, userContext, true);
+
+		try (final Tx tx = app.tx()) {
+
+			app.getNodeById(instance1Id).revoke(Permission.read, group1);
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		assertReadGranted("User1 should NOT be able to read instance of Type4 after revocation from group1", instance2Id, userContext, false);
+	}
+
+	@Test
+	public void test03PermissionResolutionWithIsGrantedOverride() {
+
+		Principal user1 = null;
+		Class type      = null;
+
+		try (final Tx tx = app.tx()) {
+
+			final JsonSchema schema    = StructrSchema.createFromDatabase(app);
+			final JsonObjectType type5 = schema.addType("Type5");
+
+			// grant read access to all nodes whose name starts with "readable"
+			type5.overrideMethod("isGranted", false, "if (org.structr.common.Permission.read.equals(arg0) && getName() != null && getName().startsWith(\"readable\")) { return true; } return super.isGranted(arg0, arg1);");
+
+			StructrSchema.extendDatabaseSchema(app, schema);
+
+			tx.success();
+
+		} catch (Throwable t) {
+			t.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			type  = StructrApp.getConfiguration().getNodeEntityClass("Type5");
+			user1 = app.create(Principal.class, "user1");
+
+			app.create(type, "readable1");
+			app.create(type, "readable2");
+			app.create(type, "other");
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		// the grant can only be resolved by the isGranted override, so paging must not be done by the database
+		final App userApp = StructrApp.getInstance(SecurityContext.getInstance(user1, AccessMode.Backend));
+		try (final Tx tx = userApp.tx()) {
+
+			final List<NodeInterface> result = userApp.nodeQuery(type).sort(AbstractNode.name).pageSize(10).page(1).getAsList();
+
+			Assert.assertEquals("User1 should be able to find the nodes granted by isGranted override", 2, result.size());
+			Assert.assertEquals("User1 should be able to find the nodes granted by isGranted override", "readable1", result.get(0).getName());
+			Assert.assertEquals("User1 should be able to find the nodes granted by isGranted override", "readable2", result.get(1).getName());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
 	// ----- private methods -----
 	public static void clearResourceAccess() {
 
@@ -252,4 +451,18 @@ public class PermissionResolutionTest extends StructrTest {
 			logger.warn("Unable to clear resource access grants", t);
 		}
 	}
+
+	private void assertReadGranted(final String message, final String uuid, final SecurityContext securityContext, final boolean expected) {
+
+		try (final Tx tx = app.tx()) {
+
+			Assert.assertEquals(message, expected, app.getNodeById(uuid).isGranted(Permission.read, securityContext));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
 }
@@ -1480,6 +1480,82 @@ public class SearchAndSortingTest extends StructrTest {
 
 	}
 
+	@Test
+	public void test14SearchByBlankStringFieldWithPaging() {
+
+		final String[] names = { null, "x", "", "  ", "y", null };
+
+		try (final Tx tx = app.tx()) {
+
+			for (int i=0; i<names.length; i++) {
+
+				app.create(TestOne.class,
+					new NodeAttribute<>(AbstractNode.name, names[i]),
+					new NodeAttribute<>(TestOne.anInt, i)
+				);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException ex) {
+
+			logger.warn("", ex);
+			fail("Unexpected exception");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final Result<TestOne> result = app.nodeQuery(TestOne.class).blank(AbstractNode.name).sort(TestOne.anInt).pageSize(2).page(2).getResult();
+
+			assertEquals("Invalid result count for blank search", 4, (int)result.getRawResultCount());
+			assertEquals("Invalid page size for blank search", 2, result.size());
+			assertEquals("Invalid sort order for blank search", 3, (int)result.get(0).getProperty(TestOne.anInt));
+			assertEquals("Invalid sort order for blank search", 5, (int)result.get(1).getProperty(TestOne.anInt));
+
+			tx.success();
+
+		} catch (FrameworkException ex) {
+
+			logger.warn("", ex);
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	public void test15SearchWithComparatorAndPaging() {
+
+		try (final Tx tx = app.tx()) {
+
+			for (int i=0; i<6; i++) {
+				app.create(TestOne.class, new NodeAttribute<>(TestOne.anInt, i));
+			}
+
+			tx.success();
+
+		} catch (FrameworkException ex) {
+
+			logger.warn("", ex);
+			fail("Unexpected exception");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final Result<TestOne> result = app.nodeQuery(TestOne.class).comparator((a, b) -> Integer.compare(b.getProperty(TestOne.anInt), a.getProperty(TestOne.anInt))).pageSize(2).page(2).getResult();
+
+			assertEquals("Invalid result count for comparator search", 6, (int)result.getRawResultCount());
+			assertEquals("Invalid page size for comparator search", 2, result.size());
+			assertEquals("Invalid sort order for comparator search", 3, (int)result.get(0).getProperty(TestOne.anInt));
+			assertEquals("Invalid sort order for comparator search", 2, (int)result.get(1).getProperty(TestOne.anInt));
+
+			tx.success();
+
+		} catch (FrameworkException ex) {
+
+			logger.warn("", ex);
+			fail("Unexpected exception");
+		}
+	}
+
 	@Test
 	public void test01FirstPage() {
 
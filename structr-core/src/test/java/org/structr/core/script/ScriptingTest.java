@@ -66,6 +66,7 @@ import org.structr.core.entity.TestTwo;
 import org.structr.core.entity.Principal;
 import org.structr.core.function.DateFormatFunction;
 import org.structr.core.function.FindFunction;
+import org.structr.core.function.Functions;
 import org.structr.core.function.NumberFormatFunction;
 import org.structr.core.function.ParseDateFunction;
 import org.structr.core.function.RoundFunction;
@@ -2485,4 +2486,53 @@ public class ScriptingTest extends StructrTest {
 			fail("Unexpected exception.");
 		}
 	}
+
+	@Test
+	public void testCachedExpressions() {
+
+		try (final Tx tx = app.tx()) {
+
+			final TestOne test1     = app.create(TestOne.class, "test1");
+			final TestOne test2     = app.create(TestOne.class, "test2");
+			final ActionContext ctx = new ActionContext(securityContext, null);
+
+			// the same expression must yield entity-specific results when its parsed tree is reused
+			assertEquals("Cached expression should be evaluated against the current entity", "test1", Scripting.replaceVariables(ctx, test1, "${this.name}"));
+			assertEquals("Cached expression should be evaluated against the current entity", "test2", Scripting.replaceVariables(ctx, test2, "${this.name}"));
+			assertEquals("Cached expression should be evaluated against the current entity", "test1", Scripting.replaceVariables(ctx, test1, "${this.name}"));
+
+			assertTrue("Parsed expression trees should be reused", Functions.parse("concat(this.name, 'x')") == Functions.parse("concat(this.name, 'x')"));
+
+			Functions.clearExpressionCache();
+
+			assertEquals("Expression should be parsed again after clearing the cache", "test2x", Scripting.replaceVariables(ctx, test2, "${concat(this.name, 'x')}"));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+
+	@Test
+	public void testSharedJavascriptScope() {
+
+		try (final Tx tx = app.tx()) {
+
+			final ActionContext ctx = new ActionContext(securityContext, null);
+
+			assertEquals("Standard objects should be available in the shared scope", "[1,2]", Scripting.evaluate(ctx, null, "${{ return JSON.stringify([1, 2]); }}", "test"));
+			assertEquals("Global variables should be visible in the same evaluation", "number", Scripting.evaluate(ctx, null, "${{ leaked = 1; return typeof leaked; }}", "test"));
+			assertEquals("Global variables should not leak into other evaluations", "undefined", Scripting.evaluate(ctx, null, "${{ return typeof leaked; }}", "test"));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
 }
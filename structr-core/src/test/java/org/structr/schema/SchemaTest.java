@@ -20,31 +20,48 @@ package org.structr.schema;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.commons.lang.StringUtils;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
+import org.structr.common.AccessMode;
+import org.structr.common.Permission;
 import org.structr.common.PropertyView;
+import org.structr.common.SecurityContext;
 import org.structr.common.StructrTest;
+import org.structr.common.error.ErrorBuffer;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
+import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
+import org.structr.core.entity.Principal;
 import org.structr.core.entity.Relation;
 import org.structr.core.entity.Relation.Cardinality;
 import org.structr.core.entity.SchemaMethod;
 import org.structr.core.entity.SchemaNode;
 import org.structr.core.entity.SchemaRelationshipNode;
+import org.structr.core.entity.SchemaRelationshipNode.Direction;
+import org.structr.core.entity.SchemaRelationshipNode.Propagation;
 import org.structr.core.entity.SchemaView;
+import org.structr.core.entity.SixOneManyToMany;
 import org.structr.core.graph.NodeAttribute;
 import org.structr.core.graph.NodeInterface;
 import org.structr.core.graph.Tx;
@@ -676,7 +693,339 @@ public class SchemaTest extends StructrTest {
 		}
 	}
 
+	@Test
+	public void testIncrementalCompilation() {
+
+		try (final Tx tx = app.tx()) {
+
+			final JsonSchema schema   = StructrSchema.createFromDatabase(app);
+			final JsonObjectType base = schema.addType("Base");
+
+			schema.addType("Derived").setExtends(base);
+			schema.addType("Other");
+
+			// add new types
+			StructrSchema.extendDatabaseSchema(app, schema);
+
+			tx.success();
+
+		} catch (Throwable fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		final Class base1    = StructrApp.getConfiguration().getNodeEntityClass("Base");
+		final Class derived1 = StructrApp.getConfiguration().getNodeEntityClass("Derived");
+		final Class other1   = StructrApp.getConfiguration().getNodeEntityClass("Other");
+
+		try (final Tx tx = app.tx()) {
+
+			final JsonSchema schema = StructrSchema.createFromDatabase(app);
+
+			schema.getType("Base").addStringProperty("test", PropertyView.Public);
+
+			StructrSchema.extendDatabaseSchema(app, schema);
+
+			tx.success();
+
+		} catch (Throwable fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		final Class base2    = StructrApp.getConfiguration().getNodeEntityClass("Base");
+		final Class derived2 = StructrApp.getConfiguration().getNodeEntityClass("Derived");
+		final Class other2   = StructrApp.getConfiguration().getNodeEntityClass("Other");
+
+		assertFalse("Changed type was not compiled again", base1.equals(base2));
+		assertFalse("Dependent type was not compiled again", derived1.equals(derived2));
+		assertEquals("Unchanged type was compiled again", other1, other2);
+		assertEquals("Dependent type has invalid superclass", base2, derived2.getSuperclass());
+		assertNotNull("Property of changed type was not registered", StructrApp.getConfiguration().getPropertyKeyForJSONName(derived2, "test", false));
+	}
+
+	@Test
+	public void testClassFileCache() {
+
+		final File cacheDirectory = new File(Settings.getBasePath() + "schema-cache");
+
+		try (final Tx tx = app.tx()) {
+
+			final JsonSchema schema   = StructrSchema.createFromDatabase(app);
+			final JsonObjectType base = schema.addType("CachedBase");
+
+			schema.addType("CachedDerived").setExtends(base);
+			schema.addType("CachedOther");
+
+			StructrSchema.extendDatabaseSchema(app, schema);
+
+			tx.success();
+
+		} catch (Throwable fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			app.create(SchemaMethod.class,
+				new NodeAttribute<>(SchemaMethod.schemaNode, app.nodeQuery(SchemaNode.class).andName("CachedBase").getFirst()),
+				new NodeAttribute<>(SchemaMethod.name,       "getVersion"),
+				new NodeAttribute<>(SchemaMethod.source,     "return \"one\";"),
+				new NodeAttribute<>(SchemaMethod.codeType,   "java")
+			);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			app.create(StructrApp.getConfiguration().getNodeEntityClass("CachedDerived"), "test");
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		try {
+
+			// full compilation with cache, like a restart
+			Settings.SchemaIncremental.setValue(false);
+
+			assertTrue("Schema reload failed", SchemaService.reloadSchema(new ErrorBuffer(), null));
+
+			final Set<String> keys1 = getCacheKeys(cacheDirectory);
+
+			assertFalse("Class file cache was not written", keys1.isEmpty());
+
+			assertTrue("Schema reload failed", SchemaService.reloadSchema(new ErrorBuffer(), null));
+
+			assertEquals("Unchanged schema must not produce new cache keys", keys1, getCacheKeys(cacheDirectory));
+
+			try (final Tx tx = app.tx()) {
+
+				final Object result = Actions.execute(securityContext, null, "${first(find('CachedDerived')).getVersion}", "test");
+
+				assertEquals("Invalid Java schema method result", "one", result);
+
+				tx.success();
+			}
+
+			try (final Tx tx = app.tx()) {
+
+				final SchemaNode schemaNode = app.nodeQuery(SchemaNode.class).andName("CachedBase").getFirst();
+				final SchemaMethod method   = app.nodeQuery(SchemaMethod.class).and(SchemaMethod.schemaNode, schemaNode).andName("getVersion").getFirst();
+
+				method.setProperty(SchemaMethod.source, "return \"two\";");
+
+				tx.success();
+			}
+
+			final Set<String> keys2   = getCacheKeys(cacheDirectory);
+			final Set<String> added   = new HashSet<>(keys2);
+			final Set<String> removed = new HashSet<>(keys1);
+			final Set<String> kept    = new HashSet<>(keys1);
+
+			added.removeAll(keys1);
+			removed.removeAll(keys2);
+			kept.retainAll(keys2);
+
+			// changed type and dependent type
+			assertTrue("Changed types must produce new cache keys", added.size() >= 2);
+			assertEquals("Outdated cache entries were not removed", added.size(), removed.size());
+			assertFalse("Unchanged types must keep their cache keys", kept.isEmpty());
+
+			try (final Tx tx = app.tx()) {
+
+				final Object result = Actions.execute(securityContext, null, "${first(find('CachedDerived')).getVersion}", "test");
+
+				assertEquals("Stale byte code was loaded from class file cache", "two", result);
+
+				tx.success();
+			}
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception");
+
+		} finally {
+
+			Settings.SchemaIncremental.setValue(true);
+		}
+	}
+
+	@Test
+	public void testPermissionPropagationAfterUnrelatedSchemaChange() {
+
+		Principal user = null;
+
+		try (final Tx tx = app.tx()) {
+
+			final SchemaNode source = app.create(SchemaNode.class, "PropagationSource");
+			final SchemaNode target = app.create(SchemaNode.class, "PropagationTarget");
+
+			app.create(SchemaNode.class, "PropagationUnrelated");
+
+			app.create(SchemaRelationshipNode.class,
+				new NodeAttribute<>(SchemaRelationshipNode.sourceNode, source),
+				new NodeAttribute<>(SchemaRelationshipNode.targetNode, target),
+				new NodeAttribute<>(SchemaRelationshipNode.relationshipType, "PROPAGATES"),
+				new NodeAttribute<>(SchemaRelationshipNode.sourceMultiplicity, "1"),
+				new NodeAttribute<>(SchemaRelationshipNode.targetMultiplicity, "1"),
+				new NodeAttribute<>(SchemaRelationshipNode.sourceJsonName, "source"),
+				new NodeAttribute<>(SchemaRelationshipNode.targetJsonName, "target"),
+				new NodeAttribute<>(SchemaRelationshipNode.permissionPropagation, Direction.Out),
+				new NodeAttribute<>(SchemaRelationshipNode.readPropagation, Propagation.Add)
+			);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		final Class sourceType = StructrApp.getConfiguration().getNodeEntityClass("PropagationSource");
+		final Class targetType = StructrApp.getConfiguration().getNodeEntityClass("PropagationTarget");
+
+		try (final Tx tx = app.tx()) {
+
+			final NodeInterface source = app.create(sourceType, "source");
+			final NodeInterface target = app.create(targetType, "target");
+
+			source.setProperty(StructrApp.key(sourceType, "target"), target);
+
+			user = app.create(Principal.class, "user");
+
+			source.grant(Permission.read, user);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		final App userApp = StructrApp.getInstance(SecurityContext.getInstance(user, AccessMode.Backend));
+
+		try (final Tx tx = userApp.tx()) {
+
+			assertNotNull("User should be able to find target through permission propagation", userApp.nodeQuery(targetType).getFirst());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		// change a type that is not related to the propagating relationship
+		try (final Tx tx = app.tx()) {
+
+			final JsonSchema schema = StructrSchema.createFromDatabase(app);
+
+			schema.getType("PropagationUnrelated").addStringProperty("test", PropertyView.Public);
+
+			StructrSchema.extendDatabaseSchema(app, schema);
+
+			tx.success();
+
+		} catch (Throwable fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		assertFalse("Propagating relationship type was dropped from registry", SchemaRelationshipNode.getPropagatingRelationshipTypes().isEmpty());
+
+		try (final Tx tx = userApp.tx()) {
+
+			assertNotNull("User should still be able to find target through permission propagation", userApp.nodeQuery(targetType).getFirst());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	public void testSchemaUpdateIsolation() {
+
+		final ConfigurationProvider config = StructrApp.getConfiguration();
+		final Set<Class> original          = new HashSet<>(config.getPropagatingRelationshipTypes());
+		final ExecutorService reader       = Executors.newSingleThreadExecutor();
+		final Class relType                = SixOneManyToMany.class;
+		final Class lazyType               = ConcurrentSkipListSet.class;
+
+		try {
+
+			config.beginSchemaUpdate();
+
+			try {
+
+				config.registerPropagatingRelationshipType(relType);
+
+				assertTrue("Schema update should be visible to the updating thread", config.getPropagatingRelationshipTypes().contains(relType));
+				assertFalse("Schema update should not be visible to other threads", reader.submit(() -> config.getPropagatingRelationshipTypes().contains(relType)).get());
+
+				// lazy cache fill in another thread during the update
+				final Set<Class> interfaces = reader.submit(() -> config.getInterfacesForType(lazyType)).get();
+
+				config.commitSchemaUpdate();
+
+				assertTrue("Committed schema update should be visible to other threads", reader.submit(() -> config.getPropagatingRelationshipTypes().contains(relType)).get());
+				assertSame("Lazy cache fill should survive the schema update", interfaces, reader.submit(() -> config.getInterfacesForType(lazyType)).get());
+
+			} finally {
+
+				config.rollbackSchemaUpdate();
+			}
+
+		} catch (InterruptedException | ExecutionException ex) {
+
+			logger.warn("", ex);
+			fail("Unexpected exception.");
+
+		} finally {
+
+			reader.shutdown();
+
+			// restore original registry
+			config.clearPropagatingRelationshipTypes();
+
+			for (final Class type : original) {
+				config.registerPropagatingRelationshipType(type);
+			}
+		}
+	}
+
 	// ----- private methods -----
+	private Set<String> getCacheKeys(final File directory) {
+
+		final Set<String> keys = new HashSet<>();
+		final String[] names   = directory.list();
+
+		if (names != null) {
+
+			for (final String name : names) {
+
+				if (!name.endsWith(".tmp")) {
+					keys.add(name);
+				}
+			}
+		}
+
+		return keys;
+	}
+
 	private void checkSchemaString(final String source) {
 
 		System.out.println("########################################## checking");
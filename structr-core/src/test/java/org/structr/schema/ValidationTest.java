@@ -976,6 +976,65 @@ public class ValidationTest extends StructrTest {
 		}
 	}
 
+	@Test
+	public void testBatchedStringPropertyUniqueness() {
+
+		final String keyName                = "unique";
+		final Class<NodeInterface> testType = createTypeWithProperty("Test", keyName, "String!");
+		final PropertyKey key               = StructrApp.key(testType, keyName);
+
+		if (key != null) {
+
+			// distinct values in a single transaction
+			try (final Tx tx = app.tx()) {
+
+				for (int i=0; i<100; i++) {
+					app.create(testType, new NodeAttribute<>(key, "value" + i));
+				}
+
+				tx.success();
+
+			} catch (FrameworkException fex) {
+				logger.warn("", fex);
+				fail("Unexpected exception.");
+			}
+
+			// existing value among new values
+			try (final Tx tx = app.tx()) {
+
+				for (int i=0; i<10; i++) {
+					app.create(testType, new NodeAttribute<>(key, "new" + i));
+				}
+
+				app.create(testType, new NodeAttribute<>(key, "value42"));
+
+				tx.success();
+
+				fail("String property uniqueness constraint violated!");
+
+			} catch (FrameworkException fex) {
+
+				checkException(fex, 1, 422, "Test", keyName, "already_taken");
+			}
+
+			// duplicate values in the same transaction
+			try (final Tx tx = app.tx()) {
+
+				app.create(testType, new NodeAttribute<>(key, "duplicate"));
+				app.create(testType, new NodeAttribute<>(key, "duplicate"));
+				app.create(testType, new NodeAttribute<>(key, "other"));
+
+				tx.success();
+
+				fail("String property uniqueness constraint violated!");
+
+			} catch (FrameworkException fex) {
+
+				checkException(fex, 1, 422, "Test", keyName, "already_taken");
+			}
+		}
+	}
+
 	@Test
 	public void testStringPropertyNotNull() {
 
@@ -18,11 +18,14 @@
  */
 package org.structr.api;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.structr.api.graph.GraphProperties;
 import org.structr.api.graph.Node;
 import org.structr.api.graph.Relationship;
+import org.structr.api.graph.RelationshipType;
 import org.structr.api.index.Index;
 
 /**
@@ -46,6 +49,46 @@ public interface DatabaseService {
 
 	Node createNode(final Set<String> labels, final Map<String, Object> properties);
 
+	/**
+	 * Creates one node with the given labels for each of the given
+	 * property maps in a single database operation. The returned
+	 * list contains the new nodes in the order of the input list.
+	 *
+	 * @param labels the labels of the new nodes
+	 * @param properties the properties of the new nodes
+	 *
+	 * @return the new nodes
+	 */
+	List<Node> createNodes(final Set<String> labels, final List<Map<String, Object>> properties);
+
+	/**
+	 * Creates one relationship of the given type for each index of the
+	 * given lists in a single database operation. All lists must have
+	 * the same size. The returned list contains the new relationships
+	 * in the order of the input lists.
+	 *
+	 * @param sourceNodes the start nodes of the new relationships
+	 * @param targetNodes the end nodes of the new relationships
+	 * @param relationshipType the type of the new relationships
+	 * @param properties the properties of the new relationships
+	 *
+	 * @return the new relationships
+	 */
+	List<Relationship> createRelationships(final List<Node> sourceNodes, final List<Node> targetNodes, final RelationshipType relationshipType, final List<Map<String, Object>> properties);
+
+	/**
+	 * Loads the outgoing and incoming relationships of the given types of
+	 * all given nodes, and the nodes at their other ends, in a single query,
+	 * so that subsequent calls to {@link Node#getRelationships(org.structr.api.graph.Direction, RelationshipType)}
+	 * for these types and directions are answered from the cache. Only the
+	 * given directions are loaded.
+	 *
+	 * @param nodes
+	 * @param outgoingTypes the types of the outgoing relationships to load
+	 * @param incomingTypes the types of the incoming relationships to load
+	 */
+	void prefetchRelationships(final Collection<Node> nodes, final Set<RelationshipType> outgoingTypes, final Set<RelationshipType> incomingTypes);
+
 	Node getNodeById(final long id);
 	Relationship getRelationshipById(final long id);
 
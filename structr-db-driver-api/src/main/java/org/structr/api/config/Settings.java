@@ -88,6 +88,8 @@ public class Settings {
 	public static final Setting<Boolean> GzipCompression      = new BooleanSetting(serverGroup, "HTTP Settings", "HttpService.gzip.enabled",        true);
 	public static final Setting<Boolean> ForceHttps           = new BooleanSetting(serverGroup, "HTTP Settings", "HttpService.force.https",         false);
 	public static final Setting<Boolean> Async                = new BooleanSetting(serverGroup, "HTTP Settings", "HttpService.async",               true);
+	public static final Setting<Integer> AsyncRenderThreads   = new IntegerSetting(serverGroup, "HTTP Settings", "HttpService.async.threads",       32);
+	public static final Setting<Integer> AsyncTimeout         = new IntegerSetting(serverGroup, "HTTP Settings", "HttpService.async.timeout",       60);
 	public static final Setting<Boolean> JsonIndentation      = new BooleanSetting(serverGroup, "HTTP Settings", "json.indentation",                true);
 	public static final Setting<Boolean> HtmlIndentation      = new BooleanSetting(serverGroup, "HTTP Settings", "html.indentation",                true);
 	public static final Setting<Boolean> WsIndentation        = new BooleanSetting(serverGroup, "HTTP Settings", "ws.indentation",                  true);
@@ -116,6 +118,9 @@ public class Settings {
 	public static final Setting<Integer> NodeCacheSize          = new IntegerSetting(databaseGroup, "Caching",             "database.cache.node.size",         100000);
 	public static final Setting<Integer> UuidCacheSize          = new IntegerSetting(databaseGroup, "Caching",             "database.cache.uuid.size",         100000);
 	public static final Setting<Integer> QueryCacheSize         = new IntegerSetting(databaseGroup, "Caching",             "database.cache.query.size",        1000);
+	public static final Setting<Integer> PermissionCacheSize    = new IntegerSetting(databaseGroup, "Caching",             "database.cache.permission.size",   100000);
+	public static final Setting<Integer> AccessPathCacheSize    = new IntegerSetting(databaseGroup, "Caching",             "database.cache.accesspath.size",   100000);
+	public static final Setting<Integer> ExpressionCacheSize    = new IntegerSetting(databaseGroup, "Caching",             "database.cache.expression.size",   10000);
 	public static final Setting<Boolean> CypherDebugLogging     = new BooleanSetting(databaseGroup, "Debugging",           "log.cypher.debug",                 false, "Turns on debug logging for the generated Cypher queries");
 	public static final Setting<Boolean> CypherDebugLoggingPing = new BooleanSetting(databaseGroup, "Debugging",           "log.cypher.debug.ping",            false, "Turns on debug logging for the generated Cypher queries of the websocket PING command. Can only be used in conjunction with log.cypher.debug");
 	public static final Setting<Boolean> SyncDebugging          = new BooleanSetting(databaseGroup, "Sync debugging",      "sync.debug",                       false);
@@ -137,6 +142,10 @@ public class Settings {
 	public static final Setting<String> HttpProxyUser         = new StringSetting(applicationGroup,  "Proxy",      "application.proxy.http.username",             "");
 	public static final Setting<String> HttpProxyPassword     = new StringSetting(applicationGroup,  "Proxy",      "application.proxy.http.password",             "");
 	public static final Setting<Boolean> SchemAutoMigration   = new BooleanSetting(applicationGroup, "Schema",     "application.schema.automigration",            false);
+	public static final Setting<Boolean> SchemaIncremental    = new BooleanSetting(applicationGroup, "Schema",     "application.schema.incremental",              true);
+	public static final Setting<Boolean> SchemaCache          = new BooleanSetting(applicationGroup, "Schema",     "application.schema.cache",                    true);
+	public static final Setting<Integer> AgentWorkers         = new IntegerSetting(applicationGroup, "Agents",     "application.agents.workers",                  2);
+	public static final Setting<Boolean> AgentPersistentQueue = new BooleanSetting(applicationGroup, "Agents",     "application.agents.queue.persistent",         false);
 
 	// mail settings
 	public static final Setting<String> SmtpHost              = new StringSetting(smtpGroup,  "SMTP Settings", "smtp.host",         "localhost");
@@ -184,6 +193,12 @@ public class Settings {
 	public static final Setting<Boolean> HtmlUserAutologin        = new BooleanSetting(servletsGroup, "HtmlServlet", "HtmlServlet.user.autologin",        false);
 	public static final Setting<Boolean> HtmlUserAutocreate       = new BooleanSetting(servletsGroup, "HtmlServlet", "HtmlServlet.user.autocreate",       true);
 	public static final Setting<String> HtmlResolveProperties     = new StringSetting(servletsGroup,  "HtmlServlet", "HtmlServlet.resolveProperties",     "AbstractNode.name");
+	public static final Setting<Integer> HtmlPageCacheSize        = new IntegerSetting(servletsGroup, "HtmlServlet", "HtmlServlet.pagecache.size",        1000);
+	public static final Setting<Integer> HtmlRenderPlanCacheSize  = new IntegerSetting(servletsGroup, "HtmlServlet", "HtmlServlet.renderplancache.size",  10000);
+	// data source results are cached per user, request URL and render context; request headers, cookies and session
+	// attributes are not part of the key (scripts using them are not cached), and cache hits skip script side effects
+	public static final Setting<Integer> HtmlDataSourceCacheSize  = new IntegerSetting(servletsGroup, "HtmlServlet", "HtmlServlet.datasourcecache.size",  1000);
+	public static final Setting<Integer> HtmlDataSourceCacheTime  = new IntegerSetting(servletsGroup, "HtmlServlet", "HtmlServlet.datasourcecache.ttl",   0);
 	public static final Setting<String> HtmlCustomResponseHeaders = new TextSetting(servletsGroup,    "HtmlServlet", "HtmlServlet.customResponseHeaders", "Strict-Transport-Security:max-age=60,X-Content-Type-Options:nosniff,X-Frame-Options:SAMEORIGIN,X-XSS-Protection:1;mode=block");
 
 	public static final Setting<String> WebsocketServletPath       = new StringSetting(servletsGroup,  "WebSocketServlet", "WebSocketServlet.path",              "/structr/ws/*");
@@ -195,6 +210,9 @@ public class Settings {
 	public static final Setting<Boolean> WebsocketUserAutologin    = new BooleanSetting(servletsGroup, "WebSocketServlet", "WebSocketServlet.user.autologin",    false);
 	public static final Setting<Boolean> WebsocketUserAutocreate   = new BooleanSetting(servletsGroup, "WebSocketServlet", "WebSocketServlet.user.autocreate",   false);
 	public static final Setting<Boolean> WebsocketFrontendAccess   = new BooleanSetting(servletsGroup, "WebSocketServlet", "WebSocketServlet.frontendAccess",    false);
+	public static final Setting<Integer> WebsocketSendQueueSize    = new IntegerSetting(servletsGroup, "WebSocketServlet", "WebSocketServlet.sendqueue.size",    1000);
+	public static final Setting<Integer> WebsocketSenderThreads    = new IntegerSetting(servletsGroup, "WebSocketServlet", "WebSocketServlet.sender.threads",    4);
+	public static final Setting<Integer> WebsocketNotifyLimit      = new IntegerSetting(servletsGroup, "WebSocketServlet", "WebSocketServlet.notification.limit", 1000);
 
 	public static final Setting<String> CsvServletPath       = new StringSetting(servletsGroup,  "CsvServlet", "CsvServlet.path",              "/structr/csv/*");
 	public static final Setting<String> CsvServletClass      = new StringSetting(servletsGroup,  "CsvServlet", "CsvServlet.class",             "org.structr.rest.servlet.CsvServlet");
@@ -222,6 +240,7 @@ public class Settings {
 	public static final Setting<String> GraphQLServletClass      = new StringSetting(servletsGroup,  "GraphQLServlet", "GraphQLServlet.class",                 "org.structr.rest.servlet.GraphQLServlet");
 	public static final Setting<String> GraphQLAuthenticator     = new StringSetting(servletsGroup,  "GraphQLServlet", "GraphQLServlet.authenticator",         "org.structr.web.auth.UiAuthenticator");
 	public static final Setting<String> GraphQLResourceProvider  = new StringSetting(servletsGroup,  "GraphQLServlet", "GraphQLServlet.resourceprovider",      "org.structr.web.common.UiResourceProvider");
+	public static final Setting<Boolean> GraphQLPrefetch         = new BooleanSetting(servletsGroup, "GraphQLServlet", "GraphQLServlet.prefetch",              true);
 
 	public static final Setting<String> DeploymentServletPath                = new StringSetting(servletsGroup,  "DeploymentServlet", "DeploymentServlet.path",                      "/structr/deploy");
 	public static final Setting<String> DeploymentServletClass               = new StringSetting(servletsGroup,  "DeploymentServlet", "DeploymentServlet.class",                     "org.structr.web.servlet.DeploymentServlet");
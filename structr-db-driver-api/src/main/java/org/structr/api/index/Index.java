@@ -33,4 +33,5 @@ public interface Index<T> {
 	void remove(final T t, final String key);
 
 	QueryResult<T> query(final QueryContext context, final QueryPredicate predicate);
+	long count(final QueryContext context, final QueryPredicate predicate);
 }
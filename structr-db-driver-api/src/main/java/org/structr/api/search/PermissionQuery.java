@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.api.search;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Query predicate that restricts the result to the objects a set of
+ * principals is allowed to access, based on visibility flags, ownership
+ * and security relationships.
+ */
+public interface PermissionQuery extends QueryPredicate {
+
+	Set<Long> getPrincipalIds();
+	List<String> getVisibilityKeys();
+
+	String getOwnershipType();
+	String getSecurityType();
+	String getPermissionKey();
+	String getPermission();
+}
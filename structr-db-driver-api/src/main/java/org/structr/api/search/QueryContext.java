@@ -29,9 +29,28 @@ public class QueryContext {
 
 	private boolean isPing = false;
 
+	private boolean keysetPaging = false;
+	private boolean hasCursor    = false;
+	private Object cursorValue   = null;
+	private String cursorId      = null;
+
 	public QueryContext() {
 	}
 
+	/**
+	 * Creates a copy of the given context, without the slice.
+	 *
+	 * @param source
+	 */
+	public QueryContext(final QueryContext source) {
+
+		this.isPing       = source.isPing;
+		this.keysetPaging = source.keysetPaging;
+		this.hasCursor    = source.hasCursor;
+		this.cursorValue  = source.cursorValue;
+		this.cursorId     = source.cursorId;
+	}
+
 	public QueryContext slice(final int from, final int to) {
 
 		sliced = true;
@@ -62,4 +81,51 @@ public class QueryContext {
 		return this.isPing;
 	}
 
+	/**
+	 * Enables keyset paging, i.e. the result is ordered by the sort key
+	 * and the id, and starts after the cursor position if one is set.
+	 *
+	 * @return this context
+	 */
+	public QueryContext keysetPaging() {
+
+		this.keysetPaging = true;
+		return this;
+	}
+
+	/**
+	 * Enables keyset paging and restricts the result to the objects that
+	 * come after the object with the given sort value and id.
+	 *
+	 * @param sortValue the database value of the sort key of the last object
+	 * @param id the id of the last object
+	 *
+	 * @return this context
+	 */
+	public QueryContext after(final Object sortValue, final String id) {
+
+		this.keysetPaging = true;
+		this.hasCursor    = true;
+		this.cursorValue  = sortValue;
+		this.cursorId     = id;
+
+		return this;
+	}
+
+	public boolean isKeysetPaging() {
+		return keysetPaging;
+	}
+
+	public boolean hasCursor() {
+		return hasCursor;
+	}
+
+	public Object getCursorValue() {
+		return cursorValue;
+	}
+
+	public String getCursorId() {
+		return cursorId;
+	}
+
 }
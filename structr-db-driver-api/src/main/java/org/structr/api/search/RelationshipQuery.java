@@ -20,4 +20,11 @@ package org.structr.api.search;
 
 public interface RelationshipQuery extends QueryPredicate {
 
+	/**
+	 * Returns the name of the flag that must be set on both the start
+	 * and the end node of a relationship, or null.
+	 *
+	 * @return the name of the node visibility flag or null
+	 */
+	String getNodeVisibilityKey();
 }
@@ -18,8 +18,7 @@
  */
 package org.structr.api.util;
 
-import java.util.Collections;
-import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.commons.collections4.map.LRUMap;
 
 /**
@@ -28,55 +27,214 @@ import org.apache.commons.collections4.map.LRUMap;
  * a new entry causes the map to exceed the specified maximum
  * size.
  *
+ * Large caches are split into independently locked segments so
+ * that concurrent threads do not contend on a single monitor. The
+ * least recently used entry is evicted per segment, so for large
+ * caches the eviction order is approximate. Eviction callbacks of
+ * {@link Cachable} values are called outside of any lock.
+ *
  * @param <K>
  * @param <V>
  */
 public class FixedSizeCache<K, V> {
 
-	private Map<K, V> cache  = null;
+	private static final int MAX_SEGMENTS     = 64;
+	private static final int MIN_SEGMENT_SIZE = 1024;
+
+	private final LongAdder evictions           = new LongAdder();
+	private final LongAdder misses              = new LongAdder();
+	private final LongAdder hits                = new LongAdder();
+	private InvalidatingLRUMap<K, V>[] segments = null;
+	private int mask                            = 0;
 
 	public FixedSizeCache(final int maxSize) {
-		this.cache   = Collections.synchronizedMap(new InvalidatingLRUMap<>(maxSize));
+
+		int count = 1;
+
+		// use the largest power of two that keeps segments reasonably large
+		while (count < MAX_SEGMENTS && (count * 2) * MIN_SEGMENT_SIZE <= maxSize) {
+			count *= 2;
+		}
+
+		this.segments = new InvalidatingLRUMap[count];
+		this.mask     = count - 1;
+
+		for (int i=0; i<count; i++) {
+
+			// distribute remainder so that the sum of all segment sizes equals maxSize
+			final int segmentSize = (maxSize / count) + (i < (maxSize % count) ? 1 : 0);
+
+			segments[i] = new InvalidatingLRUMap<>(Math.max(1, segmentSize));
+		}
+	}
+
+	public void put(final K key, final V value) {
+
+		final InvalidatingLRUMap<K, V> segment = segmentFor(key);
+		V evicted                              = null;
+
+		synchronized (segment) {
+
+			segment.put(key, value);
+			evicted = segment.getAndResetEvicted();
+		}
+
+		if (evicted != null) {
+
+			onEvict(evicted);
+		}
+	}
+
+	/**
+	 * Stores the given value if no value is stored for the given key,
+	 * and returns the value that is stored for the given key afterwards.
+	 *
+	 * @param key
+	 * @param value
+	 * @return the existing value, or the given value if none existed
+	 */
+	public V putIfAbsent(final K key, final V value) {
+
+		final InvalidatingLRUMap<K, V> segment = segmentFor(key);
+		V existing                             = null;
+		V evicted                              = null;
+
+		synchronized (segment) {
+
+			existing = segment.get(key);
+			if (existing == null) {
+
+				segment.put(key, value);
+				evicted = segment.getAndResetEvicted();
+			}
+		}
+
+		if (evicted != null) {
+
+			onEvict(evicted);
+		}
+
+		return existing != null ? existing : value;
+	}
+
+	public V get(final K key) {
+
+		final InvalidatingLRUMap<K, V> segment = segmentFor(key);
+		V value                                = null;
+
+		synchronized (segment) {
+			value = segment.get(key);
+		}
+
+		if (value != null) {
+
+			hits.increment();
+
+		} else {
+
+			misses.increment();
+		}
+
+		return value;
 	}
 
-	public synchronized void put(final K key, final V value) {
-		cache.put(key, value);
+	/**
+	 * Removes the value for the given key without affecting the hit
+	 * and miss counts.
+	 *
+	 * @param key
+	 * @return the removed value or null
+	 */
+	public V remove(final K key) {
+
+		final InvalidatingLRUMap<K, V> segment = segmentFor(key);
+
+		synchronized (segment) {
+			return segment.remove(key);
+		}
 	}
 
-	public synchronized V get(final K key) {
-		return cache.get(key);
+	public void clear() {
+
+		for (final InvalidatingLRUMap<K, V> segment : segments) {
+
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
 	}
 
-	public synchronized void remove(final K key) {
-		cache.remove(key);
+	public int size() {
+
+		int size = 0;
+
+		for (final InvalidatingLRUMap<K, V> segment : segments) {
+
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+
+		return size;
 	}
 
-	public synchronized void clear() {
-		cache.clear();
+	public boolean isEmpty() {
+		return size() == 0;
 	}
 
-	public synchronized int size() {
-		return cache.size();
+	public long getHitCount() {
+		return hits.sum();
 	}
 
-	public synchronized boolean isEmpty() {
-		return cache.isEmpty();
+	public long getMissCount() {
+		return misses.sum();
 	}
 
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	// ----- private methods -----
+	private InvalidatingLRUMap<K, V> segmentFor(final K key) {
+
+		final int h = key != null ? key.hashCode() : 0;
+
+		// spread higher bits so that sequential keys are distributed evenly
+		return segments[(h ^ (h >>> 16)) & mask];
+	}
+
+	private void onEvict(final V value) {
+
+		evictions.increment();
+
+		if (value instanceof Cachable) {
+
+			((Cachable)value).onRemoveFromCache();
+		}
+	}
+
+	// ----- nested classes -----
 	private static class InvalidatingLRUMap<K, V> extends LRUMap<K, V> {
 
+		private V evicted = null;
+
 		public InvalidatingLRUMap(final int maxSize) {
 			super(maxSize, true);
 		}
 
+		public V getAndResetEvicted() {
+
+			final V value = evicted;
+			evicted = null;
+
+			return value;
+		}
+
 		@Override
 		protected boolean removeLRU(final LinkEntry<K, V> entry) {
 
-			final V value = entry.getValue();
-			if (value != null && value instanceof Cachable) {
-
-				((Cachable)value).onRemoveFromCache();
-			}
+			// defer eviction callback until the segment lock is released
+			evicted = entry.getValue();
 
 			return true;
 		}
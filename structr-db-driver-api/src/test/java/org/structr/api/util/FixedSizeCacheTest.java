@@ -18,6 +18,8 @@
  */
 package org.structr.api.util;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Assert;
 
 /**
@@ -56,4 +58,51 @@ public class FixedSizeCacheTest {
 		}
 
 	}
+
+	@org.junit.Test
+	public void testSegmentedFixedSizeCache() {
+
+		final FixedSizeCache<Long, TestCachable> test = new FixedSizeCache<>(10000);
+		final List<TestCachable> values               = new ArrayList<>();
+
+		for (int i=0; i<20000; i++) {
+
+			final TestCachable value = new TestCachable();
+
+			test.put(Long.valueOf(i), value);
+			values.add(value);
+		}
+
+		Assert.assertTrue("Invalid FixedSizeCache size", test.size() <= 10000);
+		Assert.assertEquals("Invalid FixedSizeCache eviction count", 20000 - test.size(), test.getEvictionCount());
+
+		int removed = 0;
+
+		for (final TestCachable value : values) {
+
+			if (value.removed) {
+				removed++;
+			}
+		}
+
+		Assert.assertEquals("Eviction callback was not called for all evicted entries", test.getEvictionCount(), removed);
+
+		// the most recent entry must always be present
+		Assert.assertSame("Invalid FixedSizeCache contents", values.get(19999), test.get(19999L));
+		Assert.assertEquals("Invalid FixedSizeCache hit count", 1, test.getHitCount());
+
+		// putIfAbsent must return the existing value
+		Assert.assertSame("Invalid putIfAbsent result", values.get(19999), test.putIfAbsent(19999L, new TestCachable()));
+	}
+
+	// ----- nested classes -----
+	private static class TestCachable implements Cachable {
+
+		private boolean removed = false;
+
+		@Override
+		public void onRemoveFromCache() {
+			removed = true;
+		}
+	}
 }
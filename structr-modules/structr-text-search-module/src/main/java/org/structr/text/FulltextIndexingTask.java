@@ -19,13 +19,19 @@
 package org.structr.text;
 
 import org.structr.agent.AbstractTask;
+import org.structr.agent.PersistentTask;
 
 /**
  *
  */
-public class FulltextIndexingTask extends AbstractTask<String> {
+public class FulltextIndexingTask extends AbstractTask<String> implements PersistentTask<String> {
 
 	public FulltextIndexingTask(final String indexableId) {
 		super(FulltextIndexingAgent.TASK_NAME, null, indexableId);
 	}
+
+	@Override
+	public String getPersistentState() {
+		return getWorkObjects().get(0);
+	}
 }
@@ -24,9 +24,14 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -36,6 +41,7 @@ import org.neo4j.driver.v1.AuthTokens;
 import org.neo4j.driver.v1.Config;
 import org.neo4j.driver.v1.Driver;
 import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.driver.v1.Record;
 import org.neo4j.driver.v1.Session;
 import org.neo4j.driver.v1.exceptions.ClientException;
 import org.neo4j.driver.v1.exceptions.ServiceUnavailableException;
@@ -53,6 +59,7 @@ import org.structr.api.NotInTransactionException;
 import org.structr.api.QueryResult;
 import org.structr.api.Transaction;
 import org.structr.api.config.Settings;
+import org.structr.api.graph.Direction;
 import org.structr.api.graph.GraphProperties;
 import org.structr.api.graph.Label;
 import org.structr.api.graph.Node;
@@ -246,6 +253,196 @@ public class BoltDatabaseService implements DatabaseService, GraphProperties {
 		return NodeWrapper.newInstance(this, getCurrentTransaction().getNode(buf.toString(), map));
 	}
 
+	@Override
+	public List<Node> createNodes(final Set<String> labels, final List<Map<String, Object>> properties) {
+
+		final StringBuilder buf       = new StringBuilder("UNWIND {rows} AS properties CREATE (n");
+		final Map<String, Object> map = new HashMap<>();
+		final List<Node> nodes        = new ArrayList<>();
+
+		if (properties.isEmpty()) {
+			return nodes;
+		}
+
+		if (tenantId != null) {
+
+			buf.append(":");
+			buf.append(tenantId);
+		}
+
+		for (final String label : labels) {
+
+			buf.append(":");
+			buf.append(label);
+		}
+
+		buf.append(") SET n = properties RETURN n");
+
+		// make properties available to Cypher statement
+		map.put("rows", properties);
+
+		for (final org.neo4j.driver.v1.types.Node node : getCurrentTransaction().getNodes(buf.toString(), map)) {
+			nodes.add(NodeWrapper.newInstance(this, node));
+		}
+
+		return nodes;
+	}
+
+	@Override
+	public List<Relationship> createRelationships(final List<Node> sourceNodes, final List<Node> targetNodes, final RelationshipType relationshipType, final List<Map<String, Object>> properties) {
+
+		final SessionTransaction tx          = getCurrentTransaction();
+		final List<Map<String, Object>> rows = new ArrayList<>();
+		final Set<NodeWrapper> modifiedNodes = new LinkedHashSet<>();
+		final List<Relationship> rels        = new ArrayList<>();
+		final Map<String, Object> map        = new HashMap<>();
+		final StringBuilder buf              = new StringBuilder();
+		final int count                      = sourceNodes.size();
+
+		if (targetNodes.size() != count || properties.size() != count) {
+			throw new IllegalArgumentException("Source nodes, target nodes and properties must have the same size.");
+		}
+
+		if (count == 0) {
+			return rels;
+		}
+
+		for (int i=0; i<count; i++) {
+
+			final NodeWrapper sourceNode  = (NodeWrapper)sourceNodes.get(i);
+			final NodeWrapper targetNode  = (NodeWrapper)targetNodes.get(i);
+			final Map<String, Object> row = new HashMap<>();
+
+			row.put("sourceId",   sourceNode.getId());
+			row.put("targetId",   targetNode.getId());
+			row.put("properties", properties.get(i));
+
+			modifiedNodes.add(sourceNode);
+			modifiedNodes.add(targetNode);
+
+			rows.add(row);
+		}
+
+		buf.append("UNWIND {rows} AS row MATCH (n");
+
+		if (tenantId != null) {
+
+			buf.append(":");
+			buf.append(tenantId);
+		}
+
+		buf.append("), (m");
+
+		if (tenantId != null) {
+
+			buf.append(":");
+			buf.append(tenantId);
+		}
+
+		buf.append(") WHERE ID(n) = row.sourceId AND ID(m) = row.targetId ");
+		buf.append("CREATE (n)-[r:");
+		buf.append(relationshipType.name());
+		buf.append("]->(m)");
+		buf.append(" SET r = row.properties RETURN r");
+
+		map.put("rows", rows);
+
+		for (final org.neo4j.driver.v1.types.Relationship rel : tx.getRelationships(buf.toString(), map)) {
+			rels.add(RelationshipWrapper.newInstance(this, rel));
+		}
+
+		// clear relationship caches of all involved nodes
+		for (final NodeWrapper node : modifiedNodes) {
+
+			node.clearCaches();
+			tx.modified(node);
+		}
+
+		return rels;
+	}
+
+	@Override
+	public void prefetchRelationships(final Collection<Node> nodes, final Set<RelationshipType> outgoingTypes, final Set<RelationshipType> incomingTypes) {
+
+		final Map<Long, NodeWrapper> wrappers        = new LinkedHashMap<>();
+		final Map<String, RelationshipType> outgoing = new LinkedHashMap<>();
+		final Map<String, RelationshipType> incoming = new LinkedHashMap<>();
+
+		for (final RelationshipType type : outgoingTypes) {
+			outgoing.put(type.name(), type);
+		}
+
+		for (final RelationshipType type : incomingTypes) {
+			incoming.put(type.name(), type);
+		}
+
+		// only load relationships that are not cached yet
+		for (final Node node : nodes) {
+
+			final NodeWrapper wrapper = (NodeWrapper)node;
+
+			if (!hasCachedRelationships(wrapper, Direction.OUTGOING, outgoing.values()) || !hasCachedRelationships(wrapper, Direction.INCOMING, incoming.values())) {
+
+				wrappers.put(wrapper.getId(), wrapper);
+			}
+		}
+
+		if (wrappers.isEmpty() || (outgoing.isEmpty() && incoming.isEmpty())) {
+			return;
+		}
+
+		final Map<Long, Map<String, Map<Long, org.neo4j.driver.v1.types.Relationship>>> outgoingResult = new HashMap<>();
+		final Map<Long, Map<String, Map<Long, org.neo4j.driver.v1.types.Relationship>>> incomingResult = new HashMap<>();
+		final SessionTransaction tx                                                                     = getCurrentTransaction();
+		final Map<String, Object> map                                                                   = new HashMap<>();
+		final StringBuilder buf                                                                         = new StringBuilder();
+
+		// one pattern per direction, so that only the requested directions are loaded
+		if (!outgoing.isEmpty()) {
+
+			appendPrefetchPattern(buf, Direction.OUTGOING);
+		}
+
+		if (!incoming.isEmpty()) {
+
+			if (buf.length() > 0) {
+				buf.append(" UNION ALL ");
+			}
+
+			appendPrefetchPattern(buf, Direction.INCOMING);
+		}
+
+		map.put("ids",      new ArrayList<>(wrappers.keySet()));
+		map.put("outgoing", new ArrayList<>(outgoing.keySet()));
+		map.put("incoming", new ArrayList<>(incoming.keySet()));
+
+		try (final QueryResult<Record> records = tx.getRecords(buf.toString(), map)) {
+
+			for (final Record record : records) {
+
+				final long id                                  = record.get(0).asLong();
+				final org.neo4j.driver.v1.types.Relationship r = record.get(1).asRelationship();
+				final boolean isOutgoing                       = record.get(3).asBoolean();
+
+				// make the other node available in the node cache
+				NodeWrapper.newInstance(this, record.get(2).asNode());
+
+				(isOutgoing ? outgoingResult : incomingResult).computeIfAbsent(id, k -> new HashMap<>()).computeIfAbsent(r.type(), k -> new LinkedHashMap<>()).put(r.id(), r);
+			}
+		}
+
+		for (final NodeWrapper wrapper : wrappers.values()) {
+
+			for (final RelationshipType type : outgoing.values()) {
+				wrapper.setCachedRelationships(Direction.OUTGOING, type, getPrefetchedRelationships(outgoingResult, wrapper, type));
+			}
+
+			for (final RelationshipType type : incoming.values()) {
+				wrapper.setCachedRelationships(Direction.INCOMING, type, getPrefetchedRelationships(incomingResult, wrapper, type));
+			}
+		}
+	}
+
 	@Override
 	public Node getNodeById(final long id) {
 		return NodeWrapper.newInstance(this, id);
@@ -527,6 +724,53 @@ public class BoltDatabaseService implements DatabaseService, GraphProperties {
 	}
 
 	// ----- private methods -----
+	private boolean hasCachedRelationships(final NodeWrapper wrapper, final Direction direction, final Collection<RelationshipType> types) {
+
+		for (final RelationshipType type : types) {
+
+			if (!wrapper.hasCachedRelationships(direction, type)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void appendPrefetchPattern(final StringBuilder buf, final Direction direction) {
+
+		final boolean outgoing = Direction.OUTGOING.equals(direction);
+
+		buf.append("UNWIND {ids} AS id MATCH (n");
+
+		if (tenantId != null) {
+			buf.append(":");
+			buf.append(tenantId);
+		}
+
+		buf.append(outgoing ? ")-[r]->(m)" : ")<-[r]-(m)");
+		buf.append(" WHERE ID(n) = id AND type(r) IN ");
+		buf.append(outgoing ? "{outgoing}" : "{incoming}");
+		buf.append(" RETURN id, r, m, ");
+		buf.append(outgoing);
+		buf.append(" AS outgoing");
+	}
+
+	private List<Relationship> getPrefetchedRelationships(final Map<Long, Map<String, Map<Long, org.neo4j.driver.v1.types.Relationship>>> result, final NodeWrapper wrapper, final RelationshipType type) {
+
+		final Map<String, Map<Long, org.neo4j.driver.v1.types.Relationship>> rels = result.get(wrapper.getId());
+		final List<Relationship> list                                             = new ArrayList<>();
+
+		if (rels != null && rels.containsKey(type.name())) {
+
+			for (final org.neo4j.driver.v1.types.Relationship r : rels.get(type.name()).values()) {
+
+				list.add(RelationshipWrapper.newInstance(this, r));
+			}
+		}
+
+		return list;
+	}
+
 	private void createUUIDConstraint() {
 
 		// add UUID uniqueness constraint
@@ -18,10 +18,15 @@
  */
 package org.structr.bolt;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import org.apache.commons.lang.StringUtils;
 import org.neo4j.driver.v1.Record;
@@ -57,13 +62,14 @@ import org.structr.bolt.wrapper.StatementResultWrapper;
  */
 public class SessionTransaction implements org.structr.api.Transaction {
 
-	private final Set<EntityWrapper> modifiedEntities = new HashSet<>();
-	private BoltDatabaseService db                    = null;
-	private Session session                           = null;
-	private Transaction tx                            = null;
-	private boolean closed                            = false;
-	private boolean success                           = false;
-	private boolean isPing                            = false;
+	private final Map<EntityWrapper, Map<String, Object>> pendingWrites = new LinkedHashMap<>();
+	private final Set<EntityWrapper> modifiedEntities                   = new HashSet<>();
+	private BoltDatabaseService db                                      = null;
+	private Session session                                             = null;
+	private Transaction tx                                              = null;
+	private boolean closed                                              = false;
+	private boolean success                                             = false;
+	private boolean isPing                                              = false;
 
 	public SessionTransaction(final BoltDatabaseService db, final Session session) {
 
@@ -80,6 +86,10 @@ public class SessionTransaction implements org.structr.api.Transaction {
 	@Override
 	public void success() {
 
+		// pending property writes must be sent before the transaction
+		// is marked successful, failures will cause a rollback in close()
+		flush();
+
 		tx.success();
 
 		// transaction must be marked successfull explicitely
@@ -91,6 +101,9 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 		if (!success) {
 
+			// discard buffered writes, they will be rolled back anyway
+			pendingWrites.clear();
+
 			// We need to invalidate all existing references because we cannot
 			// be sure that they contain the correct values after a rollback.
 			for (final EntityWrapper entity : modifiedEntities) {
@@ -145,6 +158,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public boolean getBoolean(final String statement) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -165,6 +180,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public boolean getBoolean(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -185,6 +202,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public long getLong(final String statement) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -205,6 +224,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public long getLong(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -225,6 +246,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public Object getObject(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -251,6 +274,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public Entity getEntity(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -271,6 +296,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public Node getNode(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -291,6 +318,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public Relationship getRelationship(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -311,6 +340,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public QueryResult<Node> getNodes(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -331,6 +362,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public QueryResult<Relationship> getRelationships(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -349,8 +382,32 @@ public class SessionTransaction implements org.structr.api.Transaction {
 		}
 	}
 
+	public QueryResult<Record> getRecords(final String statement, final Map<String, Object> map) {
+
+		flush();
+
+		final long t0 = System.currentTimeMillis();
+
+		try {
+
+			return new StatementIterable(tx.run(statement, map));
+
+		} catch (TransientException tex) {
+			closed = true;
+			throw new RetryException(tex);
+		} catch (NoSuchRecordException nex) {
+			throw new NotFoundException(nex);
+		} catch (ServiceUnavailableException ex) {
+			throw new NetworkException(ex.getMessage(), ex);
+		} finally {
+			logQuery(statement, map, t0);
+		}
+	}
+
 	public QueryResult<Long> getIds(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -371,6 +428,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public QueryResult<String> getStrings(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -406,6 +465,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public NativeResult run(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -430,6 +491,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 	public void set(final String statement, final Map<String, Object> map) {
 
+		flush();
+
 		final long t0 = System.currentTimeMillis();
 
 		try {
@@ -486,6 +549,95 @@ public class SessionTransaction implements org.structr.api.Transaction {
 		modifiedEntities.add(wrapper);
 	}
 
+	/**
+	 * Buffers the given property value for the given entity. All pending
+	 * values are written in a single statement per entity type when the
+	 * next query is executed in this transaction, or when the transaction
+	 * is marked successful. A value of null removes the property.
+	 *
+	 * @param wrapper
+	 * @param key
+	 * @param value
+	 */
+	public void setProperty(final EntityWrapper wrapper, final String key, final Object value) {
+		getPendingWrites(wrapper).put(key, value);
+	}
+
+	/**
+	 * Buffers the given property values for the given entity.
+	 *
+	 * @see #setProperty
+	 *
+	 * @param wrapper
+	 * @param values
+	 */
+	public void setProperties(final EntityWrapper wrapper, final Map<String, Object> values) {
+		getPendingWrites(wrapper).putAll(values);
+	}
+
+	/**
+	 * Writes all buffered property values to the database, using one UNWIND
+	 * statement for all nodes and one for all relationships.
+	 */
+	public void flush() {
+
+		if (pendingWrites.isEmpty()) {
+			return;
+		}
+
+		final Map<String, List<Map<String, Object>>> rowsByPrefix = new LinkedHashMap<>();
+
+		for (final Entry<EntityWrapper, Map<String, Object>> entry : pendingWrites.entrySet()) {
+
+			final EntityWrapper wrapper   = entry.getKey();
+			final Map<String, Object> row = new HashMap<>();
+			final String prefix           = wrapper.getQueryPrefix();
+
+			row.put("id",         wrapper.getId());
+			row.put("properties", entry.getValue());
+
+			List<Map<String, Object>> rows = rowsByPrefix.get(prefix);
+			if (rows == null) {
+
+				rows = new ArrayList<>();
+				rowsByPrefix.put(prefix, rows);
+			}
+
+			rows.add(row);
+		}
+
+		// clear buffer before executing the statements so that a failure does not cause repeated writes
+		pendingWrites.clear();
+
+		for (final Entry<String, List<Map<String, Object>>> entry : rowsByPrefix.entrySet()) {
+
+			final String statement        = "UNWIND {rows} AS row " + entry.getKey() + " WHERE ID(n) = row.id SET n += row.properties";
+			final Map<String, Object> map = new HashMap<>();
+			final long t0                 = System.currentTimeMillis();
+
+			map.put("rows", entry.getValue());
+
+			try {
+
+				tx.run(statement, map).consume();
+
+			} catch (TransientException tex) {
+				closed = true;
+				throw new RetryException(tex);
+			} catch (NoSuchRecordException nex) {
+				throw new NotFoundException(nex);
+			} catch (ServiceUnavailableException ex) {
+				throw new NetworkException(ex.getMessage(), ex);
+			} catch (DatabaseException dex) {
+				throw SessionTransaction.translateDatabaseException(dex);
+			} catch (ClientException cex) {
+				throw SessionTransaction.translateClientException(cex);
+			} finally {
+				logQuery(statement, map, t0);
+			}
+		}
+	}
+
 	public void setIsPing(final boolean isPing) {
 		this.isPing = isPing;
 	}
@@ -519,6 +671,19 @@ public class SessionTransaction implements org.structr.api.Transaction {
 		throw dex;
 	}
 
+	// ----- private methods -----
+	private Map<String, Object> getPendingWrites(final EntityWrapper wrapper) {
+
+		Map<String, Object> values = pendingWrites.get(wrapper);
+		if (values == null) {
+
+			values = new LinkedHashMap<>();
+			pendingWrites.put(wrapper, values);
+		}
+
+		return values;
+	}
+
 	// ----- nested classes -----
 	private class StatementIterable implements QueryResult<Record> {
 
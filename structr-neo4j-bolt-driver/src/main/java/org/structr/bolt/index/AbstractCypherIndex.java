@@ -37,6 +37,7 @@ import org.structr.api.search.ExactQuery;
 import org.structr.api.search.FulltextQuery;
 import org.structr.api.search.GroupQuery;
 import org.structr.api.search.NotEmptyQuery;
+import org.structr.api.search.PermissionQuery;
 import org.structr.api.search.QueryContext;
 import org.structr.api.search.QueryPredicate;
 import org.structr.api.search.RangeQuery;
@@ -61,6 +62,7 @@ import org.structr.bolt.index.factory.EmptyQueryFactory;
 import org.structr.bolt.index.factory.GroupQueryFactory;
 import org.structr.bolt.index.factory.KeywordQueryFactory;
 import org.structr.bolt.index.factory.NotEmptyQueryFactory;
+import org.structr.bolt.index.factory.PermissionQueryFactory;
 import org.structr.bolt.index.factory.QueryFactory;
 import org.structr.bolt.index.factory.RangeQueryFactory;
 import org.structr.bolt.index.factory.RelationshipQueryFactory;
@@ -96,6 +98,7 @@ public abstract class AbstractCypherIndex<T extends PropertyContainer> implement
 		FACTORIES.put(TypeQuery.class,         new TypeQueryFactory());
 		FACTORIES.put(UuidQuery.class,         new UuidQueryFactory());
 		FACTORIES.put(RelationshipQuery.class, new RelationshipQueryFactory());
+		FACTORIES.put(PermissionQuery.class,   new PermissionQueryFactory());
 
 		CONVERTERS.put(Boolean.class, new BooleanTypeConverter());
 		CONVERTERS.put(String.class,  new StringTypeConverter());
@@ -117,6 +120,7 @@ public abstract class AbstractCypherIndex<T extends PropertyContainer> implement
 	public abstract QueryResult<T> getResult(final PageableQuery query);
 	public abstract String getQueryPrefix(final String mainType, final String sourceTypeLabel, final String targetTypeLabel);
 	public abstract String getQuerySuffix();
+	public abstract String getTypeCondition(final String typeLabel);
 
 	@Override
 	public void add(final PropertyContainer t, final String key, final Object value, final Class typeHint) {
@@ -162,6 +166,16 @@ public abstract class AbstractCypherIndex<T extends PropertyContainer> implement
 		return getResult(query);
 	}
 
+	@Override
+	public long count(final QueryContext context, final QueryPredicate predicate) {
+
+		final AdvancedCypherQuery query = new AdvancedCypherQuery(context, this);
+
+		createQuery(this, predicate, query, true);
+
+		return db.getCurrentTransaction().getLong(query.getCountStatement(), query.getParameters());
+	}
+
 	// ----- interface QueryFactory -----
 	@Override
 	public boolean createQuery(final QueryFactory parent, final QueryPredicate predicate, final AdvancedCypherQuery query, final boolean isFirst) {
@@ -18,12 +18,14 @@
  */
 package org.structr.bolt.index;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import org.structr.api.search.PermissionQuery;
 import org.structr.api.search.QueryContext;
 import org.structr.api.search.SortType;
 
@@ -32,8 +34,11 @@ import org.structr.api.search.SortType;
  */
 public class AdvancedCypherQuery implements PageableQuery {
 
+	private static final String ID_KEY = "id";
+
 	private final Map<String, Object> parameters = new HashMap<>();
 	private final List<String> typeLabels        = new LinkedList<>();
+	private final List<String> conditions        = new LinkedList<>();
 	private final StringBuilder buffer           = new StringBuilder();
 	private String sourceTypeLabel               = null;
 	private String targetTypeLabel               = null;
@@ -50,6 +55,12 @@ public class AdvancedCypherQuery implements PageableQuery {
 		this.queryContext = queryContext;
 		this.pageSize = 100000;
 		this.index    = index;
+
+		if (queryContext.hasCursor()) {
+
+			parameters.put("cursorValue", queryContext.getCursorValue());
+			parameters.put("cursorId",    queryContext.getCursorId());
+		}
 	}
 
 	@Override
@@ -98,10 +109,7 @@ public class AdvancedCypherQuery implements PageableQuery {
 
 				buf.append(index.getQueryPrefix(null, sourceTypeLabel, targetTypeLabel));
 
-				if (buffer.length() > 0) {
-					buf.append(" WHERE ");
-					buf.append(buffer);
-				}
+				appendWhereClause(buf, null, true);
 
 				buf.append(index.getQuerySuffix());
 				break;
@@ -110,10 +118,7 @@ public class AdvancedCypherQuery implements PageableQuery {
 
 				buf.append(index.getQueryPrefix(typeLabels.get(0), sourceTypeLabel, targetTypeLabel));
 
-				if (buffer.length() > 0) {
-					buf.append(" WHERE ");
-					buf.append(buffer);
-				}
+				appendWhereClause(buf, null, true);
 
 				buf.append(index.getQuerySuffix());
 				break;
@@ -125,10 +130,7 @@ public class AdvancedCypherQuery implements PageableQuery {
 
 					buf.append(index.getQueryPrefix(it.next(), sourceTypeLabel, targetTypeLabel));
 
-					if (buffer.length() > 0) {
-						buf.append(" WHERE ");
-						buf.append(buffer);
-					}
+					appendWhereClause(buf, null, true);
 
 					buf.append(index.getQuerySuffix());
 
@@ -141,31 +143,31 @@ public class AdvancedCypherQuery implements PageableQuery {
 
 		if (sortKey != null) {
 
-			switch (sortType) {
+			buf.append(" ORDER BY ");
+			buf.append(getSortExpression());
 
-				case Default:
-					// default is "String"
-					// no COALESCE needed => much faster
-					buf.append(" ORDER BY n.`");
-					buf.append(sortKey);
-					buf.append("` ");
-
-					break;
+			if (sortDescending) {
+				buf.append(" DESC");
+			}
 
-				default:
-					// other types are numeric
-					buf.append(" ORDER BY COALESCE(n.`");
-					buf.append(sortKey);
-					buf.append("`, ");
+			// keyset paging needs a unique order
+			if (queryContext.isKeysetPaging()) {
 
-					// COALESCE needs a correctly typed minimum value,
-					// so we need to supply a value based on the sort
-					// type.
+				buf.append(", n.`");
+				buf.append(ID_KEY);
+				buf.append("`");
 
-					buf.append("-1");
-					buf.append(")");
+				if (sortDescending) {
+					buf.append(" DESC");
+				}
 			}
 
+		} else if (queryContext.isKeysetPaging()) {
+
+			buf.append(" ORDER BY n.`");
+			buf.append(ID_KEY);
+			buf.append("`");
+
 			if (sortDescending) {
 				buf.append(" DESC");
 			}
@@ -190,6 +192,79 @@ public class AdvancedCypherQuery implements PageableQuery {
 		return buf.toString();
 	}
 
+	/**
+	 * Returns a statement that counts the distinct results of this
+	 * query, without sorting, paging and keyset cursor.
+	 *
+	 * @return the count statement
+	 */
+	public String getCountStatement() {
+
+		final StringBuilder buf = new StringBuilder();
+
+		switch (typeLabels.size()) {
+
+			case 0:
+				buf.append(index.getQueryPrefix(null, sourceTypeLabel, targetTypeLabel));
+				appendWhereClause(buf, null, false);
+				buf.append(" RETURN count(DISTINCT n)");
+				break;
+
+			case 1:
+				buf.append(index.getQueryPrefix(typeLabels.get(0), sourceTypeLabel, targetTypeLabel));
+				appendWhereClause(buf, null, false);
+				buf.append(" RETURN count(DISTINCT n)");
+				break;
+
+			default:
+
+				// a UNION cannot be counted, so count each label separately to
+				// make use of the label scan, and sum up the counts. Objects
+				// with more than one of the labels are counted for the first
+				// one only.
+				final StringBuilder counts = new StringBuilder();
+				final StringBuilder sum    = new StringBuilder();
+				final StringBuilder seen   = new StringBuilder();
+
+				for (int i=0; i<typeLabels.size(); i++) {
+
+					final String typeLabel = typeLabels.get(i);
+					final String countName = "c" + i;
+
+					if (i > 0) {
+
+						// optional, so that an empty part doesn't discard the previous counts
+						buf.append(" OPTIONAL ");
+					}
+
+					buf.append(index.getQueryPrefix(typeLabel, sourceTypeLabel, targetTypeLabel));
+					appendWhereClause(buf, i > 0 ? "NOT (" + seen.toString() + ")" : null, false);
+
+					buf.append(" WITH ");
+					buf.append(counts);
+					buf.append("count(DISTINCT n) AS ");
+					buf.append(countName);
+
+					counts.append(countName);
+					counts.append(", ");
+
+					if (i > 0) {
+						sum.append(" + ");
+						seen.append(" OR ");
+					}
+
+					sum.append(countName);
+					seen.append(index.getTypeCondition(typeLabel));
+				}
+
+				buf.append(" RETURN ");
+				buf.append(sum);
+				break;
+		}
+
+		return buf.toString();
+	}
+
 	@Override
 	public Map<String, Object> getParameters() {
 		return parameters;
@@ -340,6 +415,55 @@ public class AdvancedCypherQuery implements PageableQuery {
 		parameters.put(paramKey2, value2);
 	}
 
+	/**
+	 * Adds a condition that restricts the result to the objects that the
+	 * principals of the given query are allowed to access. The condition
+	 * is not part of the predicate tree, it is always joined with AND.
+	 *
+	 * @param permissionQuery
+	 */
+	public void addPermissionCondition(final PermissionQuery permissionQuery) {
+
+		final String principalsKey = "param" + count++;
+		final String permissionKey = "param" + count++;
+		final StringBuilder buf    = new StringBuilder("(");
+
+		for (final String key : permissionQuery.getVisibilityKeys()) {
+
+			buf.append("n.`");
+			buf.append(key);
+			buf.append("` = true OR ");
+		}
+
+		// the principals themselves
+		buf.append("id(n) IN {");
+		buf.append(principalsKey);
+		buf.append("}");
+
+		// ownership
+		buf.append(" OR size([(principal)-[:");
+		buf.append(permissionQuery.getOwnershipType());
+		buf.append("]->(n) WHERE id(principal) IN {");
+		buf.append(principalsKey);
+		buf.append("} | principal]) > 0");
+
+		// security relationships that grant the permission
+		buf.append(" OR size([(principal)-[security:");
+		buf.append(permissionQuery.getSecurityType());
+		buf.append("]->(n) WHERE id(principal) IN {");
+		buf.append(principalsKey);
+		buf.append("} AND {");
+		buf.append(permissionKey);
+		buf.append("} IN security.`");
+		buf.append(permissionQuery.getPermissionKey());
+		buf.append("` | security]) > 0)");
+
+		parameters.put(principalsKey, new ArrayList<>(permissionQuery.getPrincipalIds()));
+		parameters.put(permissionKey, permissionQuery.getPermission());
+
+		conditions.add(buf.toString());
+	}
+
 	public void sort(final SortType sortType, final String sortKey, final boolean sortDescending) {
 
 		this.sortDescending = sortDescending;
@@ -355,6 +479,127 @@ public class AdvancedCypherQuery implements PageableQuery {
 		this.targetTypeLabel = targetTypeLabel;
 	}
 
+	// ----- private methods -----
+	private void appendWhereClause(final StringBuilder buf, final String typeCondition, final boolean includeCursor) {
+
+		final List<String> parts = new LinkedList<>();
+
+		if (typeCondition != null) {
+			parts.add(typeCondition);
+		}
+
+		parts.addAll(conditions);
+
+		// the total count must not depend on the cursor position
+		if (includeCursor && queryContext.hasCursor()) {
+			parts.add(getCursorCondition());
+		}
+
+		if (buffer.length() > 0) {
+
+			if (parts.isEmpty()) {
+
+				buf.append(" WHERE ");
+				buf.append(buffer);
+				return;
+			}
+
+			parts.add(0, buffer.toString());
+		}
+
+		if (!parts.isEmpty()) {
+
+			buf.append(" WHERE ");
+
+			for (final Iterator<String> it = parts.iterator(); it.hasNext();) {
+
+				buf.append("(");
+				buf.append(it.next());
+				buf.append(")");
+
+				if (it.hasNext()) {
+					buf.append(" AND ");
+				}
+			}
+		}
+	}
+
+	private String getSortExpression() {
+
+		switch (sortType) {
+
+			case Default:
+				// default is "String"
+				// no COALESCE needed => much faster
+				return "n.`" + sortKey + "` ";
+
+			default:
+				// other types are numeric, COALESCE needs a correctly
+				// typed minimum value, so we need to supply a value
+				// based on the sort type.
+				return "COALESCE(n.`" + sortKey + "`, -1)";
+		}
+	}
+
+	/**
+	 * Returns the condition that selects the objects after the cursor
+	 * position, in the order of the ORDER BY clause. Null values are
+	 * sorted last in ascending and first in descending order.
+	 */
+	private String getCursorCondition() {
+
+		final String compare    = sortDescending ? " < " : " > ";
+		final String idCompare  = "n.`" + ID_KEY + "`" + compare + "{cursorId}";
+
+		if (sortKey == null) {
+			return idCompare;
+		}
+
+		final String expression = getSortExpression().trim();
+		final boolean nullable  = SortType.Default.equals(sortType);
+		final boolean isNull    = queryContext.getCursorValue() == null;
+		final String value      = isNull && !nullable ? "-1" : "{cursorValue}";
+		final StringBuilder buf = new StringBuilder();
+
+		if (nullable && isNull) {
+
+			buf.append("(");
+			buf.append(expression);
+			buf.append(" IS NULL AND ");
+			buf.append(idCompare);
+			buf.append(")");
+
+			if (sortDescending) {
+
+				buf.append(" OR ");
+				buf.append(expression);
+				buf.append(" IS NOT NULL");
+			}
+
+		} else {
+
+			buf.append(expression);
+			buf.append(compare);
+			buf.append(value);
+			buf.append(" OR (");
+			buf.append(expression);
+			buf.append(" = ");
+			buf.append(value);
+			buf.append(" AND ");
+			buf.append(idCompare);
+			buf.append(")");
+
+			if (nullable && !sortDescending) {
+
+				buf.append(" OR ");
+				buf.append(expression);
+				buf.append(" IS NULL");
+			}
+		}
+
+		return buf.toString();
+	}
+
 	private int deepHashCode(final Map<String, Object> map) {
 
 		final StringBuilder buf = new StringBuilder();
@@ -69,6 +69,11 @@ public class CypherNodeIndex extends AbstractCypherIndex<Node> {
 		return " RETURN DISTINCT n";
 	}
 
+	@Override
+	public String getTypeCondition(final String typeLabel) {
+		return "n:" + typeLabel;
+	}
+
 	@Override
 	public QueryResult<Node> getResult(final PageableQuery query) {
 		return QueryUtils.map(new NodeNodeMapper(db), new NodeResultStream(db, query));
@@ -80,6 +80,11 @@ public class CypherRelationshipIndex extends AbstractCypherIndex<Relationship> {
 		return " RETURN DISTINCT n";
 	}
 
+	@Override
+	public String getTypeCondition(final String typeLabel) {
+		return "type(n) = '" + typeLabel + "'";
+	}
+
 	@Override
 	public QueryResult<Relationship> getResult(final PageableQuery query) {
 		return QueryUtils.map(new RelationshipRelationshipMapper(db), new RelationshipResultStream(db, query));
@@ -28,8 +28,31 @@ public class EmptyQueryFactory extends AbstractQueryFactory {
 
 		checkOccur(query, predicate.getOccurrence(), isFirst);
 
-		// not empty query is simple
-		query.addSimpleParameter(predicate.getName(), "is", null);
+		final String name = predicate.getName();
+		final Class type  = predicate.getType();
+
+		if (type != null && type.isArray()) {
+
+			// empty arrays are empty as well
+			query.beginGroup();
+			query.addSimpleParameter(name, "is", null);
+			query.or();
+			query.addSimpleParameter("size(n.`" + name + "`)", "=", 0, false);
+			query.endGroup();
+
+		} else if (String.class.equals(type)) {
+
+			// blank strings are empty as well
+			query.beginGroup();
+			query.addSimpleParameter(name, "is", null);
+			query.or();
+			query.addSimpleParameter("trim(n.`" + name + "`)", "=", "", false);
+			query.endGroup();
+
+		} else {
+
+			query.addSimpleParameter(name, "is", null);
+		}
 
 		return true;
 	}
@@ -19,12 +19,32 @@
 package org.structr.bolt.index.factory;
 
 import org.structr.api.search.QueryPredicate;
+import org.structr.api.search.RelationshipQuery;
 import org.structr.bolt.index.AdvancedCypherQuery;
 
 public class RelationshipQueryFactory extends AbstractQueryFactory {
 
 	@Override
 	public boolean createQuery(final QueryFactory parent, final QueryPredicate predicate, final AdvancedCypherQuery query, final boolean isFirst) {
-		return true;
+
+		if (predicate instanceof RelationshipQuery) {
+
+			final String key = ((RelationshipQuery)predicate).getNodeVisibilityKey();
+			if (key != null) {
+
+				checkOccur(query, predicate.getOccurrence(), isFirst);
+
+				// both nodes must be visible
+				query.beginGroup();
+				query.addSimpleParameter("startNode(n).`" + key + "`", "=", true, false);
+				query.and();
+				query.addSimpleParameter("endNode(n).`" + key + "`", "=", true, false);
+				query.endGroup();
+
+				return true;
+			}
+		}
+
+		return false;
 	}
 }
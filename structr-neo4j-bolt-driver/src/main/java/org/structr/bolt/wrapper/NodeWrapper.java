@@ -55,7 +55,7 @@ public class NodeWrapper extends EntityWrapper<org.neo4j.driver.v1.types.Node> i
 	}
 
 	@Override
-	protected String getQueryPrefix() {
+	public String getQueryPrefix() {
 
 		final String tenantIdentifier = db.getTenantIdentifier();
 		if (tenantIdentifier != null) {
@@ -332,6 +332,30 @@ public class NodeWrapper extends EntityWrapper<org.neo4j.driver.v1.types.Node> i
 		return list;
 	}
 
+	/**
+	 * Indicates whether the relationships of the given direction and type
+	 * are cached in this node.
+	 *
+	 * @param direction
+	 * @param relationshipType
+	 * @return whether the relationships are cached
+	 */
+	public boolean hasCachedRelationships(final Direction direction, final RelationshipType relationshipType) {
+		return !dontUseCache && getList(direction, relationshipType) != null;
+	}
+
+	/**
+	 * Stores the given relationships of the given direction and type that
+	 * were loaded in advance, see {@link BoltDatabaseService#prefetchRelationships}.
+	 *
+	 * @param direction
+	 * @param relationshipType
+	 * @param relationships
+	 */
+	public void setCachedRelationships(final Direction direction, final RelationshipType relationshipType, final Iterable<Relationship> relationships) {
+		setList(direction, relationshipType, toList(relationships));
+	}
+
 	/**
 	 * Evaluate a custom query and return result as a boolean value
 	 *
@@ -366,38 +390,44 @@ public class NodeWrapper extends EntityWrapper<org.neo4j.driver.v1.types.Node> i
 	// ----- public static methods -----
 	public static NodeWrapper newInstance(final BoltDatabaseService db, final org.neo4j.driver.v1.types.Node node) {
 
-		synchronized (nodeCache) {
-
-			NodeWrapper wrapper = nodeCache.get(node.id());
-			if (wrapper == null) {
-
-				wrapper = new NodeWrapper(db, node);
-				nodeCache.put(node.id(), wrapper);
-			}
+		final NodeWrapper wrapper = nodeCache.get(node.id());
+		if (wrapper == null) {
 
-			return wrapper;
+			// another thread may have created a wrapper in the meantime
+			return nodeCache.putIfAbsent(node.id(), new NodeWrapper(db, node));
 		}
+
+		return wrapper;
 	}
 
 	public static NodeWrapper newInstance(final BoltDatabaseService db, final long id) {
 
-		synchronized (nodeCache) {
+		final NodeWrapper wrapper = nodeCache.get(id);
+		if (wrapper == null) {
 
-			NodeWrapper wrapper = nodeCache.get(id);
-			if (wrapper == null) {
+			final SessionTransaction tx   = db.getCurrentTransaction();
+			final Map<String, Object> map = new HashMap<>();
+			final String tenantIdentifier = db.getTenantIdentifier();
 
-				final SessionTransaction tx   = db.getCurrentTransaction();
-				final Map<String, Object> map = new HashMap<>();
-				final String tenantIdentifier = db.getTenantIdentifier();
+			map.put("id", id);
 
-				map.put("id", id);
+			// another thread may have created a wrapper in the meantime
+			return nodeCache.putIfAbsent(id, new NodeWrapper(db, tx.getNode("MATCH (n" + (tenantIdentifier != null ? ":" + tenantIdentifier : "") + ") WHERE ID(n) = {id} RETURN n", map)));
+		}
 
-				wrapper = new NodeWrapper(db, tx.getNode("MATCH (n" + (tenantIdentifier != null ? ":" + tenantIdentifier : "") + ") WHERE ID(n) = {id} RETURN n", map));
-				nodeCache.put(id, wrapper);
-			}
+		return wrapper;
+	}
 
-			return wrapper;
-		}
+	public static long getCacheHitCount() {
+		return nodeCache.getHitCount();
+	}
+
+	public static long getCacheMissCount() {
+		return nodeCache.getMissCount();
+	}
+
+	public static long getCacheEvictionCount() {
+		return nodeCache.getEvictionCount();
 	}
 
 	// ----- private methods -----
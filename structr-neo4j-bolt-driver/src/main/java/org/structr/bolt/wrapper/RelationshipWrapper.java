@@ -53,7 +53,7 @@ public class RelationshipWrapper extends EntityWrapper<org.neo4j.driver.v1.types
 	}
 
 	@Override
-	protected String getQueryPrefix() {
+	public String getQueryPrefix() {
 
 		final String tenantIdentifier = db.getTenantIdentifier();
 		if (tenantIdentifier != null) {
@@ -159,54 +159,60 @@ public class RelationshipWrapper extends EntityWrapper<org.neo4j.driver.v1.types
 	// ----- public static methods -----
 	public static RelationshipWrapper newInstance(final BoltDatabaseService db, final org.neo4j.driver.v1.types.Relationship relationship) {
 
-		synchronized (relationshipCache) {
+		final RelationshipWrapper wrapper = relationshipCache.get(relationship.id());
+		if (wrapper == null) {
 
-			RelationshipWrapper wrapper = relationshipCache.get(relationship.id());
-			if (wrapper == null) {
-
-				wrapper = new RelationshipWrapper(db, relationship);
-				relationshipCache.put(relationship.id(), wrapper);
-			}
-
-			return wrapper;
+			// another thread may have created a wrapper in the meantime
+			return relationshipCache.putIfAbsent(relationship.id(), new RelationshipWrapper(db, relationship));
 		}
+
+		return wrapper;
 	}
 
 	public static RelationshipWrapper newInstance(final BoltDatabaseService db, final long id) {
 
-		synchronized (relationshipCache) {
+		final RelationshipWrapper wrapper = relationshipCache.get(id);
+		if (wrapper == null) {
 
-			RelationshipWrapper wrapper = relationshipCache.get(id);
-			if (wrapper == null) {
+			final SessionTransaction tx   = db.getCurrentTransaction();
+			final Map<String, Object> map = new HashMap<>();
+			final StringBuilder buf       = new StringBuilder();
+			final String tenantIdentifier = db.getTenantIdentifier();
 
-				final SessionTransaction tx   = db.getCurrentTransaction();
-				final Map<String, Object> map = new HashMap<>();
-				final StringBuilder buf       = new StringBuilder();
-				final String tenantIdentifier = db.getTenantIdentifier();
+			map.put("id", id);
+
+			buf.append("MATCH (");
+
+			if (tenantIdentifier != null) {
+				buf.append(":");
+				buf.append(tenantIdentifier);
+			}
 
-				map.put("id", id);
+			buf.append(")-[n]-(");
 
-				buf.append("MATCH (");
+			if (tenantIdentifier != null) {
+				buf.append(":");
+				buf.append(tenantIdentifier);
+			}
 
-				if (tenantIdentifier != null) {
-					buf.append(":");
-					buf.append(tenantIdentifier);
-				}
+			buf.append(") WHERE ID(n) = {id} RETURN n");
 
-				buf.append(")-[n]-(");
+			// another thread may have created a wrapper in the meantime
+			return relationshipCache.putIfAbsent(id, new RelationshipWrapper(db, tx.getRelationship(buf.toString(), map)));
+		}
 
-				if (tenantIdentifier != null) {
-					buf.append(":");
-					buf.append(tenantIdentifier);
-				}
+		return wrapper;
+	}
 
-				buf.append(") WHERE ID(n) = {id} RETURN n");
+	public static long getCacheHitCount() {
+		return relationshipCache.getHitCount();
+	}
 
-				wrapper = new RelationshipWrapper(db, tx.getRelationship(buf.toString(), map));
-				relationshipCache.put(id, wrapper);
-			}
+	public static long getCacheMissCount() {
+		return relationshipCache.getMissCount();
+	}
 
-			return wrapper;
-		}
+	public static long getCacheEvictionCount() {
+		return relationshipCache.getEvictionCount();
 	}
 }
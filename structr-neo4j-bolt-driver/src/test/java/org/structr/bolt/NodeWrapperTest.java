@@ -21,7 +21,9 @@ package org.structr.bolt;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.Assert;
 import static org.junit.Assert.fail;
 import org.junit.Test;
@@ -168,4 +170,57 @@ public class NodeWrapperTest {
 		s.shutdown();
 	}
 
+	@Test
+	public void testBufferedPropertyWrites() {
+
+		try {
+
+			Settings.DatabasePath.setValue(Files.createTempDirectory("structr-test").toFile().getAbsolutePath());
+			Settings.ConnectionUrl.setValue(Settings.TestingConnectionUrl.getValue());
+
+		} catch (IOException ioex) {
+			logger.warn("", ioex);
+		}
+
+		final BoltDatabaseService s = new BoltDatabaseService();
+		s.initialize();
+
+		long id = 0L;
+
+		// set properties and query them in the same transaction
+		try (final Transaction tx = s.beginTx()) {
+
+			final Node node = s.createNode(Collections.EMPTY_SET, Collections.EMPTY_MAP);
+
+			id = node.getId();
+
+			node.setProperty("key1", "value1");
+			node.setProperty("key2", "value2");
+			node.removeProperty("key2");
+
+			final Map<String, Object> params = new HashMap<>();
+			params.put("id", id);
+
+			Assert.assertEquals("Buffered property writes must be visible to queries", "value1", s.getCurrentTransaction().getObject("MATCH (n) WHERE ID(n) = {id} RETURN n.key1", params));
+			Assert.assertNull("Buffered property removal must be visible to queries", s.getCurrentTransaction().getObject("MATCH (n) WHERE ID(n) = {id} RETURN n.key2", params));
+
+			node.setProperty("key3", "value3");
+
+			tx.success();
+		}
+
+		// check that writes buffered at commit time were persisted
+		try (final Transaction tx = s.beginTx()) {
+
+			final Map<String, Object> params = new HashMap<>();
+			params.put("id", id);
+
+			Assert.assertEquals("Buffered property writes must be written on commit", "value3", s.getCurrentTransaction().getObject("MATCH (n) WHERE ID(n) = {id} RETURN n.key3", params));
+
+			tx.success();
+		}
+
+		s.shutdown();
+	}
+
 }
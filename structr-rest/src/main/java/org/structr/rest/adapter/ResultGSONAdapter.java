@@ -60,6 +60,7 @@ public class ResultGSONAdapter implements JsonSerializer<Result>, JsonDeserializ
 
 		// result fields in alphabetical order
 		List<? extends GraphObject> results = src.getResults();
+		String nextCursor = src.getNextCursor();
 		Integer page = src.getPage();
 		Integer pageCount = src.getPageCount();
 		Integer pageSize = src.getPageSize();
@@ -70,6 +71,10 @@ public class ResultGSONAdapter implements JsonSerializer<Result>, JsonDeserializ
 		String sortOrder = src.getSortOrder();
 		GraphObject metaData = src.getMetaData();
 
+		if(nextCursor != null) {
+			result.add("next_cursor", new JsonPrimitive(nextCursor));
+		}
+
 		if(page != null) {
 			result.add("page", new JsonPrimitive(page));
 		}
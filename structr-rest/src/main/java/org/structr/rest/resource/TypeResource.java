@@ -52,6 +52,7 @@ import org.structr.core.property.PropertyMap;
 import org.structr.rest.RestMethodResult;
 import org.structr.rest.exception.IllegalPathException;
 import org.structr.rest.exception.NotFoundException;
+import org.structr.rest.servlet.JsonRestServlet;
 import org.structr.schema.SchemaHelper;
 
 //~--- classes ----------------------------------------------------------------
@@ -172,14 +173,33 @@ public class TypeResource extends SortableResource {
 
 			} else {
 
-				return query
+				final String cursor = request != null ? request.getParameter(JsonRestServlet.REQUEST_PARAMETER_CURSOR) : null;
+				if (cursor != null) {
+
+					if (!PagingHelper.supportsKeysetPaging(actualSortKey)) {
+						throw new FrameworkException(400, "Unable to page results sorted by " + actualSortKey.jsonName() + " with " + JsonRestServlet.REQUEST_PARAMETER_CURSOR + ", sort key must be an indexed database property");
+					}
+
+					PagingHelper.applyCursor(query.getQueryContext(), cursor);
+				}
+
+				final Result result = query
 					.includeDeletedAndHidden(includeDeletedAndHidden)
 					.publicOnly(publicOnly)
 					.sort(actualSortKey)
 					.order(actualSortOrder)
 					.pageSize(pageSize)
 					.page(page)
+					.streamResult(cursor == null && securityContext.streamResults())
 					.getResult();
+
+				// a full page may be followed by more results
+				if (cursor != null && !result.isEmpty() && result.size() == pageSize) {
+
+					result.setNextCursor(PagingHelper.getCursor((GraphObject)result.get(result.size() - 1), actualSortKey));
+				}
+
+				return result;
 			}
 
 		} else {
@@ -34,6 +34,7 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.api.Predicate;
+import org.structr.api.config.Settings;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
@@ -138,10 +139,14 @@ public class GraphQLWriter {
 
 				} else {
 
+					final Iterable<GraphObject> entities = query.getEntities(securityContext);
+
+					prefetch(securityContext, query, entities);
+
 					writer.name(query.getFieldName());
 					writer.beginArray();
 
-					for (final GraphObject object : query.getEntities(securityContext)) {
+					for (final GraphObject object : entities) {
 
 						root.serialize(writer, null, object, query, query.getRootPath());
 					}
@@ -156,6 +161,25 @@ public class GraphQLWriter {
 		}
 	}
 
+	/**
+	 * Loads the relationships of the nested selections of the given query
+	 * with one query per selection level.
+	 */
+	private void prefetch(final SecurityContext securityContext, final GraphQLQuery query, final Iterable<GraphObject> entities) {
+
+		if (!Settings.GraphQLPrefetch.getValue()) {
+			return;
+		}
+
+		try {
+
+			query.prefetch(securityContext, entities);
+
+		} catch (Throwable t) {
+			logger.debug("Unable to prefetch relationships", t);
+		}
+	}
+
 	private Serializer getSerializerForType(final Class type) {
 
 		Class localType       = type;
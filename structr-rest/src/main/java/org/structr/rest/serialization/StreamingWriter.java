@@ -25,9 +25,11 @@ import java.text.DecimalFormatSymbols;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -45,8 +47,10 @@ import org.structr.core.app.StructrApp;
 import org.structr.core.converter.PropertyConverter;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.function.Functions;
+import org.structr.core.graph.PrefetchRelationshipsCommand;
 import org.structr.core.property.PropertyKey;
 import org.structr.core.property.PropertyMap;
+import org.structr.core.property.RelationProperty;
 
 /**
  *
@@ -56,6 +60,7 @@ public abstract class StreamingWriter {
 
 	private static final Logger logger                   = LoggerFactory.getLogger(StreamingWriter.class.getName());
 	private static final long MAX_SERIALIZATION_TIME     = TimeUnit.SECONDS.toMillis(300);
+	private static final int PREFETCH_BATCH_SIZE         = 100;
 	private static final Set<PropertyKey> idTypeNameOnly = new LinkedHashSet<>();
 
 	static {
@@ -136,7 +141,8 @@ public abstract class StreamingWriter {
 		}
 
 		// result fields in alphabetical order
-		List<? extends GraphObject> results = result.getResults();
+		List<? extends GraphObject> results = result.isStreaming() ? null : result.getResults();
+		String nextCursor                   = result.getNextCursor();
 		Integer outputNestingDepth          = result.getOutputNestingDepth();
 		Integer page                        = result.getPage();
 		Integer pageCount                   = result.getPageCount();
@@ -153,6 +159,10 @@ public abstract class StreamingWriter {
 		// open result set
 		writer.beginObject();
 
+		if (nextCursor != null) {
+			writer.name("next_cursor").value(nextCursor);
+		}
+
 		if (outputNestingDepth != null) {
 			writer.name("output_nesting_depth").value(outputNestingDepth);
 		}
@@ -177,7 +187,39 @@ public abstract class StreamingWriter {
 			writer.name("result_count").value(resultCount);
 		}
 
-		if (results != null) {
+		if (result.isStreaming()) {
+
+			// keep track of serialization time
+			long startTime            = System.currentTimeMillis();
+			String localPropertyView  = propertyView.get(null);
+			int count                 = 0;
+
+			writer.name(resultKeyName).beginArray();
+
+			// serialize results while they are read from the database
+			for (GraphObject graphObject : new PrefetchingIterable(securityContext, (Iterable<? extends GraphObject>)result.iterable(), localPropertyView)) {
+
+				root.serialize(writer, graphObject, localPropertyView, 0);
+				count++;
+
+				// check for timeout
+				if (System.currentTimeMillis() > startTime + MAX_SERIALIZATION_TIME) {
+
+					logger.error("JSON serialization of {} with more than {} results took more than {} ms, aborted. Please review output view size or adjust timeout.", new Object[] { securityContext.getCompoundRequestURI(), count, MAX_SERIALIZATION_TIME } );
+
+					// TODO: create some output indicating that streaming was interrupted
+					break;
+				}
+			}
+
+			writer.endArray();
+
+			// the count of a streamed result is only known at the end
+			if (resultCount == null && renderResultCount && !securityContext.ignoreResultCount()) {
+				writer.name("result_count").value(count);
+			}
+
+		} else if (results != null) {
 
 			if (results.isEmpty() && result.isPrimitiveArray()) {
 
@@ -255,6 +297,8 @@ public abstract class StreamingWriter {
 
 					writer.name(resultKeyName).beginArray();
 
+					prefetch(securityContext, results, localPropertyView, 0);
+
 					// serialize list of results
 					for (GraphObject graphObject : results) {
 
@@ -360,6 +404,75 @@ public abstract class StreamingWriter {
 		return serializer;
 	}
 
+	/**
+	 * Loads the relationships that the given objects will need when they
+	 * are serialized at the given depth in advance, level by level, with
+	 * a single query for the related objects of all given objects.
+	 */
+	private void prefetch(final SecurityContext securityContext, final Iterable<? extends GraphObject> objects, final String localPropertyView, final int depth) {
+
+		if (!needsPrefetch(localPropertyView, depth)) {
+			return;
+		}
+
+		try {
+
+			StructrApp.getInstance(securityContext).command(PrefetchRelationshipsCommand.class).execute(objects, localPropertyView);
+
+			if (needsPrefetch(localPropertyView, depth + 1)) {
+
+				final Set<GraphObject> children = new LinkedHashSet<>();
+
+				for (final GraphObject obj : objects) {
+
+					final Iterable<PropertyKey> keys = obj.getPropertyKeys(localPropertyView);
+					if (keys != null) {
+
+						for (final PropertyKey key : keys) {
+
+							if (key instanceof RelationProperty) {
+
+								// collect the same range of objects that will be serialized
+								final QueryRange range = securityContext.getRange(key.jsonName());
+								if (range != null) {
+									range.resetCount();
+								}
+
+								final Object value = obj.getProperty(key, range);
+								if (value instanceof GraphObject) {
+
+									children.add((GraphObject)value);
+
+								} else if (value instanceof Iterable) {
+
+									for (final Object o : (Iterable)value) {
+
+										if (o instanceof GraphObject) {
+											children.add((GraphObject)o);
+										}
+									}
+								}
+							}
+						}
+					}
+				}
+
+				if (!children.isEmpty()) {
+					prefetch(securityContext, children, localPropertyView, depth + 1);
+				}
+			}
+
+		} catch (Throwable t) {
+			logger.debug("Unable to prefetch relationships", t);
+		}
+	}
+
+	private boolean needsPrefetch(final String localPropertyView, final int depth) {
+
+		// nested objects in the ui view only contain id, type and name
+		return depth <= outputNestingDepth && !(compactNestedProperties && depth > 0 && PropertyView.Ui.equals(localPropertyView));
+	}
+
 	private void collectAllInterfaces(Class type, Set<Class> interfaces) {
 
 		if (interfaces.contains(type)) {
@@ -499,7 +612,7 @@ public abstract class StreamingWriter {
 							}
 
 
-							final Object value = source.getProperty(localKey, range);
+							Object value = source.getProperty(localKey, range);
 							if (value != null) {
 
 								if (!(reduceRedundancy && visitedObjects.contains(value.hashCode()))) {
@@ -593,4 +706,64 @@ public abstract class StreamingWriter {
 			writer.endObject();
 		}
 	}
+
+	/**
+	 * Reads the given objects in batches and loads the relationships that
+	 * each batch needs for serialization before the objects are returned.
+	 */
+	private class PrefetchingIterable implements Iterable<GraphObject> {
+
+		private Iterable<? extends GraphObject> source = null;
+		private SecurityContext securityContext        = null;
+		private String localPropertyView               = null;
+
+		public PrefetchingIterable(final SecurityContext securityContext, final Iterable<? extends GraphObject> source, final String localPropertyView) {
+
+			this.securityContext   = securityContext;
+			this.localPropertyView = localPropertyView;
+			this.source            = source;
+		}
+
+		@Override
+		public Iterator<GraphObject> iterator() {
+
+			final Iterator<? extends GraphObject> iterator = source.iterator();
+			final LinkedList<GraphObject> batch            = new LinkedList<>();
+
+			return new Iterator<GraphObject>() {
+
+				@Override
+				public boolean hasNext() {
+
+					fill();
+
+					return !batch.isEmpty();
+				}
+
+				@Override
+				public GraphObject next() {
+
+					fill();
+
+					if (batch.isEmpty()) {
+						throw new NoSuchElementException();
+					}
+
+					return batch.removeFirst();
+				}
+
+				private void fill() {
+
+					if (batch.isEmpty() && iterator.hasNext()) {
+
+						while (iterator.hasNext() && batch.size() < PREFETCH_BATCH_SIZE) {
+							batch.add(iterator.next());
+						}
+
+						prefetch(securityContext, batch, localPropertyView, 0);
+					}
+				}
+			};
+		}
+	}
 }
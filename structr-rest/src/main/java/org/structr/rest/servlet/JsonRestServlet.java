@@ -85,6 +85,7 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 	public static final String REQUEST_PARAMETER_PAGE_SIZE              = "pageSize";
 	public static final String REQUEST_PARAMETER_SORT_KEY               = "sort";
 	public static final String REQUEST_PARAMETER_SORT_ORDER             = "order";
+	public static final String REQUEST_PARAMETER_CURSOR                 = "_after";
 	public static final String REQUEST_PARAMTER_OUTPUT_DEPTH            = "outputNestingDepth";
 	public static final Set<String> commonRequestParameters             = new LinkedHashSet<>();
 	private static final Logger logger                                  = LoggerFactory.getLogger(JsonRestServlet.class.getName());
@@ -96,6 +97,7 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 		commonRequestParameters.add(REQUEST_PARAMETER_PAGE_SIZE);
 		commonRequestParameters.add(REQUEST_PARAMETER_SORT_KEY);
 		commonRequestParameters.add(REQUEST_PARAMETER_SORT_ORDER);
+		commonRequestParameters.add(REQUEST_PARAMETER_CURSOR);
 		commonRequestParameters.add(REQUEST_PARAMTER_OUTPUT_DEPTH);
 		commonRequestParameters.add("debugLoggingEnabled");
 		commonRequestParameters.add("ignoreResultCount");
@@ -804,7 +806,6 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 			int pageSize             = Services.parseInt(pageSizeParameter, NodeFactory.DEFAULT_PAGE_SIZE);
 			int page                 = Services.parseInt(pageParameter, NodeFactory.DEFAULT_PAGE);
 			int depth                = Services.parseInt(outputDepth, config.getOutputNestingDepth());
-			String baseUrl           = request.getRequestURI();
 			PropertyKey sortKey      = null;
 
 			// set sort key
@@ -821,17 +822,36 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 				sortKey = StructrApp.getConfiguration().getPropertyKeyForDatabaseName(type, sortKeyName, false);
 			}
 
+			final String accept = request.getHeader("Accept");
+			final boolean html  = accept != null && accept.contains("text/html");
+
+			// collection results can be streamed if they are written in the doGet transaction
+			securityContext.streamResults(returnContent && !html);
+
 			// isolate doGet
-			boolean retry = true;
+			boolean retry   = true;
+			boolean written = false;
+
 			while (retry) {
 
 				try (final Tx tx = app.tx()) {
+
 					result = resource.doGet(sortKey, sortDescending, pageSize, page);
+
+					// a streaming result is read while it is written
+					if (result != null && result.isStreaming()) {
+
+						writeResult(securityContext, request, response, resource, result, pageSize, page, depth, outputDepth != null, queryTimeStart, html);
+						written = true;
+					}
+
 					tx.success();
 					retry = false;
 
 				} catch (RetryException ddex) {
-					retry = true;
+
+					// output was already written, don't run the query again
+					retry = !written;
 				}
 			}
 
@@ -840,73 +860,13 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 				throw new FrameworkException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Unable to retrieve result, check database connection");
 			}
 
-			if (returnContent) {
-
-				if (!(resource instanceof StaticRelationshipResource) && !result.isPrimitiveArray() && !result.isEmpty()) {
-
-					result.setIsCollection(resource.isCollectionResource());
-					result.setIsPrimitiveArray(resource.isPrimitiveArray());
-
-				}
-
-				PagingHelper.addPagingParameter(result, pageSize, page);
-
-				// timing..
-				double queryTimeEnd = System.nanoTime();
-
-				// store property view that will be used to render the results
-				result.setPropertyView(propertyView.get(securityContext));
-
-				// allow resource to modify result set
-				resource.postProcessResultSet(result);
+			if (returnContent && !written) {
 
-				DecimalFormat decimalFormat = new DecimalFormat("0.000000000", DecimalFormatSymbols.getInstance(Locale.ENGLISH));
-				result.setQueryTime(decimalFormat.format((queryTimeEnd - queryTimeStart) / 1000000000.0));
-
-				if (outputDepth != null) {
-
-					result.setOutputNestingDepth(depth);
-
-				}
-
-				String accept = request.getHeader("Accept");
-
-				if (accept != null && accept.contains("text/html")) {
-
-					final StreamingHtmlWriter htmlStreamer = new StreamingHtmlWriter(this.propertyView, indentJson, depth);
-
-					// isolate write output
-					try (final Tx tx = app.tx()) {
-
-						// no trailing semicolon so we dont trip MimeTypes.getContentTypeWithoutCharset
-						response.setContentType("text/html; charset=utf-8");
-
-						final Writer writer = response.getWriter();
-
-						htmlStreamer.stream(securityContext, writer, result, baseUrl);
-						writer.append("\n");    // useful newline
-
-						tx.success();
-					}
-
-				} else {
-
-					final StreamingJsonWriter jsonStreamer = new StreamingJsonWriter(this.propertyView, indentJson, depth);
-
-					// isolate write output
-					try (final Tx tx = app.tx()) {
-
-						// no trailing semicolon so we dont trip MimeTypes.getContentTypeWithoutCharset
-						response.setContentType("application/json; charset=utf-8");
-
-						final Writer writer = response.getWriter();
-
-						jsonStreamer.stream(securityContext, writer, result, baseUrl);
-						writer.append("\n");    // useful newline
-
-						tx.success();
-					}
+				// isolate write output
+				try (final Tx tx = app.tx()) {
 
+					writeResult(securityContext, request, response, resource, result, pageSize, page, depth, outputDepth != null, queryTimeStart, html);
+					tx.success();
 				}
 			}
 
@@ -961,6 +921,62 @@ public class JsonRestServlet extends HttpServlet implements HttpServiceServlet {
 		}
 	}
 
+	private void writeResult(final SecurityContext securityContext, final HttpServletRequest request, final HttpServletResponse response, final Resource resource, final Result result, final int pageSize, final int page, final int depth, final boolean setDepth, final double queryTimeStart, final boolean html) throws IOException {
+
+		// a streaming result is a collection, and checking for emptiness would read it
+		if (!(resource instanceof StaticRelationshipResource) && !result.isPrimitiveArray() && (result.isStreaming() || !result.isEmpty())) {
+
+			result.setIsCollection(resource.isCollectionResource());
+			result.setIsPrimitiveArray(resource.isPrimitiveArray());
+
+		}
+
+		PagingHelper.addPagingParameter(result, pageSize, page);
+
+		// timing..
+		double queryTimeEnd = System.nanoTime();
+
+		// store property view that will be used to render the results
+		result.setPropertyView(propertyView.get(securityContext));
+
+		// allow resource to modify result set
+		resource.postProcessResultSet(result);
+
+		DecimalFormat decimalFormat = new DecimalFormat("0.000000000", DecimalFormatSymbols.getInstance(Locale.ENGLISH));
+		result.setQueryTime(decimalFormat.format((queryTimeEnd - queryTimeStart) / 1000000000.0));
+
+		if (setDepth) {
+
+			result.setOutputNestingDepth(depth);
+
+		}
+
+		if (html) {
+
+			final StreamingHtmlWriter htmlStreamer = new StreamingHtmlWriter(this.propertyView, indentJson, depth);
+
+			// no trailing semicolon so we dont trip MimeTypes.getContentTypeWithoutCharset
+			response.setContentType("text/html; charset=utf-8");
+
+			final Writer writer = response.getWriter();
+
+			htmlStreamer.stream(securityContext, writer, result, request.getRequestURI());
+			writer.append("\n");    // useful newline
+
+		} else {
+
+			final StreamingJsonWriter jsonStreamer = new StreamingJsonWriter(this.propertyView, indentJson, depth);
+
+			// no trailing semicolon so we dont trip MimeTypes.getContentTypeWithoutCharset
+			response.setContentType("application/json; charset=utf-8");
+
+			final Writer writer = response.getWriter();
+
+			jsonStreamer.stream(securityContext, writer, result, request.getRequestURI());
+			writer.append("\n");    // useful newline
+		}
+	}
+
 	private void assertInitialized() throws FrameworkException {
 
 		if (!Services.getInstance().isInitialized()) {
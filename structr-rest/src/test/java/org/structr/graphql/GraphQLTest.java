@@ -33,6 +33,7 @@ import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
@@ -40,6 +41,7 @@ import org.structr.core.entity.Group;
 import org.structr.core.entity.MailTemplate;
 import org.structr.core.entity.Principal;
 import org.structr.core.entity.Relation;
+import org.structr.core.graph.FlushCachesCommand;
 import org.structr.core.graph.NodeAttribute;
 import org.structr.core.graph.NodeInterface;
 import org.structr.core.graph.Tx;
@@ -587,6 +589,74 @@ public class GraphQLTest extends StructrGraphQLTest {
 				.post("/");
 	}
 
+	@Test
+	public void testNestedSelectionPrefetch() {
+
+		try (final Tx tx = app.tx()) {
+
+			final PropertyKey<List> membersKey = StructrApp.key(Group.class, "members");
+			final List<Principal> team         = new LinkedList<>();
+
+			team.add(app.create(Principal.class, new NodeAttribute<>(Principal.name, "Axel")));
+			team.add(app.create(Principal.class, new NodeAttribute<>(Principal.name, "Christian")));
+			team.add(app.create(Principal.class, new NodeAttribute<>(Principal.name, "Inès")));
+			team.add(app.create(Principal.class, new NodeAttribute<>(Principal.name, "Kai")));
+			team.add(app.create(Principal.class, new NodeAttribute<>(Principal.name, "Lukas")));
+			team.add(app.create(Principal.class, new NodeAttribute<>(Principal.name, "Michael")));
+
+			final Group group1 = app.create(Group.class,
+				new NodeAttribute<>(Group.name, "Group1"),
+				new NodeAttribute<>(membersKey, team.subList(0, 4))
+			);
+
+			final Group group2 = app.create(Group.class,
+				new NodeAttribute<>(Group.name, "Group2"),
+				new NodeAttribute<>(membersKey, team.subList(2, 6))
+			);
+
+			// nested group, so that members and groups are traversed in both directions
+			app.create(Group.class,
+				new NodeAttribute<>(Group.name, "Group3"),
+				new NodeAttribute<>(membersKey, Arrays.asList(group1, group2, team.get(0)))
+			);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		RestAssured.basePath = "/structr/graphql";
+
+		final String query = "{ Group(_sort: \"name\") { name, members(_sort: \"name\", _pageSize: 2, _page: 2) { name(_contains: \"a\"), groups(_sort: \"name\") { name, members(_pageSize: 1) { name } } } } }";
+
+		try {
+
+			// start both requests with empty caches, so that the second request doesn't use relationships loaded by the first
+			Settings.GraphQLPrefetch.setValue(false);
+			FlushCachesCommand.flushAll();
+
+			final Map<String, Object> expected = fetchGraphQL(query);
+
+			Settings.GraphQLPrefetch.setValue(true);
+			FlushCachesCommand.flushAll();
+
+			final Map<String, Object> result = fetchGraphQL(query);
+
+			assertEquals("Prefetching must not change the result of a nested selection", expected, result);
+
+			assertMapPathValueIs(result, "Group.#",      3);
+			assertMapPathValueIs(result, "Group.0.name", "Group1");
+			assertMapPathValueIs(result, "Group.1.name", "Group2");
+			assertMapPathValueIs(result, "Group.2.name", "Group3");
+
+		} finally {
+
+			Settings.GraphQLPrefetch.setValue(true);
+		}
+	}
+
 	// ----- private methods -----
 	private Map<String, Object> fetchGraphQL(final String query) {
 
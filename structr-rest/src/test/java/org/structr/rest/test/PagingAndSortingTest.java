@@ -469,4 +469,133 @@ public class PagingAndSortingTest extends StructrRestTest {
 
 
 	}
+
+	@Test
+	public void testKeysetPaging() {
+
+		try (final Tx tx = app.tx()) {
+
+			for (int i=0; i<5; i++) {
+				app.create(TestOne.class, "TestOne-" + i);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+		}
+
+		final String cursor1 = RestAssured
+
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+			.expect()
+				.statusCode(200)
+				.body("result",             hasSize(2))
+				.body("result[0].name",     equalTo("TestOne-0"))
+				.body("result[1].name",     equalTo("TestOne-1"))
+			.when()
+				.get("/test_one?sort=name&pageSize=2&_after=").jsonPath().getString("next_cursor");
+
+		assertNotNull("Full page should contain a cursor", cursor1);
+
+		final String cursor2 = RestAssured
+
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+			.expect()
+				.statusCode(200)
+				.body("result",             hasSize(2))
+				.body("result[0].name",     equalTo("TestOne-2"))
+				.body("result[1].name",     equalTo("TestOne-3"))
+				.body("result_count",       equalTo(5))
+			.when()
+				.get("/test_one?sort=name&pageSize=2&_after=" + cursor1).jsonPath().getString("next_cursor");
+
+		assertNotNull("Full page should contain a cursor", cursor2);
+
+		RestAssured
+
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+			.expect()
+				.statusCode(200)
+				.body("result",             hasSize(1))
+				.body("result[0].name",     equalTo("TestOne-4"))
+				.body("next_cursor",        equalTo(null))
+				.body("result_count",       equalTo(5))
+			.when()
+				.get("/test_one?sort=name&pageSize=2&_after=" + cursor2);
+
+		RestAssured
+
+			.given()
+				.contentType("application/json; charset=UTF-8")
+			.expect()
+				.statusCode(422)
+			.when()
+				.get("/test_one?sort=name&pageSize=2&_after=invalid");
+	}
+
+	@Test
+	public void testKeysetPagingWithComputedSortKey() {
+
+		// related nodes are not stored in a database property, so the cursor condition can't be evaluated
+		RestAssured
+
+			.given()
+				.contentType("application/json; charset=UTF-8")
+			.expect()
+				.statusCode(400)
+			.when()
+				.get("/test_five?sort=manyToOneTestThree&pageSize=2&_after=");
+	}
+
+	@Test
+	public void testStreamedPage() {
+
+		try (final Tx tx = app.tx()) {
+
+			for (int i=0; i<5; i++) {
+				app.create(TestOne.class, "TestOne-" + i);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+		}
+
+		RestAssured
+
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+			.expect()
+				.statusCode(200)
+				.body("result_count",       equalTo(5))
+				.body("page_count",         equalTo(3))
+				.body("result",             hasSize(2))
+				.body("result[0].name",     equalTo("TestOne-2"))
+				.body("result[1].name",     equalTo("TestOne-3"))
+			.when()
+				.get("/test_one?sort=name&pageSize=2&page=2");
+
+		// count is omitted when it is not needed
+		RestAssured
+
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+			.expect()
+				.statusCode(200)
+				.body("result_count",       equalTo(null))
+				.body("result",             hasSize(1))
+				.body("result[0].name",     equalTo("TestOne-4"))
+			.when()
+				.get("/test_one?sort=name&pageSize=2&page=3&ignoreResultCount=true");
+	}
 }
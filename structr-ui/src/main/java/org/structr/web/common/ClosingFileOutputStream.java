@@ -48,6 +48,8 @@ public class ClosingFileOutputStream extends FileOutputStream {
 		this.notifyIndexerAfterClosing = notifyIndexerAfterClosing;
 		this.thisFile                  = thisFile;
 		this.file                      = thisFile.getFileOnDisk();
+
+		FileHelper.invalidateChecksums(thisFile);
 	}
 
 	@Override
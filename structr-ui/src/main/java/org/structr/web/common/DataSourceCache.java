@@ -0,0 +1,424 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.http.HttpServletRequest;
+import org.structr.api.DatabaseService;
+import org.structr.api.NotFoundException;
+import org.structr.api.config.Settings;
+import org.structr.common.SecurityContext;
+import org.structr.core.GraphObject;
+import org.structr.core.Result;
+import org.structr.core.StructrTransactionListener;
+import org.structr.core.TransactionSource;
+import org.structr.core.app.StructrApp;
+import org.structr.core.entity.Principal;
+import org.structr.core.graph.ModificationEvent;
+import org.structr.core.graph.NodeFactory;
+import org.structr.core.graph.NodeInterface;
+import org.structr.core.graph.TransactionCommand;
+import org.structr.web.entity.dom.DOMNode;
+
+/**
+ * Server-side cache for the results of repeater data sources.
+ *
+ * The cache is disabled by default, it is enabled by setting a positive
+ * time-to-live in seconds. Only results that consist of nodes are cached,
+ * as a list of node ids that is instantiated again for each request. A
+ * cached result is discarded when a node of one of the result types is
+ * modified, and results without nodes are discarded on every modification.
+ * Since queries can depend on arbitrary other data, modifications that do
+ * not touch the result types are only reflected after the time-to-live.
+ *
+ * Request headers, cookies and session attributes are not part of the cache
+ * key, so scripts that reference them are never cached. A cache hit does not
+ * evaluate the script again, so side effects of a script (e.g. setting
+ * response headers or sending mails) only happen on a cache miss.
+ */
+public class DataSourceCache implements StructrTransactionListener {
+
+	private static final Map<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private static final DataSourceCache instance = new DataSourceCache();
+	private static final AtomicLong version       = new AtomicLong();
+	private static final LongAdder misses         = new LongAdder();
+	private static final LongAdder hits           = new LongAdder();
+
+	// script fragments that indicate a dependency on state which is not part of the key
+	private static final String[] uncacheableFragments = new String[] { "session", "header", "cookie" };
+
+	static {
+
+		// register on first use, so that rendering outside of the HtmlServlet is covered as well
+		TransactionCommand.registerTransactionListener(instance);
+	}
+
+	public static boolean isEnabled() {
+		return Settings.HtmlDataSourceCacheTime.getValue() > 0 && Settings.HtmlDataSourceCacheSize.getValue() > 0;
+	}
+
+	/**
+	 * Returns the cache key for a query whose value does not depend on
+	 * anything but the user, e.g. an already evaluated REST or Cypher
+	 * query, or null if the cache is disabled.
+	 *
+	 * @param renderContext
+	 * @param source
+	 * @param query
+	 * @return the cache key or null
+	 */
+	public static String getKey(final RenderContext renderContext, final String source, final String query) {
+
+		if (!isEnabled()) {
+			return null;
+		}
+
+		final Principal user    = renderContext.getSecurityContext().getUser(false);
+		final StringBuilder buf = new StringBuilder();
+
+		buf.append(source);
+		buf.append("|");
+		buf.append(user != null ? user.getUuid() : "anonymous");
+		buf.append("|");
+		buf.append(query);
+
+		return buf.toString();
+	}
+
+	/**
+	 * Returns the cache key for an unevaluated script, which includes the
+	 * request, the reference node and all data objects in the given render
+	 * context, or null if the cache is disabled or the script depends on
+	 * request headers, cookies or the session.
+	 *
+	 * @param renderContext
+	 * @param referenceNode
+	 * @param source
+	 * @param script
+	 * @return the cache key or null
+	 */
+	public static String getKey(final RenderContext renderContext, final DOMNode referenceNode, final String source, final String script) {
+
+		final String key = getKey(renderContext, source, script);
+		if (key == null || !isCacheable(script)) {
+
+			return null;
+		}
+
+		final HttpServletRequest request = renderContext.getRequest();
+		final GraphObject details        = renderContext.getDetailsDataObject();
+		final GraphObject current        = renderContext.getDataObject();
+		final StringBuilder buf          = new StringBuilder(key);
+
+		buf.append("|");
+		buf.append(referenceNode.getUuid());
+
+		if (request != null) {
+
+			buf.append("|");
+			buf.append(request.getRequestURI());
+			buf.append("|");
+			buf.append(request.getQueryString());
+		}
+
+		buf.append("|");
+		buf.append(renderContext.getLocale());
+		buf.append("|");
+		buf.append(details != null ? details.getUuid() : null);
+		buf.append("|");
+		buf.append(current != null ? current.getUuid() : null);
+
+		for (final Map.Entry<String, GraphObject> entry : renderContext.getDataObjects().entrySet()) {
+
+			buf.append("|");
+			buf.append(entry.getKey());
+			buf.append("=");
+			buf.append(entry.getValue() != null ? entry.getValue().getUuid() : null);
+		}
+
+		return buf.toString();
+	}
+
+	/**
+	 * Returns the cached result for the given key, instantiated in the
+	 * security context of the given render context, or null.
+	 *
+	 * @param renderContext
+	 * @param key
+	 * @return the cached result or null
+	 */
+	public static Result get(final RenderContext renderContext, final String key) {
+
+		if (key == null) {
+			return null;
+		}
+
+		final Entry entry;
+
+		synchronized (cache) {
+
+			entry = cache.get(key);
+			if (entry != null && entry.expires <= System.currentTimeMillis()) {
+
+				cache.remove(key);
+				misses.increment();
+
+				return null;
+			}
+		}
+
+		if (entry == null) {
+
+			misses.increment();
+			return null;
+		}
+
+		final NodeFactory factory     = new NodeFactory(renderContext.getSecurityContext());
+		final DatabaseService db      = StructrApp.getInstance().getDatabaseService();
+		final List<GraphObject> nodes = new ArrayList<>(entry.ids.size());
+
+		try {
+
+			for (final Long id : entry.ids) {
+
+				final NodeInterface node = factory.instantiate(db.getNodeById(id));
+				if (node != null) {
+
+					nodes.add(node);
+				}
+			}
+
+		} catch (NotFoundException nfex) {
+
+			// node was deleted in the meantime
+			misses.increment();
+			return null;
+		}
+
+		final Result result = new Result(nodes, entry.rawResultCount, true, false);
+
+		result.setPageSize(entry.pageSize);
+		result.setPage(entry.page);
+		result.setPageCount(entry.pageCount);
+
+		hits.increment();
+
+		return result;
+	}
+
+	/**
+	 * Stores the given result for the given key. The content version must
+	 * be read before the query is executed, so that results that were read
+	 * during a modification are never stored.
+	 *
+	 * @param key
+	 * @param contentVersion
+	 * @param result
+	 */
+	public static void put(final String key, final long contentVersion, final Result result) {
+
+		if (key == null || result == null) {
+			return;
+		}
+
+		final List<GraphObject> results = result.getResults();
+		final List<Long> ids            = new ArrayList<>();
+		final Set<Class> types          = new LinkedHashSet<>();
+
+		if (results != null) {
+
+			for (final GraphObject obj : results) {
+
+				// only nodes can be instantiated again
+				if (!(obj instanceof NodeInterface)) {
+					return;
+				}
+
+				ids.add(((NodeInterface)obj).getNode().getId());
+				types.add(obj.getClass());
+			}
+		}
+
+		final long expires = System.currentTimeMillis() + (Settings.HtmlDataSourceCacheTime.getValue() * 1000L);
+		final Entry entry  = new Entry(expires, ids, types, result);
+
+		synchronized (cache) {
+
+			if (contentVersion == version.get()) {
+
+				cache.put(key, entry);
+
+				final int maxSize         = Settings.HtmlDataSourceCacheSize.getValue();
+				final Iterator<String> it = cache.keySet().iterator();
+
+				while (cache.size() > maxSize && it.hasNext()) {
+
+					it.next();
+					it.remove();
+				}
+			}
+		}
+	}
+
+	public static long getVersion() {
+		return version.get();
+	}
+
+	public static void invalidate() {
+
+		synchronized (cache) {
+
+			version.incrementAndGet();
+			cache.clear();
+		}
+	}
+
+	public static long getHitCount() {
+		return hits.sum();
+	}
+
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	// ----- private methods -----
+	private static boolean isCacheable(final String script) {
+
+		final String lowerCaseScript = script.toLowerCase();
+
+		for (final String fragment : uncacheableFragments) {
+
+			if (lowerCaseScript.contains(fragment)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static void invalidate(final Collection<ModificationEvent> modificationEvents) {
+
+		final Set<Class> modifiedTypes = new LinkedHashSet<>();
+		boolean all                    = false;
+
+		for (final ModificationEvent event : modificationEvents) {
+
+			final GraphObject obj = event.getGraphObject();
+			if (event.isNode() && obj != null) {
+
+				modifiedTypes.add(obj.getClass());
+
+			} else {
+
+				// relationships can change the result of any query
+				all = true;
+				break;
+			}
+		}
+
+		synchronized (cache) {
+
+			version.incrementAndGet();
+
+			if (all) {
+
+				cache.clear();
+				return;
+			}
+
+			final Iterator<Entry> it = cache.values().iterator();
+			while (it.hasNext()) {
+
+				if (it.next().dependsOn(modifiedTypes)) {
+					it.remove();
+				}
+			}
+		}
+	}
+
+	// ----- interface StructrTransactionListener -----
+	@Override
+	public void beforeCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) {
+
+		if (!modificationEvents.isEmpty()) {
+			version.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void afterCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) {
+
+		if (!modificationEvents.isEmpty()) {
+			invalidate(modificationEvents);
+		}
+	}
+
+	// ----- nested classes -----
+	private static class Entry {
+
+		private Set<Class> types       = null;
+		private List<Long> ids         = null;
+		private Integer rawResultCount = null;
+		private Integer pageCount      = null;
+		private Integer pageSize       = null;
+		private Integer page           = null;
+		private long expires           = 0L;
+
+		public Entry(final long expires, final List<Long> ids, final Set<Class> types, final Result result) {
+
+			this.expires        = expires;
+			this.ids            = Collections.unmodifiableList(ids);
+			this.types          = types;
+			this.rawResultCount = result.getRawResultCount();
+			this.pageCount      = result.getPageCount();
+			this.pageSize       = result.getPageSize();
+			this.page           = result.getPage();
+		}
+
+		public boolean dependsOn(final Set<Class> modifiedTypes) {
+
+			// an empty result can be changed by any new node
+			if (types.isEmpty()) {
+				return true;
+			}
+
+			for (final Class modifiedType : modifiedTypes) {
+
+				for (final Class type : types) {
+
+					if (type.isAssignableFrom(modifiedType) || modifiedType.isAssignableFrom(type)) {
+						return true;
+					}
+				}
+			}
+
+			return false;
+		}
+	}
+}
@@ -0,0 +1,371 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.StringUtils;
+import org.structr.api.config.Settings;
+import org.structr.core.app.StructrApp;
+import org.structr.core.property.PropertyMap;
+import org.structr.web.entity.File;
+import org.structr.web.entity.Folder;
+
+/**
+ * Calculates all configured checksums of a file in a single pass over
+ * its content, either while the content is written or by reading an
+ * existing file once.
+ *
+ * The xxHash checksum is always calculated, CRC32, MD5, SHA-1 and SHA-512
+ * are calculated if they are enabled for the parent folder or in the
+ * default settings.
+ */
+public class FileChecksums {
+
+	private XXHash64 xxHash      = new XXHash64();
+	private CRC32 crc32          = null;
+	private MessageDigest md5    = null;
+	private MessageDigest sha1   = null;
+	private MessageDigest sha512 = null;
+	private PropertyMap result   = null;
+
+	public FileChecksums(final String enabledChecksums) {
+
+		if (StringUtils.contains(enabledChecksums, "crc32")) {
+			crc32 = new CRC32();
+		}
+
+		if (StringUtils.contains(enabledChecksums, "md5")) {
+			md5 = getDigest("MD5");
+		}
+
+		if (StringUtils.contains(enabledChecksums, "sha1")) {
+			sha1 = getDigest("SHA-1");
+		}
+
+		if (StringUtils.contains(enabledChecksums, "sha512")) {
+			sha512 = getDigest("SHA-512");
+		}
+	}
+
+	/**
+	 * Creates a checksum calculator for the checksums that are enabled
+	 * for the given file, i.e. in the settings of the nearest parent
+	 * folder, or in the default settings.
+	 *
+	 * @param file
+	 * @return the checksum calculator
+	 */
+	public static FileChecksums forFile(final File file) {
+
+		Folder parentFolder = file.getParent();
+		String checksums    = null;
+
+		while (parentFolder != null && checksums == null) {
+
+			checksums    = parentFolder.getEnabledChecksums();
+			parentFolder = parentFolder.getParent();
+		}
+
+		if (checksums == null) {
+			checksums = Settings.DefaultChecksums.getValue();
+		}
+
+		return new FileChecksums(checksums);
+	}
+
+	public void update(final byte[] data, final int offset, final int length) {
+
+		xxHash.update(data, offset, length);
+
+		if (crc32 != null) {
+			crc32.update(data, offset, length);
+		}
+
+		if (md5 != null) {
+			md5.update(data, offset, length);
+		}
+
+		if (sha1 != null) {
+			sha1.update(data, offset, length);
+		}
+
+		if (sha512 != null) {
+			sha512.update(data, offset, length);
+		}
+	}
+
+	/**
+	 * Reads the given file once and updates all checksums.
+	 *
+	 * @param fileOnDisk
+	 * @return this
+	 * @throws IOException
+	 */
+	public FileChecksums read(final java.io.File fileOnDisk) throws IOException {
+
+		final byte[] buffer = new byte[65536];
+
+		try (final InputStream is = new FileInputStream(fileOnDisk)) {
+
+			int count = 0;
+
+			while ((count = is.read(buffer)) != -1) {
+				update(buffer, 0, count);
+			}
+		}
+
+		return this;
+	}
+
+	/**
+	 * Returns an output stream that updates the checksums with all data
+	 * written to the given stream.
+	 *
+	 * @param out
+	 * @return the output stream
+	 */
+	public OutputStream wrap(final OutputStream out) {
+		return new ChecksumOutputStream(out);
+	}
+
+	/**
+	 * Returns the xxHash checksum of the data.
+	 *
+	 * @return the checksum
+	 */
+	public long getChecksum() {
+		return xxHash.getValue();
+	}
+
+	/**
+	 * Returns the checksums as properties of {@link File}. The checksums
+	 * are final after the first call of this method.
+	 *
+	 * @return the checksum properties
+	 */
+	public PropertyMap getProperties() {
+
+		if (result != null) {
+			return result;
+		}
+
+		final PropertyMap properties = new PropertyMap();
+
+		properties.put(StructrApp.key(File.class, "checksum"), getChecksum());
+
+		if (crc32 != null) {
+			properties.put(StructrApp.key(File.class, "crc32"), crc32.getValue());
+		}
+
+		if (md5 != null) {
+			properties.put(StructrApp.key(File.class, "md5"), Hex.encodeHexString(md5.digest()));
+		}
+
+		if (sha1 != null) {
+			properties.put(StructrApp.key(File.class, "sha1"), Hex.encodeHexString(sha1.digest()));
+		}
+
+		if (sha512 != null) {
+			properties.put(StructrApp.key(File.class, "sha512"), Hex.encodeHexString(sha512.digest()));
+		}
+
+		result = properties;
+
+		return properties;
+	}
+
+	// ----- private methods -----
+	private MessageDigest getDigest(final String algorithm) {
+
+		try {
+
+			return MessageDigest.getInstance(algorithm);
+
+		} catch (NoSuchAlgorithmException nsaex) {
+			throw new IllegalArgumentException(nsaex);
+		}
+	}
+
+	// ----- nested classes -----
+	private class ChecksumOutputStream extends FilterOutputStream {
+
+		public ChecksumOutputStream(final OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+
+			out.write(b);
+			update(new byte[] { (byte)b }, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] data, final int offset, final int length) throws IOException {
+
+			out.write(data, offset, length);
+			update(data, offset, length);
+		}
+	}
+
+	/**
+	 * Streaming implementation of the 64-bit xxHash algorithm with seed 0,
+	 * which yields the same values as {@link FileHelper#getChecksum}.
+	 */
+	private static class XXHash64 {
+
+		private static final long PRIME1 = 0x9E3779B185EBCA87L;
+		private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+		private static final long PRIME3 = 0x165667B19E3779F9L;
+		private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+		private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+		private final byte[] buffer = new byte[32];
+		private long v1             = PRIME1 + PRIME2;
+		private long v2             = PRIME2;
+		private long v3             = 0L;
+		private long v4             = -PRIME1;
+		private long totalLength    = 0L;
+		private int bufferLength    = 0;
+
+		public void update(final byte[] data, final int offset, final int length) {
+
+			final int end = offset + length;
+			int position  = offset;
+
+			totalLength += length;
+
+			// complete a partially filled stripe first
+			if (bufferLength > 0) {
+
+				final int count = Math.min(32 - bufferLength, length);
+
+				System.arraycopy(data, position, buffer, bufferLength, count);
+
+				bufferLength += count;
+				position     += count;
+
+				if (bufferLength < 32) {
+					return;
+				}
+
+				processStripe(buffer, 0);
+				bufferLength = 0;
+			}
+
+			while (position + 32 <= end) {
+
+				processStripe(data, position);
+				position += 32;
+			}
+
+			if (position < end) {
+
+				System.arraycopy(data, position, buffer, 0, end - position);
+				bufferLength = end - position;
+			}
+		}
+
+		public long getValue() {
+
+			long hash = 0L;
+
+			if (totalLength >= 32) {
+
+				hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+				hash = mergeRound(hash, v1);
+				hash = mergeRound(hash, v2);
+				hash = mergeRound(hash, v3);
+				hash = mergeRound(hash, v4);
+
+			} else {
+
+				hash = PRIME5;
+			}
+
+			hash += totalLength;
+
+			int position = 0;
+
+			while (position + 8 <= bufferLength) {
+
+				hash ^= round(0L, getLong(buffer, position));
+				hash  = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+
+				position += 8;
+			}
+
+			if (position + 4 <= bufferLength) {
+
+				hash ^= (getInt(buffer, position) & 0xFFFFFFFFL) * PRIME1;
+				hash  = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+
+				position += 4;
+			}
+
+			while (position < bufferLength) {
+
+				hash ^= (buffer[position] & 0xFFL) * PRIME5;
+				hash  = Long.rotateLeft(hash, 11) * PRIME1;
+
+				position++;
+			}
+
+			hash ^= hash >>> 33;
+			hash *= PRIME2;
+			hash ^= hash >>> 29;
+			hash *= PRIME3;
+			hash ^= hash >>> 32;
+
+			return hash;
+		}
+
+		private void processStripe(final byte[] data, final int offset) {
+
+			v1 = round(v1, getLong(data, offset));
+			v2 = round(v2, getLong(data, offset + 8));
+			v3 = round(v3, getLong(data, offset + 16));
+			v4 = round(v4, getLong(data, offset + 24));
+		}
+
+		private static long round(final long accumulator, final long input) {
+			return Long.rotateLeft(accumulator + input * PRIME2, 31) * PRIME1;
+		}
+
+		private static long mergeRound(final long accumulator, final long value) {
+			return (accumulator ^ round(0L, value)) * PRIME1 + PRIME4;
+		}
+
+		private static long getLong(final byte[] data, final int offset) {
+			return (getInt(data, offset) & 0xFFFFFFFFL) | ((long)getInt(data, offset + 4) << 32);
+		}
+
+		private static int getInt(final byte[] data, final int offset) {
+			return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8) | ((data[offset + 2] & 0xFF) << 16) | ((data[offset + 3] & 0xFF) << 24);
+		}
+	}
+}
@@ -23,12 +23,12 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import javax.activation.MimetypesFileTypeMap;
-import net.openhft.hashing.LongHashFunction;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -38,7 +38,6 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.structr.api.config.Settings;
 import org.structr.common.PathHelper;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
@@ -60,6 +59,7 @@ import org.structr.web.entity.Image;
 public class FileHelper {
 
 	private static final String UNKNOWN_MIME_TYPE         = "application/octet-stream";
+	private static final String CHECKSUMS_KEY             = "FileHelper.checksums";
 	private static final Logger logger                    = LoggerFactory.getLogger(FileHelper.class.getName());
 	private static final MimetypesFileTypeMap mimeTypeMap = new MimetypesFileTypeMap(FileHelper.class.getResourceAsStream("/mime.types"));
 
@@ -247,8 +247,12 @@ public class FileHelper {
 	 */
 	public static void setFileData(final File file, final byte[] fileData, final String contentType) throws FrameworkException, IOException {
 
+		final FileChecksums checksums = FileChecksums.forFile(file);
+
 		FileHelper.writeToFile(file, fileData);
-		setFileProperties(file, contentType);
+		checksums.update(fileData, 0, fileData.length);
+
+		setFileProperties(file, contentType, checksums);
 	}
 
 	/**
@@ -262,8 +266,11 @@ public class FileHelper {
 	 */
 	public static void setFileData(final File file, final InputStream fileStream, final String contentType) throws FrameworkException, IOException {
 
-		FileHelper.writeToFile(file, fileStream);
-		setFileProperties(file, contentType);
+		final FileChecksums checksums = FileChecksums.forFile(file);
+
+		// calculate checksums while the data is written
+		FileHelper.writeToFile(file, fileStream, checksums);
+		setFileProperties(file, contentType, checksums);
 	}
 
 	/**
@@ -275,6 +282,19 @@ public class FileHelper {
 	 * @throws IOException
 	 */
 	public static void setFileProperties (final File file, final String contentType) throws IOException, FrameworkException {
+		setFileProperties(file, contentType, null);
+	}
+
+	/**
+	 * Set the contentType, checksum, size and version properties of the given fileNode
+	 *
+	 * @param file
+	 * @param contentType if null, try to auto-detect content type
+	 * @param checksums the checksums of the file content, or null to read the file
+	 * @throws FrameworkException
+	 * @throws IOException
+	 */
+	private static void setFileProperties (final File file, final String contentType, final FileChecksums checksums) throws IOException, FrameworkException {
 
 		final java.io.File fileOnDisk = file.getFileOnDisk(false);
 		final PropertyMap map         = new PropertyMap();
@@ -283,9 +303,34 @@ public class FileHelper {
 		map.put(StructrApp.key(File.class, "size"),        FileHelper.getSize(fileOnDisk));
 		map.put(StructrApp.key(File.class, "version"),     1);
 
-		map.putAll(getChecksums(file, fileOnDisk));
+		if (checksums != null) {
+
+			map.putAll(checksums.getProperties());
+
+		} else {
+
+			map.putAll(getChecksums(file, fileOnDisk));
+		}
 
 		file.setProperties(file.getSecurityContext(), map);
+
+		markChecksumsCurrent(file, fileOnDisk);
+	}
+
+	/**
+	 * Set the checksum properties of the given file from checksums that
+	 * were calculated while the file was written, so that they do not
+	 * need to be calculated again when the upload is completed.
+	 *
+	 * @param file
+	 * @param checksums
+	 * @throws FrameworkException
+	 */
+	public static void setChecksums(final File file, final FileChecksums checksums) throws FrameworkException {
+
+		file.setProperties(file.getSecurityContext(), checksums.getProperties());
+
+		markChecksumsCurrent(file, file.getFileOnDisk(false));
 	}
 
 	/**
@@ -314,7 +359,8 @@ public class FileHelper {
 	}
 
 	/**
-	 * Calculate checksums that are configured in settings of parent folder.
+	 * Calculate checksums that are configured in settings of parent folder,
+	 * reading the file only once.
 	 *
 	 * @param file
 	 * @param fileOnDisk
@@ -322,43 +368,9 @@ public class FileHelper {
 	 * @throws IOException
 	 */
 	private static PropertyMap getChecksums(final File file, final java.io.File fileOnDisk) throws IOException {
-
-		final PropertyMap propertiesWithChecksums = new PropertyMap();
-
-		Folder parentFolder = file.getParent();
-		String checksums = null;
-
-		while (parentFolder != null && checksums == null) {
-
-			checksums    = parentFolder.getEnabledChecksums();
-			parentFolder = parentFolder.getParent();
-		}
-
-		if (checksums == null) {
-			checksums = Settings.DefaultChecksums.getValue();
-		}
-
-		// New, very fast xxHash default checksum, will always be calculated
-		propertiesWithChecksums.put(StructrApp.key(File.class, "checksum"), FileHelper.getChecksum(fileOnDisk));
-
-		if (StringUtils.contains(checksums, "crc32"))	{
-			propertiesWithChecksums.put(StructrApp.key(File.class, "crc32"), FileHelper.getChecksum(fileOnDisk));
-		}
-
-		if (StringUtils.contains(checksums, "md5"))	{
-			propertiesWithChecksums.put(StructrApp.key(File.class, "md5"), FileHelper.getMD5Checksum(file));
-		}
-
-		if (StringUtils.contains(checksums, "sha1"))	{
-			propertiesWithChecksums.put(StructrApp.key(File.class, "sha1"), FileHelper.getSHA1Checksum(file));
-		}
-
-		if (StringUtils.contains(checksums, "sha512"))	{
-			propertiesWithChecksums.put(StructrApp.key(File.class, "sha512"), FileHelper.getSHA512Checksum(file));
-		}
-
-		return propertiesWithChecksums;
+		return FileChecksums.forFile(file).read(fileOnDisk).getProperties();
 	}
+
 	/**
 	 * Update checksums, content type, size and additional properties of the given file
 	 *
@@ -407,8 +419,10 @@ public class FileHelper {
 
 				map.put(fileModificationDateKey, fileOnDisk.lastModified());
 
-				if (calcChecksums) {
+				if (calcChecksums && !hasCurrentChecksums(file, fileOnDisk)) {
+
 					map.putAll(getChecksums(file, fileOnDisk));
+					markChecksumsCurrent(file, fileOnDisk);
 				}
 
 				if (contentType != null) {
@@ -519,6 +533,7 @@ public class FileHelper {
 	public static void writeToFile(final File fileNode, final byte[] data) throws FrameworkException, IOException {
 
 		setFileProperties(fileNode);
+		invalidateChecksums(fileNode);
 
 		FileUtils.writeByteArrayToFile(fileNode.getFileOnDisk(), data);
 
@@ -533,15 +548,64 @@ public class FileHelper {
 	 * @throws IOException
 	 */
 	public static void writeToFile(final File fileNode, final InputStream data) throws FrameworkException, IOException {
+		writeToFile(fileNode, data, null);
+	}
+
+	/**
+	 * Write binary data from FileInputStream to a file and reference the file on disk at the given file node,
+	 * and update the given checksums with the data
+	 *
+	 * @param fileNode
+	 * @param data	The input stream from which to read the file data (Stream is not closed automatically - has to be handled by caller)
+	 * @param checksums the checksums to update, or null
+	 * @throws FrameworkException
+	 * @throws IOException
+	 */
+	public static void writeToFile(final File fileNode, final InputStream data, final FileChecksums checksums) throws FrameworkException, IOException {
 
 		setFileProperties(fileNode);
+		invalidateChecksums(fileNode);
 
-		try (final FileOutputStream out = new FileOutputStream(fileNode.getFileOnDisk())) {
+		try (final OutputStream out = getOutputStream(fileNode.getFileOnDisk(), checksums)) {
 
 			IOUtils.copy(data, out);
 		}
 	}
 
+	/**
+	 * Forget that the checksums of the given file are up to date, must
+	 * be called whenever the content of the file is written, because the
+	 * modification date and size of the file on disk can remain unchanged.
+	 *
+	 * @param file
+	 */
+	public static void invalidateChecksums(final File file) {
+		file.getTemporaryStorage().remove(CHECKSUMS_KEY);
+	}
+
+	private static void markChecksumsCurrent(final File file, final java.io.File fileOnDisk) {
+		file.getTemporaryStorage().put(CHECKSUMS_KEY, getChecksumsVersion(fileOnDisk));
+	}
+
+	private static boolean hasCurrentChecksums(final File file, final java.io.File fileOnDisk) {
+		return getChecksumsVersion(fileOnDisk).equals(file.getTemporaryStorage().get(CHECKSUMS_KEY));
+	}
+
+	private static String getChecksumsVersion(final java.io.File fileOnDisk) {
+		return fileOnDisk.lastModified() + ":" + fileOnDisk.length();
+	}
+
+	private static OutputStream getOutputStream(final java.io.File fileOnDisk, final FileChecksums checksums) throws IOException {
+
+		final OutputStream out = new FileOutputStream(fileOnDisk);
+
+		if (checksums != null) {
+			return checksums.wrap(out);
+		}
+
+		return out;
+	}
+
 	/**
 	 * Return mime type of given file
 	 *
@@ -738,7 +802,7 @@ public class FileHelper {
 	}
 
 	public static Long getChecksum(final java.io.File fileOnDisk) throws IOException {
-		return LongHashFunction.xx().hashBytes(FileUtils.readFileToByteArray(fileOnDisk));
+		return new FileChecksums(null).read(fileOnDisk).getChecksum();
 	}
 
 	public static Long getCRC32Checksum(final java.io.File fileOnDisk) throws IOException {
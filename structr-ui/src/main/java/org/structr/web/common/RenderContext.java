@@ -18,8 +18,12 @@
  */
 package org.structr.web.common;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -30,6 +34,7 @@ import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
 import org.structr.core.Result;
 import org.structr.core.entity.Principal;
+import org.structr.core.graph.NodeInterface;
 import org.structr.core.property.PropertyKey;
 import org.structr.rest.ResourceProvider;
 import org.structr.schema.action.ActionContext;
@@ -48,6 +53,7 @@ public class RenderContext extends ActionContext {
 
 	private final Map<String, GraphObject> dataObjects = new LinkedHashMap<>();
 	private final Stack<SecurityContext> scStack       = new Stack<>();
+	private Set<Class> dataSourceTypes                 = new LinkedHashSet<>();
 	private EditMode editMode                          = EditMode.NONE;
 	private AsyncBuffer buffer                         = new AsyncBuffer();
 	private int depth                                  = 0;
@@ -88,6 +94,7 @@ public class RenderContext extends ActionContext {
 		super(other);
 
 		this.dataObjects.putAll(other.dataObjects);
+		this.dataSourceTypes = other.dataSourceTypes;
 		this.editMode = other.editMode;
 		this.inBody = other.inBody;
 		this.appLibRendered = other.appLibRendered;
@@ -324,6 +331,10 @@ public class RenderContext extends ActionContext {
 
 	}
 
+	public Map<String, GraphObject> getDataObjects() {
+		return Collections.unmodifiableMap(dataObjects);
+	}
+
 	public void clearDataObject(String key) {
 		dataObjects.remove(key);
 		setDataObject(null);
@@ -349,6 +360,28 @@ public class RenderContext extends ActionContext {
 		return result;
 	}
 
+	/**
+	 * Records the types of the given data source result, so that cached
+	 * output can be discarded when nodes of these types are modified.
+	 *
+	 * @param result
+	 */
+	public void addDataSourceResult(final List<GraphObject> result) {
+
+		// an empty result can be changed by any new node
+		if (result.isEmpty()) {
+			dataSourceTypes.add(NodeInterface.class);
+		}
+
+		for (final GraphObject obj : result) {
+			dataSourceTypes.add(obj.getClass());
+		}
+	}
+
+	public Set<Class> getDataSourceTypes() {
+		return Collections.unmodifiableSet(dataSourceTypes);
+	}
+
 	public void setAnyChildNodeCreatesNewLine(final boolean anyChildNodeCreatesNewLine) {
 		this.anyChildNodeCreatesNewLine = anyChildNodeCreatesNewLine;
 	}
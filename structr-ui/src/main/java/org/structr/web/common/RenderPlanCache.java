@@ -0,0 +1,309 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.lang3.StringUtils;
+import org.structr.api.config.Settings;
+import org.structr.api.graph.RelationshipType;
+import org.structr.api.util.FixedSizeCache;
+import org.structr.common.PropertyView;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.StructrTransactionListener;
+import org.structr.core.TransactionSource;
+import org.structr.core.app.StructrApp;
+import org.structr.core.graph.ModificationEvent;
+import org.structr.core.graph.RelationshipInterface;
+import org.structr.core.graph.TransactionCommand;
+import org.structr.core.property.PropertyKey;
+import org.structr.core.property.StringProperty;
+import org.structr.web.entity.dom.Content;
+import org.structr.web.entity.dom.DOMElement;
+import org.structr.web.entity.dom.DOMNode;
+import org.structr.web.entity.dom.Template;
+
+/**
+ * Cache for the pre-rendered output of static DOM subtrees.
+ *
+ * A subtree is static if none of its nodes contains a script expression,
+ * a repeater, a show/hide condition or anything else that depends on the
+ * request, and if all of its nodes are visible to every user. The output
+ * of such a subtree is rendered once and then copied into the response,
+ * so that only the dynamic parts of a page are evaluated on every request.
+ *
+ * Every committed modification of a DOM node or of the CONTAINS or SYNC
+ * relationships between DOM nodes increases the content version, which
+ * makes all cached output stale.
+ */
+public class RenderPlanCache implements StructrTransactionListener {
+
+	private static final FixedSizeCache<String, Entry> cache = new FixedSizeCache<>(Math.max(1, Settings.HtmlRenderPlanCacheSize.getValue()));
+	private static final StringProperty actionProperty       = new StringProperty(DOMElement.STRUCTR_ACTION_PROPERTY);
+	private static final RenderPlanCache instance            = new RenderPlanCache();
+	private static final AtomicLong version                  = new AtomicLong();
+	private static final LongAdder misses                    = new LongAdder();
+	private static final LongAdder hits                      = new LongAdder();
+
+	static {
+
+		// register on first use, so that rendering outside of the HtmlServlet is covered as well
+		TransactionCommand.registerTransactionListener(instance);
+	}
+
+	public static RenderPlanCache getInstance() {
+		return instance;
+	}
+
+	public static boolean isEnabled() {
+		return Settings.HtmlRenderPlanCacheSize.getValue() > 0;
+	}
+
+	/**
+	 * Renders the given node, using the cached output of its subtree
+	 * if the subtree is static. Must only be called for nodes without
+	 * a data key in edit mode NONE.
+	 *
+	 * @param thisNode
+	 * @param renderContext
+	 * @param depth
+	 * @throws FrameworkException
+	 */
+	public static void render(final DOMNode thisNode, final RenderContext renderContext, final int depth) throws FrameworkException {
+
+		final AsyncBuffer out = renderContext.getBuffer();
+
+		// the output of this node is already part of a subtree that is being cached
+		if (out instanceof CachingBuffer) {
+
+			thisNode.renderContent(renderContext, depth);
+			return;
+		}
+
+		final String key   = thisNode.getUuid() + "|" + depth + "|" + renderContext.shouldIndentHtml();
+		final Entry entry  = get(key);
+
+		if (entry != null) {
+
+			if (entry.content != null) {
+
+				out.append(entry.content);
+
+			} else {
+
+				thisNode.renderContent(renderContext, depth);
+			}
+
+			return;
+		}
+
+		// read content version before rendering starts
+		final long contentVersion = version.get();
+
+		if (!isStatic(thisNode)) {
+
+			put(key, contentVersion, null);
+			thisNode.renderContent(renderContext, depth);
+			return;
+		}
+
+		final CachingBuffer buffer = new CachingBuffer();
+
+		renderContext.setBuffer(buffer);
+
+		try {
+
+			thisNode.renderContent(renderContext, depth);
+
+		} finally {
+
+			renderContext.setBuffer(out);
+		}
+
+		final String content = buffer.getBuffer().toString();
+
+		put(key, contentVersion, content);
+		out.append(content);
+	}
+
+	public static void invalidate() {
+
+		version.incrementAndGet();
+		cache.clear();
+	}
+
+	public static long getHitCount() {
+		return hits.sum();
+	}
+
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	// ----- private methods -----
+	private static Entry get(final String key) {
+
+		final Entry entry = cache.get(key);
+		if (entry != null) {
+
+			if (entry.version == version.get()) {
+
+				hits.increment();
+
+				return entry;
+			}
+
+			cache.remove(key);
+		}
+
+		misses.increment();
+
+		return null;
+	}
+
+	private static void put(final String key, final long contentVersion, final String content) {
+
+		if (contentVersion == version.get()) {
+
+			cache.put(key, new Entry(contentVersion, content));
+		}
+	}
+
+	private static boolean isStatic(final DOMNode node) {
+
+		// only elements and plain content nodes produce request-independent output
+		if (!(node instanceof DOMElement || node instanceof Content) || node instanceof Template) {
+			return false;
+		}
+
+		if (node.isDeleted() || node.isHidden() || !node.isVisibleToPublicUsers() || !node.isVisibleToAuthenticatedUsers()) {
+			return false;
+		}
+
+		if (node.hideOnIndex() || node.hideOnDetail() || StringUtils.isNotBlank(node.getDataKey()) || node.getSharedComponent() != null) {
+			return false;
+		}
+
+		for (final String name : new String[] { "showConditions", "hideConditions", "showForLocales", "hideForLocales", "sharedComponentConfiguration" }) {
+
+			if (StringUtils.isNotBlank((String)node.getProperty(StructrApp.key(DOMNode.class, name)))) {
+				return false;
+			}
+		}
+
+		if (node instanceof Content) {
+
+			return !containsScript(node.getProperty(StructrApp.key(Content.class, "content")));
+		}
+
+		if (node.getProperty(actionProperty) != null) {
+			return false;
+		}
+
+		for (final PropertyKey key : StructrApp.getConfiguration().getPropertySet(node.getClass(), PropertyView.Html)) {
+
+			if (containsScript(node.getProperty(key))) {
+				return false;
+			}
+		}
+
+		for (final PropertyKey key : node.getDataPropertyKeys()) {
+
+			if (containsScript(node.getProperty(key))) {
+				return false;
+			}
+		}
+
+		for (final RelationshipInterface rel : node.getChildRelationships()) {
+
+			if (!isStatic((DOMNode)rel.getTargetNode())) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean containsScript(final Object value) {
+		return value instanceof String && ((String)value).contains("${");
+	}
+
+	private boolean affectsDOM(final ModificationEvent event) {
+
+		if (event.isNode()) {
+
+			return event.getGraphObject() instanceof DOMNode;
+		}
+
+		final RelationshipType type = event.getRelationshipType();
+		if (type != null) {
+
+			return "CONTAINS".equals(type.name()) || "CONTAINS_NEXT_SIBLING".equals(type.name()) || "SYNC".equals(type.name());
+		}
+
+		// be conservative if the type is unknown
+		return true;
+	}
+
+	// ----- interface StructrTransactionListener -----
+	@Override
+	public void beforeCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) {
+
+		for (final ModificationEvent event : modificationEvents) {
+
+			if (affectsDOM(event)) {
+
+				version.incrementAndGet();
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void afterCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) {
+
+		// invalidate again so that output rendered while the transaction was committed is discarded
+		for (final ModificationEvent event : modificationEvents) {
+
+			if (affectsDOM(event)) {
+
+				invalidate();
+				return;
+			}
+		}
+	}
+
+	// ----- nested classes -----
+	private static class Entry {
+
+		private String content = null;
+		private long version   = 0L;
+
+		public Entry(final long version, final String content) {
+
+			this.content = content;
+			this.version = version;
+		}
+	}
+
+	private static class CachingBuffer extends StringRenderBuffer {
+	}
+}
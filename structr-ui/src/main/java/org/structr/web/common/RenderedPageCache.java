@@ -0,0 +1,371 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.http.HttpServletRequest;
+import org.structr.api.config.Settings;
+import org.structr.common.SecurityContext;
+import org.structr.core.GraphObject;
+import org.structr.core.StructrTransactionListener;
+import org.structr.core.TransactionSource;
+import org.structr.core.graph.ModificationEvent;
+import org.structr.core.graph.NodeInterface;
+import org.structr.core.graph.RelationshipInterface;
+import org.structr.web.entity.dom.DOMNode;
+import org.structr.web.entity.dom.Page;
+import org.structr.web.entity.dom.ShadowDocument;
+
+/**
+ * Server-side cache for the rendered output of public pages.
+ *
+ * Only pages with a positive cacheForSeconds value are cached, for at most
+ * that many seconds. A cached page is discarded when a DOM node of the page,
+ * or a shared component that is used in the page, is modified, and when a
+ * node of one of the types that the data sources of the page returned (or
+ * the details object) is modified. Other data that a page reads in script
+ * expressions is only refreshed after cacheForSeconds. The key contains the
+ * request URL and the locale, so pages that depend on other request data
+ * (e.g. headers or cookies) must not use cacheForSeconds.
+ */
+public class RenderedPageCache implements StructrTransactionListener {
+
+	private static final Map<String, Entry> cache   = new LinkedHashMap<>(16, 0.75f, true);
+	private static final RenderedPageCache instance = new RenderedPageCache();
+	private static final AtomicLong version         = new AtomicLong();
+	private static final LongAdder misses           = new LongAdder();
+	private static final LongAdder hits             = new LongAdder();
+
+	public static RenderedPageCache getInstance() {
+		return instance;
+	}
+
+	public static boolean isEnabled() {
+		return Settings.HtmlPageCacheSize.getValue() > 0;
+	}
+
+	/**
+	 * Returns the cache key for the given page and request, or null if
+	 * the output of the given page must not be cached.
+	 *
+	 * @param page
+	 * @param request
+	 * @param renderContext
+	 * @return the cache key or null
+	 */
+	public static String getKey(final Page page, final HttpServletRequest request, final RenderContext renderContext) {
+
+		final Integer seconds = page.getCacheForSeconds();
+		if (!isEnabled() || seconds == null || seconds <= 0) {
+
+			return null;
+		}
+
+		final StringBuilder buf = new StringBuilder();
+
+		buf.append(page.getUuid());
+		buf.append("|");
+		buf.append(request.getServerName());
+		buf.append("|");
+		buf.append(request.getServerPort());
+		buf.append("|");
+		buf.append(request.getPathInfo());
+		buf.append("|");
+		buf.append(request.getQueryString());
+		buf.append("|");
+		buf.append(renderContext.getLocale());
+
+		return buf.toString();
+	}
+
+	public static Entry get(final String key) {
+
+		synchronized (cache) {
+
+			final Entry entry = cache.get(key);
+			if (entry != null) {
+
+				if (entry.expires > System.currentTimeMillis()) {
+
+					hits.increment();
+
+					return entry;
+				}
+
+				cache.remove(key);
+			}
+		}
+
+		misses.increment();
+
+		return null;
+	}
+
+	/**
+	 * Stores the rendered output of the given page for the given key,
+	 * together with the types of the data that was rendered. The content
+	 * version must be read before rendering starts, so that output that
+	 * was rendered during a modification is never stored as current.
+	 *
+	 * @param key
+	 * @param contentVersion
+	 * @param page
+	 * @param renderContext
+	 * @param content
+	 */
+	public static void put(final String key, final long contentVersion, final Page page, final RenderContext renderContext, final byte[] content) {
+
+		final Set<Class> types          = new LinkedHashSet<>(renderContext.getDataSourceTypes());
+		final GraphObject detailsObject = renderContext.getDetailsDataObject();
+
+		if (detailsObject != null) {
+			types.add(detailsObject.getClass());
+		}
+
+		final long expires = System.currentTimeMillis() + (page.getCacheForSeconds() * 1000L);
+		final Entry entry  = new Entry(page.getUuid(), types, expires, content);
+
+		synchronized (cache) {
+
+			if (contentVersion == version.get()) {
+
+				cache.put(key, entry);
+
+				final int maxSize         = Settings.HtmlPageCacheSize.getValue();
+				final Iterator<String> it = cache.keySet().iterator();
+
+				while (cache.size() > maxSize && it.hasNext()) {
+
+					it.next();
+					it.remove();
+				}
+			}
+		}
+	}
+
+	public static long getVersion() {
+		return version.get();
+	}
+
+	public static void invalidate() {
+
+		synchronized (cache) {
+
+			version.incrementAndGet();
+			cache.clear();
+		}
+	}
+
+	public static long getHitCount() {
+		return hits.sum();
+	}
+
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	// ----- private methods -----
+	private static void invalidate(final Collection<ModificationEvent> modificationEvents) {
+
+		final Set<String> modifiedPageIds = new LinkedHashSet<>();
+		final Set<Class> modifiedTypes    = new LinkedHashSet<>();
+		boolean relationshipsModified     = false;
+		boolean all                       = false;
+
+		for (final ModificationEvent event : modificationEvents) {
+
+			final GraphObject obj = event.getGraphObject();
+			if (obj == null) {
+
+				all = true;
+				break;
+			}
+
+			try {
+
+				if (obj instanceof DOMNode) {
+
+					all |= !collectPageIds((DOMNode)obj, modifiedPageIds);
+
+				} else if (obj instanceof RelationshipInterface) {
+
+					final NodeInterface sourceNode = ((RelationshipInterface)obj).getSourceNode();
+					final NodeInterface targetNode = ((RelationshipInterface)obj).getTargetNode();
+
+					if (sourceNode instanceof DOMNode || targetNode instanceof DOMNode) {
+
+						// changes of the DOM structure
+						for (final NodeInterface node : new NodeInterface[] { sourceNode, targetNode }) {
+
+							if (node instanceof DOMNode) {
+								all |= !collectPageIds((DOMNode)node, modifiedPageIds);
+							}
+						}
+
+					} else {
+
+						// relationships can change the result of any data source
+						relationshipsModified = true;
+					}
+
+				} else {
+
+					modifiedTypes.add(obj.getClass());
+				}
+
+			} catch (Throwable t) {
+
+				// e.g. deleted nodes whose page cannot be determined any more
+				all = true;
+			}
+
+			if (all) {
+				break;
+			}
+		}
+
+		synchronized (cache) {
+
+			// discard output that is rendered while the transaction is committed
+			version.incrementAndGet();
+
+			if (all) {
+
+				cache.clear();
+				return;
+			}
+
+			final Iterator<Entry> it = cache.values().iterator();
+			while (it.hasNext()) {
+
+				if (it.next().dependsOn(modifiedPageIds, modifiedTypes, relationshipsModified)) {
+					it.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collects the IDs of the pages that render the given DOM node, and
+	 * returns false if they cannot be determined.
+	 */
+	private static boolean collectPageIds(final DOMNode node, final Set<String> pageIds) {
+
+		final Page page = node instanceof Page ? (Page)node : node.getOwnerDocumentAsSuperUser();
+		if (page == null) {
+
+			return false;
+		}
+
+		if (page instanceof ShadowDocument) {
+
+			// shared components are rendered in all pages that contain a synced node of the component or of one of its parents
+			for (DOMNode current = node; current != null; current = current.getParent()) {
+
+				for (final DOMNode syncedNode : current.getSyncedNodes()) {
+
+					final Page syncedPage = syncedNode.getOwnerDocumentAsSuperUser();
+					if (syncedPage != null) {
+
+						pageIds.add(syncedPage.getUuid());
+					}
+				}
+			}
+
+		} else {
+
+			pageIds.add(page.getUuid());
+		}
+
+		return true;
+	}
+
+	// ----- interface StructrTransactionListener -----
+	@Override
+	public void beforeCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) {
+
+		if (!modificationEvents.isEmpty()) {
+			version.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void afterCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) {
+
+		if (!modificationEvents.isEmpty()) {
+			invalidate(modificationEvents);
+		}
+	}
+
+	// ----- nested classes -----
+	public static class Entry {
+
+		private Set<Class> types = null;
+		private String pageId    = null;
+		private byte[] content   = null;
+		private long expires     = 0L;
+
+		public Entry(final String pageId, final Set<Class> types, final long expires, final byte[] content) {
+
+			this.pageId  = pageId;
+			this.types   = Collections.unmodifiableSet(types);
+			this.expires = expires;
+			this.content = content;
+		}
+
+		public byte[] getContent() {
+			return content;
+		}
+
+		public boolean dependsOn(final Set<String> modifiedPageIds, final Set<Class> modifiedTypes, final boolean relationshipsModified) {
+
+			if (modifiedPageIds.contains(pageId)) {
+				return true;
+			}
+
+			if (types.isEmpty()) {
+				return false;
+			}
+
+			if (relationshipsModified) {
+				return true;
+			}
+
+			for (final Class modifiedType : modifiedTypes) {
+
+				for (final Class type : types) {
+
+					if (type.isAssignableFrom(modifiedType) || modifiedType.isAssignableFrom(type)) {
+						return true;
+					}
+				}
+			}
+
+			return false;
+		}
+	}
+}
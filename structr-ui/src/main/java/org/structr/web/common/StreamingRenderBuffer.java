@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bounded render buffer that connects a render thread with an asynchronous
+ * writer. Rendered output is encoded to UTF-8 once, into pooled byte chunks.
+ * The render thread blocks when the maximum number of chunks is queued, the
+ * writer registers a callback that is called when new data is available.
+ */
+public class StreamingRenderBuffer extends AsyncBuffer {
+
+	private static final int CHUNK_SIZE                  = 8192;
+	private static final int MAX_CHUNKS                  = 32;
+	private static final BlockingQueue<ByteBuffer> pool  = new ArrayBlockingQueue<>(1024);
+
+	private final BlockingQueue<ByteBuffer> chunks       = new ArrayBlockingQueue<>(MAX_CHUNKS);
+	private final AtomicReference<Runnable> resume       = new AtomicReference<>();
+	private final CharsetEncoder encoder                 = StandardCharsets.UTF_8.newEncoder();
+	private ByteBuffer current                           = null;
+	private volatile boolean cancelled                   = false;
+	private volatile boolean finished                    = false;
+
+	public StreamingRenderBuffer() {
+
+		encoder.onMalformedInput(CodingErrorAction.REPLACE);
+		encoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	@Override
+	public AsyncBuffer append(final String s) {
+
+		if (s != null && !cancelled) {
+
+			encode(CharBuffer.wrap(s), false);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Publishes the remaining output and marks the end of the stream,
+	 * must be called by the render thread when rendering is done.
+	 */
+	public void finish() {
+
+		if (!cancelled) {
+
+			encode(CharBuffer.allocate(0), true);
+
+			while (encoder.flush(current()).isOverflow()) {
+				publish();
+			}
+
+			if (current != null && current.position() > 0) {
+				publish();
+			}
+		}
+
+		finished = true;
+
+		signal();
+	}
+
+	/**
+	 * Discards all buffered output and unblocks the render thread, to
+	 * be called by the writer when the client connection is lost.
+	 */
+	public void cancel() {
+
+		cancelled = true;
+
+		chunks.clear();
+	}
+
+	/**
+	 * Returns the next chunk of encoded output without blocking, or null
+	 * if no output is available at the moment.
+	 *
+	 * @return the next chunk, ready to be read, or null
+	 */
+	public ByteBuffer poll() {
+		return chunks.poll();
+	}
+
+	/**
+	 * Returns true when the render thread has finished and all
+	 * output has been consumed.
+	 *
+	 * @return whether the end of the stream was reached
+	 */
+	public boolean isDone() {
+		return finished && chunks.isEmpty();
+	}
+
+	/**
+	 * Registers a callback that is run once as soon as new output is
+	 * available or the stream is finished.
+	 *
+	 * @param callback
+	 * @return false if output became available in the meantime, in which case the callback is not registered
+	 */
+	public boolean suspend(final Runnable callback) {
+
+		resume.set(callback);
+
+		// check again to close the race with the render thread
+		if ((!chunks.isEmpty() || finished) && resume.compareAndSet(callback, null)) {
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns a chunk to the pool once the writer is done with it.
+	 *
+	 * @param chunk
+	 */
+	public void release(final ByteBuffer chunk) {
+
+		chunk.clear();
+		pool.offer(chunk);
+	}
+
+	// ----- private methods -----
+	private void encode(final CharBuffer input, final boolean endOfInput) {
+
+		while (!cancelled) {
+
+			final CoderResult result = encoder.encode(input, current(), endOfInput);
+			if (result.isOverflow()) {
+
+				publish();
+
+			} else {
+
+				break;
+			}
+		}
+	}
+
+	private ByteBuffer current() {
+
+		if (current == null) {
+
+			current = pool.poll();
+			if (current == null) {
+
+				current = ByteBuffer.allocate(CHUNK_SIZE);
+			}
+		}
+
+		return current;
+	}
+
+	private void publish() {
+
+		final ByteBuffer chunk = current;
+
+		current = null;
+		chunk.flip();
+
+		try {
+
+			// block while the writer is behind, re-check cancellation regularly
+			while (!cancelled && !chunks.offer(chunk, 1, TimeUnit.SECONDS)) {}
+
+		} catch (InterruptedException iex) {
+
+			Thread.currentThread().interrupt();
+			cancelled = true;
+		}
+
+		signal();
+	}
+
+	private void signal() {
+
+		final Runnable callback = resume.getAndSet(null);
+		if (callback != null) {
+
+			callback.run();
+		}
+	}
+}
@@ -18,12 +18,15 @@
  */
 package org.structr.web.datasource;
 
+import java.util.List;
 import org.codehaus.plexus.util.StringUtils;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
+import org.structr.core.Result;
 import org.structr.core.app.StructrApp;
 import org.structr.core.graph.CypherQueryCommand;
 import org.structr.core.property.PropertyKey;
+import org.structr.web.common.DataSourceCache;
 import org.structr.web.common.GraphDataSource;
 import org.structr.web.common.RenderContext;
 import org.structr.web.entity.dom.DOMNode;
@@ -45,6 +48,19 @@ public class CypherGraphDataSource implements GraphDataSource<Iterable<GraphObje
 			return null;
 		}
 
-		return StructrApp.getInstance(renderContext.getSecurityContext()).command(CypherQueryCommand.class).execute(cypherQuery);
+		final String cacheKey = DataSourceCache.getKey(renderContext, "cypherQuery", cypherQuery);
+		final Result cached   = DataSourceCache.get(renderContext, cacheKey);
+
+		if (cached != null) {
+
+			return cached.getResults();
+		}
+
+		final long contentVersion     = DataSourceCache.getVersion();
+		final List<GraphObject> nodes = StructrApp.getInstance(renderContext.getSecurityContext()).command(CypherQueryCommand.class).execute(cypherQuery);
+
+		DataSourceCache.put(cacheKey, contentVersion, new Result(nodes, nodes.size(), true, false));
+
+		return nodes;
 	}
 }
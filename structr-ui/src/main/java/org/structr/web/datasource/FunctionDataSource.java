@@ -26,8 +26,10 @@ import org.structr.api.util.Iterables;
 import org.structr.common.error.FrameworkException;
 import org.structr.common.error.UnlicensedException;
 import org.structr.core.GraphObject;
+import org.structr.core.Result;
 import org.structr.core.script.Scripting;
 import org.structr.schema.action.Function;
+import org.structr.web.common.DataSourceCache;
 import org.structr.web.common.GraphDataSource;
 import org.structr.web.common.RenderContext;
 import org.structr.web.entity.dom.DOMNode;
@@ -48,18 +50,36 @@ public class FunctionDataSource implements GraphDataSource<Iterable<GraphObject>
 			return null;
 		}
 
+		final String cacheKey = DataSourceCache.getKey(renderContext, referenceNode, "functionQuery", functionQuery);
+		final Result cached   = DataSourceCache.get(renderContext, cacheKey);
+
+		if (cached != null) {
+
+			return cached.getResults();
+		}
+
 		try {
 
-			final Object result = Scripting.evaluate(renderContext, referenceNode, "${" + functionQuery + "}", "function query");
+			final long contentVersion = DataSourceCache.getVersion();
+			final Object result       = Scripting.evaluate(renderContext, referenceNode, "${" + functionQuery + "}", "function query");
+			List<GraphObject> list    = null;
+
 			if (result instanceof Iterable) {
 
-				return FunctionDataSource.map((Iterable)result);
+				list = Iterables.toList(FunctionDataSource.map((Iterable)result));
 
 			} else if (result instanceof Object[]) {
 
-				return (List<GraphObject>) UiFunction.toGraphObject(result, 1);
+				list = (List<GraphObject>) UiFunction.toGraphObject(result, 1);
 			}
 
+			if (list != null) {
+
+				DataSourceCache.put(cacheKey, contentVersion, new Result(list, list.size(), true, false));
+			}
+
+			return list;
+
 		} catch (UnlicensedException ex) {
 			ex.log(LoggerFactory.getLogger(FunctionDataSource.class));
 		}
@@ -48,6 +48,7 @@ import org.structr.rest.exception.NotFoundException;
 import org.structr.rest.resource.Resource;
 import org.structr.rest.servlet.JsonRestServlet;
 import org.structr.rest.servlet.ResourceHelper;
+import org.structr.web.common.DataSourceCache;
 import org.structr.web.common.GraphDataSource;
 import org.structr.web.common.RenderContext;
 import org.structr.web.common.UiResourceProvider;
@@ -74,7 +75,27 @@ public class RestDataSource implements GraphDataSource<Iterable<GraphObject>> {
 			return Collections.EMPTY_LIST;
 		}
 
-		return getData(renderContext, restQuery);
+		final String cacheKey = DataSourceCache.getKey(renderContext, "restQuery", restQuery);
+		final Result cached   = DataSourceCache.get(renderContext, cacheKey);
+
+		if (cached != null) {
+
+			renderContext.setResult(cached);
+
+			return cached.getResults();
+		}
+
+		final long contentVersion     = DataSourceCache.getVersion();
+		final List<GraphObject> nodes = getData(renderContext, restQuery);
+		final Result result           = renderContext.getResult();
+
+		// only cache if the query produced a result, keeping the paging information
+		if (result != null && result.getResults() == nodes) {
+
+			DataSourceCache.put(cacheKey, contentVersion, result);
+		}
+
+		return nodes;
 	}
 
 	// FIXME: this method is needed by the websocket search command because there is no reference node for the above method
@@ -67,6 +67,7 @@ import org.structr.web.common.AsyncBuffer;
 import org.structr.web.common.GraphDataSource;
 import org.structr.web.common.RenderContext;
 import org.structr.web.common.RenderContext.EditMode;
+import org.structr.web.common.RenderPlanCache;
 import org.structr.web.common.StringRenderBuffer;
 import org.structr.web.datasource.CypherGraphDataSource;
 import org.structr.web.datasource.FunctionDataSource;
@@ -1548,6 +1549,10 @@ public interface DOMNode extends NodeInterface, Node, Renderable, DOMAdoptable,
 
 				}
 
+			} else if (EditMode.NONE.equals(editMode) && RenderPlanCache.isEnabled()) {
+
+				RenderPlanCache.render(thisNode, renderContext, depth);
+
 			} else {
 
 				thisNode.renderContent(renderContext, depth);
@@ -1562,9 +1567,18 @@ public interface DOMNode extends NodeInterface, Node, Renderable, DOMAdoptable,
 
 			try {
 
-				Iterable<GraphObject> graphData = source.getData(renderContext, thisNode);
-				if (graphData != null && !Iterables.isEmpty(graphData)) {
-					return graphData;
+				final Iterable<GraphObject> graphData = source.getData(renderContext, thisNode);
+				if (graphData != null) {
+
+					// materialize the data once, so lazy results are not evaluated again by the caller
+					final List<GraphObject> list = Iterables.toList(graphData);
+
+					renderContext.addDataSourceResult(list);
+
+					if (!list.isEmpty()) {
+
+						return list;
+					}
 				}
 
 			} catch (FrameworkException fex) {
@@ -22,8 +22,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -129,7 +131,8 @@ public class CSVFileImportJob extends FileImportJob {
 
 					try (final Tx tx = app.tx()) {
 
-						final long chunkStartTime = System.currentTimeMillis();
+						final long chunkStartTime    = System.currentTimeMillis();
+						final List<PropertyMap> rows = new ArrayList<>();
 
 						while (iterator.hasNext() && count++ < commitInterval) {
 
@@ -137,11 +140,14 @@ public class CSVFileImportJob extends FileImportJob {
 
 							mapper.transformInput(threadContext, targetEntityType, input);
 
-							app.create(targetEntityType, PropertyMap.inputTypeToJavaType(threadContext, targetEntityType, input));
+							rows.add(PropertyMap.inputTypeToJavaType(threadContext, targetEntityType, input));
 
 							overallCount++;
 						}
 
+						// create all nodes of this chunk in a single batch
+						app.create(targetEntityType, rows);
+
 						tx.success();
 
 						chunks++;
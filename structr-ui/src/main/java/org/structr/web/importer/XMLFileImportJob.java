@@ -22,7 +22,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import javax.xml.stream.XMLStreamException;
 import org.slf4j.Logger;
@@ -121,12 +123,17 @@ public class XMLFileImportJob extends FileImportJob {
 						// make transaction available in context
 						threadContext.setAttribute("currentTransaction", tx);
 
+						final List<PropertyMap> rows = new ArrayList<>();
+
 						while (iterator.hasNext() && ++count <= batchSize) {
 
-							app.create(AbstractNode.class, PropertyMap.inputTypeToJavaType(threadContext, iterator.next()));
+							rows.add(PropertyMap.inputTypeToJavaType(threadContext, iterator.next()));
 							overallCount++;
 						}
 
+						// create all top-level nodes of this chunk in a single batch
+						app.create(AbstractNode.class, rows);
+
 						// tx might have changed, reload from context
 						tx = (Tx)threadContext.getAttribute("currentTransaction");
 						tx.success();
@@ -33,6 +33,7 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -1384,6 +1385,8 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 				app.delete(toDelete);
 			}
 
+			final List<PropertyMap> rows = new ArrayList<>();
+
 			for (final Map<String, Object> entry : data) {
 
 				final PropertyMap map = PropertyMap.inputTypeToJavaType(context, type, entry);
@@ -1393,9 +1396,12 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 					map.putAll(add);
 				}
 
-				app.create(type, map);
+				rows.add(map);
 			}
 
+			// create all entries in a single batch
+			app.create(type, rows);
+
 			tx.success();
 
 		} catch (FrameworkException fex) {
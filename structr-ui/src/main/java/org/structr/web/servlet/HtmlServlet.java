@@ -21,6 +21,7 @@ package org.structr.web.servlet;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.ParseException;
@@ -36,15 +37,15 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
@@ -76,6 +77,7 @@ import org.structr.core.converter.PropertyConverter;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.entity.Principal;
 import org.structr.core.graph.NodeInterface;
+import org.structr.core.graph.TransactionCommand;
 import org.structr.core.graph.Tx;
 import org.structr.core.property.PropertyKey;
 import org.structr.rest.auth.AuthHelper;
@@ -87,6 +89,8 @@ import org.structr.web.auth.UiAuthenticator;
 import org.structr.web.common.FileHelper;
 import org.structr.web.common.RenderContext;
 import org.structr.web.common.RenderContext.EditMode;
+import org.structr.web.common.RenderedPageCache;
+import org.structr.web.common.StreamingRenderBuffer;
 import org.structr.web.common.StringRenderBuffer;
 import org.structr.web.entity.AbstractFile;
 import org.structr.web.entity.Linkable;
@@ -118,7 +122,7 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 	private static final List<String> customResponseHeaders        = new LinkedList<>();
 	private static final ThreadLocalMatcher threadLocalUUIDMatcher = new ThreadLocalMatcher("[a-fA-F0-9]{32}");
-	private static final ExecutorService threadPool                = Executors.newCachedThreadPool();
+	private static final ExecutorService threadPool                = Executors.newFixedThreadPool(Settings.AsyncRenderThreads.getValue());
 
 	private final Pattern FilenameCleanerPattern                      = Pattern.compile("[\n\r]", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL);
 	private final StructrHttpServiceConfig config                     = new StructrHttpServiceConfig();
@@ -146,6 +150,9 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 		}
 
 		this.isAsync = Settings.Async.getValue();
+
+		// invalidate rendered output on modifications
+		TransactionCommand.registerTransactionListener(RenderedPageCache.getInstance());
 	}
 
 	@Override
@@ -448,14 +455,65 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 						setCustomResponseHeaders(response);
 
 						final boolean createsRawData = rootElement.getProperty(StructrApp.key(Page.class, "pageCreatesRawData"));
+						final long contentVersion    = RenderedPageCache.getVersion();
+						String cacheKey              = null;
+
+						// only public output can be shared between requests
+						if (EditMode.NONE.equals(edit) && !dontCache && rootElement instanceof Page && securityContext.getUser(false) == null) {
+
+							cacheKey = RenderedPageCache.getKey((Page)rootElement, request, renderContext);
+						}
+
+						final RenderedPageCache.Entry cached = cacheKey != null ? RenderedPageCache.get(cacheKey) : null;
+						if (cached != null) {
+
+							try {
+
+								response.getOutputStream().write(cached.getContent());
+								response.getOutputStream().flush();
+								response.getOutputStream().close();
+
+							} catch (IOException ioex) {
+								logger.warn("", ioex);
+							}
+
+						// async or not? (cacheable output is collected synchronously)
+						} else if (isAsync && !createsRawData && cacheKey == null) {
+
+							final StreamingRenderBuffer buffer = new StreamingRenderBuffer();
+							final AsyncContext async           = request.startAsync();
+							final ServletOutputStream out      = async.getResponse().getOutputStream();
+							final DOMNode rootNode             = rootElement;
+
+							renderContext.setBuffer(buffer);
+
+							// stop rendering when the client stalls or goes away, the render thread would block otherwise
+							async.setTimeout(Settings.AsyncTimeout.getValue() * 1000L);
+							async.addListener(new AsyncListener() {
+
+								@Override
+								public void onComplete(final AsyncEvent event) throws IOException {
+									buffer.cancel();
+								}
+
+								@Override
+								public void onTimeout(final AsyncEvent event) throws IOException {
 
-						// async or not?
-						if (isAsync && !createsRawData) {
+									buffer.cancel();
+									logger.warn("Timeout while rendering page {}", rootNode.getName());
 
-							final AsyncContext async = request.startAsync();
-							final ServletOutputStream out = async.getResponse().getOutputStream();
-							final AtomicBoolean finished = new AtomicBoolean(false);
-							final DOMNode rootNode = rootElement;
+									event.getAsyncContext().complete();
+								}
+
+								@Override
+								public void onError(final AsyncEvent event) throws IOException {
+									buffer.cancel();
+								}
+
+								@Override
+								public void onStartAsync(final AsyncEvent event) throws IOException {
+								}
+							});
 
 							threadPool.submit(new Runnable() {
 
@@ -466,7 +524,6 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 										// render
 										rootNode.render(renderContext, 0);
-										finished.set(true);
 
 										tx.success();
 
@@ -478,11 +535,14 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 										try {
 
 											response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-											finished.set(true);
 
 										} catch (IOException ex) {
 											logger.warn("", ex);
 										}
+
+									} finally {
+
+										buffer.finish();
 									}
 								}
 
@@ -491,47 +551,66 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 							// start output write listener
 							out.setWriteListener(new WriteListener() {
 
+								private ByteBuffer pending = null;
+
 								@Override
 								public void onWritePossible() throws IOException {
 
 									try {
 
-										final Queue<String> queue = renderContext.getBuffer().getQueue();
 										while (out.isReady()) {
 
-											String buffer = null;
+											// the previous write is complete, so its chunk can be re-used
+											if (pending != null) {
 
-											synchronized (queue) {
-												buffer = queue.poll();
+												buffer.release(pending);
+												pending = null;
 											}
 
-											if (buffer != null) {
+											final ByteBuffer chunk = buffer.poll();
+											if (chunk != null) {
 
-												out.print(buffer);
+												pending = chunk;
+												out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
 
-											} else {
+											} else if (buffer.isDone()) {
 
-												if (finished.get()) {
+												async.complete();
 
-													async.complete();
+												// prevent this block from being called again
+												break;
 
-													// prevent this block from being called again
-													break;
-												}
+											} else if (buffer.suspend(() -> async.start(this::resume))) {
 
-												Thread.sleep(1);
+												// wait for the render thread to provide more output
+												break;
 											}
 										}
 
 									} catch (Throwable t) {
+
+										buffer.cancel();
 										logger.warn("", t);
 									}
 								}
 
 								@Override
 								public void onError(Throwable t) {
+
+									buffer.cancel();
 									logger.warn("", t);
 								}
+
+								private void resume() {
+
+									try {
+
+										onWritePossible();
+
+									} catch (IOException ioex) {
+										logger.warn("", ioex);
+									}
+								}
 							});
 
 						} else {
@@ -544,7 +623,14 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 							try {
 
-								response.getOutputStream().write(buffer.getBuffer().toString().getBytes("utf-8"));
+								final byte[] content = buffer.getBuffer().toString().getBytes("utf-8");
+
+								if (cacheKey != null && response.getStatus() == HttpServletResponse.SC_OK) {
+
+									RenderedPageCache.put(cacheKey, contentVersion, (Page)rootElement, renderContext, content);
+								}
+
+								response.getOutputStream().write(content);
 								response.getOutputStream().flush();
 								response.getOutputStream().close();
 
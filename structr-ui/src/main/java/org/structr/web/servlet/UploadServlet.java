@@ -57,6 +57,7 @@ import org.structr.rest.service.HttpServiceServlet;
 import org.structr.rest.service.StructrHttpServiceConfig;
 import org.structr.schema.SchemaHelper;
 import org.structr.web.auth.UiAuthenticator;
+import org.structr.web.common.FileChecksums;
 import org.structr.web.common.FileHelper;
 import org.structr.web.entity.AbstractFile;
 import org.structr.web.entity.Folder;
@@ -437,7 +438,10 @@ public class UploadServlet extends HttpServlet implements HttpServiceServlet {
 
 							try (final InputStream is = fileItem.openStream()) {
 
-								FileHelper.writeToFile(file, is);
+								final FileChecksums checksums = FileChecksums.forFile(file);
+
+								FileHelper.writeToFile(file, is, checksums);
+								FileHelper.setChecksums(file, checksums);
 								file.increaseVersion();
 
 								// upload trigger
@@ -21,7 +21,9 @@ package org.structr.websocket;
 import com.google.gson.Gson;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
@@ -67,6 +69,7 @@ public class StructrWebSocket implements WebSocketListener {
 
 	//~--- fields ---------------------------------------------------------
 	private Session session = null;
+	private WebSocketSender sender = null;
 	private Gson gson = null;
 	private HttpServletRequest request = null;
 	private SecurityContext securityContext = null;
@@ -100,6 +103,7 @@ public class StructrWebSocket implements WebSocketListener {
 		logger.debug("New connection with protocol {}", session.getProtocolVersion());
 
 		this.session = session;
+		this.sender  = new WebSocketSender(session);
 
 		syncController.registerClient(this);
 
@@ -120,6 +124,10 @@ public class StructrWebSocket implements WebSocketListener {
 
 			syncController.unregisterClient(this);
 
+			if (sender != null) {
+				sender.close();
+			}
+
 			// flush and close open uploads
 			for (FileUploadHandler upload : uploads.values()) {
 
@@ -356,7 +364,7 @@ public class StructrWebSocket implements WebSocketListener {
 				securityContext.clearCustomView();
 			}
 
-			session.getRemote().sendString(msg);
+			send(msg);
 
 			tx.success();
 
@@ -367,6 +375,49 @@ public class StructrWebSocket implements WebSocketListener {
 
 	}
 
+	/**
+	 * Queues the given serialized message for asynchronous sending.
+	 *
+	 * @param message
+	 * @return false if the message could not be queued
+	 */
+	public boolean send(final String message) {
+		return send(Collections.singletonList(new WebSocketSender.Message(message, null)));
+	}
+
+	/**
+	 * Queues the given serialized messages for asynchronous sending in a
+	 * single batch.
+	 *
+	 * @param messages
+	 * @return false if the messages could not be queued
+	 */
+	public boolean send(final List<WebSocketSender.Message> messages) {
+
+		final WebSocketSender currentSender = sender;
+		if (currentSender != null) {
+
+			return currentSender.send(messages);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Enables sending of batched messages as JSON array frames for
+	 * clients that announce support for them.
+	 *
+	 * @param arrayFrames
+	 */
+	public void setArrayFrames(final boolean arrayFrames) {
+
+		final WebSocketSender currentSender = sender;
+		if (currentSender != null) {
+
+			currentSender.setArrayFrames(arrayFrames);
+		}
+	}
+
 	// ----- file handling -----
 	public void createFileUploadHandler(File file) {
 
@@ -0,0 +1,271 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.websocket;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
+
+/**
+ * Bounded outbound message queue of a single websocket client.
+ *
+ * Messages are handed to the remote endpoint asynchronously by a small
+ * shared sender pool, so that neither broadcasts nor command responses
+ * block the calling thread. A queued message is replaced by a newer
+ * message with the same key, which then moves to the end of the queue.
+ * Clients that announce support for array frames (see LOGIN and PING)
+ * receive all messages that were queued while a frame was in flight
+ * together as a JSON array in the next frame, all other clients receive
+ * one message per frame. A client that does not keep up (i.e. whose queue
+ * overflows) is disconnected, the UI then reconnects and reloads its data.
+ */
+public class WebSocketSender implements Runnable, WriteCallback {
+
+	private static final Logger logger           = LoggerFactory.getLogger(WebSocketSender.class.getName());
+	private static final ExecutorService service = Executors.newFixedThreadPool(Math.max(1, Settings.WebsocketSenderThreads.getValue()));
+
+	private final Map<String, Message> keys = new HashMap<>();
+	private final Deque<Message> queue      = new ArrayDeque<>();
+	private final int maxSize;
+	private Session session                 = null;
+	private boolean arrayFrames             = false;
+	private boolean scheduled               = false;
+	private boolean closed                  = false;
+
+	public WebSocketSender(final Session session) {
+		this(session, Settings.WebsocketSendQueueSize.getValue());
+	}
+
+	WebSocketSender(final Session session, final int maxSize) {
+
+		this.session = session;
+		this.maxSize = Math.max(1, maxSize);
+	}
+
+	/**
+	 * Enables or disables sending of multiple queued messages as a single
+	 * JSON array frame. Must only be enabled for clients that can handle
+	 * array frames.
+	 *
+	 * @param arrayFrames
+	 */
+	public synchronized void setArrayFrames(final boolean arrayFrames) {
+		this.arrayFrames = arrayFrames;
+	}
+
+	/**
+	 * Queues the given message for sending.
+	 *
+	 * @param message
+	 * @return false if the client is closed or was disconnected because its queue overflowed
+	 */
+	public boolean send(final String message) {
+		return send(message, null);
+	}
+
+	/**
+	 * Queues the given message for sending, replacing a pending message
+	 * with the same key.
+	 *
+	 * @param message
+	 * @param key the key of the message, or null
+	 * @return false if the client is closed or was disconnected because its queue overflowed
+	 */
+	public boolean send(final String message, final String key) {
+		return send(Collections.singletonList(new Message(message, key)));
+	}
+
+	/**
+	 * Queues the given messages for sending. Clients with array frames
+	 * enabled receive them in the same frame unless a previous frame is
+	 * still in flight.
+	 *
+	 * @param messages
+	 * @return false if the client is closed or was disconnected because its queue overflowed
+	 */
+	public boolean send(final List<Message> messages) {
+
+		synchronized (this) {
+
+			if (closed) {
+				return false;
+			}
+
+			for (final Message message : messages) {
+
+				if (message.key != null) {
+
+					// replaced messages move to the end of the queue so that
+					// they are never sent before messages queued earlier
+					final Message pending = keys.remove(message.key);
+					if (pending != null) {
+
+						queue.remove(pending);
+					}
+				}
+
+				if (queue.size() >= maxSize) {
+
+					close();
+					break;
+				}
+
+				final Message entry = new Message(message.message, message.key);
+
+				queue.add(entry);
+
+				if (entry.key != null) {
+					keys.put(entry.key, entry);
+				}
+			}
+
+			if (!closed) {
+
+				schedule();
+
+				return true;
+			}
+		}
+
+		logger.warn("Send queue of websocket client {} overflowed, closing connection.", session.getRemoteAddress());
+
+		try {
+			session.close(StatusCode.POLICY_VIOLATION, "Client too slow");
+
+		} catch (Throwable t) {
+			logger.debug("Unable to close websocket session", t);
+		}
+
+		return false;
+	}
+
+	public synchronized void close() {
+
+		closed = true;
+
+		queue.clear();
+		keys.clear();
+	}
+
+	// ----- interface Runnable -----
+	@Override
+	public void run() {
+
+		final StringBuilder buf = new StringBuilder();
+		int count               = 0;
+
+		synchronized (this) {
+
+			if (closed || !session.isOpen()) {
+
+				close();
+				scheduled = false;
+
+				return;
+			}
+
+			while (!queue.isEmpty() && (arrayFrames || count == 0)) {
+
+				final Message entry = queue.poll();
+
+				if (entry.key != null) {
+					keys.remove(entry.key);
+				}
+
+				buf.append(count++ == 0 ? "" : ",");
+				buf.append(entry.message);
+			}
+
+			if (count == 0) {
+
+				scheduled = false;
+				return;
+			}
+		}
+
+		if (count > 1) {
+
+			buf.insert(0, "[");
+			buf.append("]");
+		}
+
+		try {
+
+			session.getRemote().sendString(buf.toString(), this);
+
+		} catch (Throwable t) {
+
+			writeFailed(t);
+		}
+	}
+
+	// ----- interface WriteCallback -----
+	@Override
+	public synchronized void writeSuccess() {
+
+		scheduled = false;
+
+		if (!queue.isEmpty()) {
+			schedule();
+		}
+	}
+
+	@Override
+	public synchronized void writeFailed(final Throwable t) {
+
+		logger.debug("Unable to send websocket message to remote client: {}", t.getMessage());
+
+		close();
+		scheduled = false;
+	}
+
+	// ----- private methods -----
+	private void schedule() {
+
+		if (!scheduled) {
+
+			scheduled = true;
+			service.submit(this);
+		}
+	}
+
+	// ----- nested classes -----
+	public static class Message {
+
+		private String message = null;
+		private String key     = null;
+
+		public Message(final String message, final String key) {
+
+			this.message = message;
+			this.key     = key;
+		}
+	}
+}
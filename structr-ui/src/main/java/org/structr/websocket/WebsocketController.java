@@ -19,21 +19,25 @@
 package org.structr.websocket;
 
 import com.google.gson.Gson;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.jetty.websocket.api.Session;
-import org.eclipse.jetty.websocket.api.WebSocketException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
 import org.structr.api.graph.RelationshipType;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
@@ -79,23 +83,29 @@ public class WebsocketController implements StructrTransactionListener {
 		clients.remove(client);
 	}
 
-	private void broadcast(final WebSocketMessage webSocketData) {
+	private void broadcast(final WebSocketMessage webSocketData, final String exemptedSessionId) {
+
+		final Map<StructrWebSocket, List<WebSocketSender.Message>> batches = new LinkedHashMap<>();
 
-		broadcast(webSocketData, null);
+		broadcast(webSocketData, exemptedSessionId, batches);
+		send(batches);
 	}
 
-	private void broadcast(final WebSocketMessage webSocketData, final String exemptedSessionId) {
+	private void broadcast(final WebSocketMessage webSocketData, final String exemptedSessionId, final Map<StructrWebSocket, List<WebSocketSender.Message>> batches) {
 
 		// session must be valid to be received by the client
 		webSocketData.setSessionValid(true);
 
 		final String pagePath                        = (String) webSocketData.getNodeData().get("pagePath");
 		final String encodedPath                     = URIUtil.encodePath(pagePath);
-		final List<StructrWebSocket> clientsToRemove = new LinkedList<>();
+		final Map<List<String>, String> messages     = new HashMap<>();
+		final String key                             = getKey(webSocketData);
 		final List<? extends GraphObject> result     = webSocketData.getResult();
 		final String command                         = webSocketData.getCommand();
 		final GraphObject obj                        = webSocketData.getGraphObject();
+		final boolean filterResult                   = result != null && !result.isEmpty() && BroadcastCommands.contains(command);
 
+		String unfilteredMessage = null;
 		String message;
 
 		// create message
@@ -135,36 +145,55 @@ public class WebsocketController implements StructrTransactionListener {
 					}
 				}
 
-				if (result != null && !result.isEmpty() && BroadcastCommands.contains(command)) {
+				if (filterResult) {
+
+					// serialize once per distinct filtered result
+					final List<? extends GraphObject> filtered = filter(securityContext, result);
+					final List<String> ids                     = new ArrayList<>();
 
-					final WebSocketMessage clientData = webSocketData.copy();
+					for (final GraphObject item : filtered) {
+						ids.add(item.getUuid());
+					}
 
-					clientData.setResult(filter(securityContext, result));
+					message = messages.get(ids);
+					if (message == null) {
 
-					message = gson.toJson(clientData, WebSocketMessage.class);
+						final WebSocketMessage clientData = webSocketData.copy();
+
+						clientData.setResult(filtered);
+
+						message = gson.toJson(clientData, WebSocketMessage.class);
+
+						messages.put(ids, message);
+					}
 
 				} else {
 
-					message = gson.toJson(webSocketData, WebSocketMessage.class);
+					if (unfilteredMessage == null) {
+						unfilteredMessage = gson.toJson(webSocketData, WebSocketMessage.class);
+					}
+
+					message = unfilteredMessage;
 				}
 
-				try {
+				batches.computeIfAbsent(socket, k -> new LinkedList<>()).add(new WebSocketSender.Message(message, key));
+			}
+		}
+	}
 
-					session.getRemote().sendString(message);
+	private void send(final Map<StructrWebSocket, List<WebSocketSender.Message>> batches) {
 
-				} catch (Throwable t) {
+		final List<StructrWebSocket> clientsToRemove = new LinkedList<>();
 
-					if (t instanceof WebSocketException) {
+		// queue messages, sending happens asynchronously so that slow clients don't block the committing thread
+		for (final Map.Entry<StructrWebSocket, List<WebSocketSender.Message>> entry : batches.entrySet()) {
 
-						WebSocketException wse = (WebSocketException) t;
+			final StructrWebSocket socket = entry.getKey();
+			final Session session         = socket.getSession();
 
-						if ("RemoteEndpoint unavailable, current state [CLOSED], expecting [OPEN or CONNECTED]".equals(wse.getMessage())) {
-							clientsToRemove.add(socket);
-						}
-					}
+			if (!socket.send(entry.getValue()) && (session == null || !session.isOpen())) {
 
-					logger.debug("Error sending message to client.", t);
-				}
+				clientsToRemove.add(socket);
 			}
 		}
 
@@ -199,18 +228,43 @@ public class WebsocketController implements StructrTransactionListener {
 	@Override
 	public void afterCommit(final SecurityContext securityContext, final Collection<ModificationEvent> modificationEvents, final TransactionSource source) {
 
+		final Map<StructrWebSocket, List<WebSocketSender.Message>> batches = new LinkedHashMap<>();
+		final int limit                                                   = Settings.WebsocketNotifyLimit.getValue();
+		final boolean summarize                                           = limit > 0 && modificationEvents.size() > limit;
+		int omitted                                                       = 0;
+
 		for (final ModificationEvent event : modificationEvents) {
 
+			// for bulk transactions, only the events that a client waits for are sent individually
+			if (summarize && event.getCallbackId() == null) {
+
+				omitted++;
+				continue;
+			}
+
 			try {
 				final WebSocketMessage message = getMessageForEvent(securityContext, event);
 				if (message != null) {
 
-					broadcast(message);
+					broadcast(message, null, batches);
 				}
 
 			} catch (FrameworkException ignore) {
 			}
 		}
+
+		if (omitted > 0) {
+
+			final Map<String, Object> data = new LinkedHashMap<>();
+
+			data.put("type",  "BULK_CHANGE");
+			data.put("count", omitted);
+
+			broadcast(MessageBuilder.forName("GENERIC_MESSAGE").data(data).build(), null, batches);
+		}
+
+		// all messages of a transaction are queued at once so that they are sent in a single frame
+		send(batches);
 	}
 
 	@Override
@@ -397,6 +451,31 @@ public class WebsocketController implements StructrTransactionListener {
 		return null;
 	}
 
+	/**
+	 * Returns the key under which the given message replaces a pending
+	 * message for the same object, or null if it must always be sent.
+	 */
+	private String getKey(final WebSocketMessage message) {
+
+		if ("UPDATE".equals(message.getCommand()) && message.getCallback() == null && message.getId() != null) {
+
+			final Set<String> modified = new TreeSet<>();
+			final Set<String> removed  = new TreeSet<>();
+
+			for (final PropertyKey key : message.getModifiedProperties()) {
+				modified.add(key.jsonName());
+			}
+
+			for (final PropertyKey key : message.getRemovedProperties()) {
+				removed.add(key.jsonName());
+			}
+
+			return "UPDATE:" + message.getId() + ":" + modified + ":" + removed;
+		}
+
+		return null;
+	}
+
 	private WebSocketMessage createMessage(final String command, final String callbackId) {
 
 		final WebSocketMessage newMessage = new WebSocketMessage();
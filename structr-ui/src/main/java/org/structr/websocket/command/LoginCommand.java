@@ -53,6 +53,7 @@ public class LoginCommand extends AbstractCommand {
 
 		final String username = (String) webSocketData.getNodeData().get("username");
 		final String password = (String) webSocketData.getNodeData().get("password");
+		final Boolean arrayFrames = (Boolean) webSocketData.getNodeData().get("arrayFrames");
 		Principal user;
 
 		if ((username != null) && (password != null)) {
@@ -97,6 +98,7 @@ public class LoginCommand extends AbstractCommand {
 
 					// authenticate socket
 					socket.setAuthenticated(sessionId, user);
+					socket.setArrayFrames(Boolean.TRUE.equals(arrayFrames));
 
 					// send data..
 					socket.send(webSocketData, false);
@@ -50,7 +50,8 @@ public class PingCommand extends AbstractCommand {
 	@Override
 	public void processMessage(final WebSocketMessage webSocketData) {
 
-		final String sessionId = webSocketData.getSessionId();
+		final String sessionId    = webSocketData.getSessionId();
+		final Boolean arrayFrames = (Boolean) webSocketData.getNodeData().get("arrayFrames");
 		logger.debug("PING received from session {}", sessionId);
 
 		final Principal currentUser = AuthHelper.getPrincipalForSessionId(SessionHelper.getShortSessionId(sessionId), true);
@@ -59,6 +60,8 @@ public class PingCommand extends AbstractCommand {
 
 			logger.debug("User found by session id: " + currentUser.getName());
 
+			getWebSocket().setArrayFrames(Boolean.TRUE.equals(arrayFrames));
+
 			getWebSocket().send(MessageBuilder.status()
 				.callback(webSocketData.getCallback())
 				.data("username", currentUser.getProperty(AbstractNode.name))
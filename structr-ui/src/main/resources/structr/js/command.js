@@ -32,7 +32,8 @@ var Command = {
 			sessionId: Structr.getSessionId(),
 			data: {
 				username: username,
-				password: password
+				password: password,
+				arrayFrames: true
 			}
 		};
 		_Logger.log(_LogType.WS[obj.command], 'login()' + username + ' with ' + password);
@@ -58,7 +59,10 @@ var Command = {
 	ping: function(callback) {
 		var obj = {
 			command: 'PING',
-			sessionId: Structr.getSessionId()
+			sessionId: Structr.getSessionId(),
+			data: {
+				arrayFrames: true
+			}
 		};
 		_Logger.log(_LogType.WS[obj.command], 'ping()');
 		return sendObj(obj, callback);
@@ -1564,6 +1564,10 @@ var Structr = {
 				}
 				break;
 
+			case "BULK_CHANGE":
+				new MessageBuilder().title("Bulk modification").uniqueClass('bulk-change').info("A transaction modified <b>" + data.count + "</b> objects, individual notifications were omitted.<br>Reload the page to see all changes.").show();
+				break;
+
 			case "WARNING":
 				new MessageBuilder().title(data.title).warning(data.text).requiresConfirmation().show();
 				break;
@@ -124,7 +124,17 @@ function wsConnect() {
 
 		ws.onmessage = function (message) {
 
-			var data = JSON.parse(message.data);
+			handleMessage(JSON.parse(message.data));
+		};
+
+		var handleMessage = function (data) {
+
+			// the server sends batches of messages as (nested) arrays
+			if (Array.isArray(data)) {
+				data.forEach(handleMessage);
+				return;
+			}
+
 			var type = data.data.type;
 			var command = data.command;
 			var msg = data.message;
@@ -21,17 +21,26 @@ package org.structr.web.advanced;
 import com.jayway.restassured.RestAssured;
 import com.jayway.restassured.filter.log.ResponseLoggingFilter;
 import org.hamcrest.Matchers;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.app.StructrApp;
+import org.structr.core.entity.AbstractNode;
 import org.structr.core.graph.NodeAttribute;
 import org.structr.core.graph.Tx;
 import org.structr.web.StructrUiTest;
+import org.structr.web.common.DataSourceCache;
+import org.structr.web.common.RenderPlanCache;
+import org.structr.web.common.RenderedPageCache;
 import org.structr.web.entity.User;
+import org.structr.web.entity.Widget;
 import org.structr.web.entity.dom.Content;
+import org.structr.web.entity.dom.DOMNode;
 import org.structr.web.entity.dom.Page;
 import org.w3c.dom.Element;
 
@@ -105,6 +114,342 @@ public class RendererTest extends StructrUiTest {
 			.get("/html/page1");
 	}
 
+	@Test
+	public void testRenderedPageCache() {
+
+		Content content = null;
+
+		try (final Tx tx = app.tx()) {
+
+			final Page page1 = Page.createSimplePage(securityContext, "page1");
+
+			page1.setProperty(StructrApp.key(Page.class, "cacheForSeconds"), 60);
+
+			for (final DOMNode node : app.nodeQuery(DOMNode.class).getAsList()) {
+				node.setProperty(DOMNode.visibleToPublicUsers, true);
+			}
+
+			final Element div = (Element)page1.getElementsByTagName("div").item(0);
+			content           = (Content)div.getFirstChild();
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fail("Unexpected exception");
+			logger.warn("", fex);
+		}
+
+		RestAssured.basePath = "/";
+
+		final long hits = RenderedPageCache.getHitCount();
+
+		for (int i=0; i<3; i++) {
+
+			RestAssured
+				.given()
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+				.expect()
+				.statusCode(200)
+				.body("html.head.title", Matchers.equalTo("Page1"))
+				.body("html.body.div",   Matchers.equalTo("Initial body text"))
+				.when()
+				.get("/html/page1");
+		}
+
+		assertEquals("Rendered output of public page should be served from the cache", hits + 2, RenderedPageCache.getHitCount());
+
+		try (final Tx tx = app.tx()) {
+
+			createTestNode(Widget.class, new NodeAttribute<>(AbstractNode.name, "unrelated"));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fail("Unexpected exception");
+			logger.warn("", fex);
+		}
+
+		// modification of data that is not rendered in the page must not invalidate the cached output
+		RestAssured
+			.given()
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+			.expect()
+			.statusCode(200)
+			.body("html.body.div", Matchers.equalTo("Initial body text"))
+			.when()
+			.get("/html/page1");
+
+		assertEquals("Unrelated modification should not invalidate the cached output", hits + 3, RenderedPageCache.getHitCount());
+
+		try (final Tx tx = app.tx()) {
+
+			content.setProperty(StructrApp.key(Content.class, "content"), "Modified body text");
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fail("Unexpected exception");
+			logger.warn("", fex);
+		}
+
+		// modification must invalidate the cached output
+		RestAssured
+			.given()
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+			.expect()
+			.statusCode(200)
+			.body("html.body.div", Matchers.equalTo("Modified body text"))
+			.when()
+			.get("/html/page1");
+	}
+
+	@Test
+	public void testRenderedPageCacheWithDataSource() {
+
+		try (final Tx tx = app.tx()) {
+
+			createTestNode(Widget.class, new NodeAttribute<>(AbstractNode.name, "a"), new NodeAttribute<>(AbstractNode.visibleToPublicUsers, true));
+			createTestNode(Widget.class, new NodeAttribute<>(AbstractNode.name, "b"), new NodeAttribute<>(AbstractNode.visibleToPublicUsers, true));
+
+			final Page page1 = Page.createSimplePage(securityContext, "page1");
+
+			page1.setProperty(StructrApp.key(Page.class, "cacheForSeconds"), 60);
+
+			for (final DOMNode node : app.nodeQuery(DOMNode.class).getAsList()) {
+				node.setProperty(DOMNode.visibleToPublicUsers, true);
+			}
+
+			final Element div     = (Element)page1.getElementsByTagName("div").item(0);
+			final Content content = (Content)div.getFirstChild();
+
+			content.setProperty(StructrApp.key(DOMNode.class, "functionQuery"), "sort(find('Widget'), 'name')");
+			content.setProperty(StructrApp.key(DOMNode.class, "dataKey"), "widget");
+			content.setProperty(StructrApp.key(Content.class, "content"), "${widget.name}");
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fail("Unexpected exception");
+			logger.warn("", fex);
+		}
+
+		RestAssured.basePath = "/";
+
+		for (int i=0; i<2; i++) {
+
+			RestAssured
+				.given()
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+				.expect()
+				.statusCode(200)
+				.body("html.body.div", Matchers.equalTo("ab"))
+				.when()
+				.get("/html/page1");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			createTestNode(Widget.class, new NodeAttribute<>(AbstractNode.name, "c"), new NodeAttribute<>(AbstractNode.visibleToPublicUsers, true));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fail("Unexpected exception");
+			logger.warn("", fex);
+		}
+
+		// creation of a node of a data source type must invalidate the cached output
+		RestAssured
+			.given()
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+			.expect()
+			.statusCode(200)
+			.body("html.body.div", Matchers.equalTo("abc"))
+			.when()
+			.get("/html/page1");
+	}
+
+	@Test
+	public void testRenderPlanCache() {
+
+		Content content = null;
+
+		try (final Tx tx = app.tx()) {
+
+			final Page page1 = Page.createSimplePage(securityContext, "page1");
+
+			for (final DOMNode node : app.nodeQuery(DOMNode.class).getAsList()) {
+				node.setProperty(DOMNode.visibleToPublicUsers, true);
+				node.setProperty(DOMNode.visibleToAuthenticatedUsers, true);
+			}
+
+			final Element div = (Element)page1.getElementsByTagName("div").item(0);
+			content           = (Content)div.getFirstChild();
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fail("Unexpected exception");
+			logger.warn("", fex);
+		}
+
+		RestAssured.basePath = "/";
+
+		final long hits = RenderPlanCache.getHitCount();
+
+		for (int i=0; i<2; i++) {
+
+			RestAssured
+				.given()
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+				.expect()
+				.statusCode(200)
+				.body("html.head.title", Matchers.equalTo("Page1"))
+				.body("html.body.div",   Matchers.equalTo("Initial body text"))
+				.when()
+				.get("/html/page1");
+		}
+
+		assertTrue("Static subtrees should be served from the render plan cache", RenderPlanCache.getHitCount() > hits);
+
+		try (final Tx tx = app.tx()) {
+
+			content.setProperty(StructrApp.key(Content.class, "content"), "Modified body text");
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fail("Unexpected exception");
+			logger.warn("", fex);
+		}
+
+		// modification must invalidate the cached output
+		RestAssured
+			.given()
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+			.expect()
+			.statusCode(200)
+			.body("html.body.div", Matchers.equalTo("Modified body text"))
+			.when()
+			.get("/html/page1");
+
+		try (final Tx tx = app.tx()) {
+
+			content.setProperty(StructrApp.key(Content.class, "content"), "${request.name}");
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fail("Unexpected exception");
+			logger.warn("", fex);
+		}
+
+		// script expressions must be evaluated on every request
+		for (final String name : new String[] { "one", "two" }) {
+
+			RestAssured
+				.given()
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+				.expect()
+				.statusCode(200)
+				.body("html.body.div", Matchers.equalTo(name))
+				.when()
+				.get("/html/page1?name=" + name);
+		}
+	}
+
+	@Test
+	public void testDataSourceCache() {
+
+		Settings.HtmlDataSourceCacheTime.setValue(60);
+
+		try {
+
+			try (final Tx tx = app.tx()) {
+
+				createTestNode(User.class,
+					new NodeAttribute<>(StructrApp.key(User.class, "name"),     "admin"),
+					new NodeAttribute<>(StructrApp.key(User.class, "password"), "admin"),
+					new NodeAttribute<>(StructrApp.key(User.class, "isAdmin"), true)
+				);
+
+				createTestNode(Widget.class, new NodeAttribute<>(AbstractNode.name, "a"));
+				createTestNode(Widget.class, new NodeAttribute<>(AbstractNode.name, "b"));
+
+				final Page page1      = Page.createSimplePage(securityContext, "page1");
+				final Element div     = (Element)page1.getElementsByTagName("div").item(0);
+				final Content content = (Content)div.getFirstChild();
+
+				content.setProperty(StructrApp.key(DOMNode.class, "functionQuery"), "sort(find('Widget'), 'name')");
+				content.setProperty(StructrApp.key(DOMNode.class, "dataKey"), "widget");
+				content.setProperty(StructrApp.key(Content.class, "content"), "${widget.name}");
+
+				tx.success();
+
+			} catch (FrameworkException fex) {
+
+				fail("Unexpected exception");
+				logger.warn("", fex);
+			}
+
+			RestAssured.basePath = "/";
+
+			final long hits = DataSourceCache.getHitCount();
+
+			for (int i=0; i<2; i++) {
+
+				RestAssured
+					.given()
+					.header("X-User",     "admin")
+					.header("X-Password", "admin")
+					.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+					.expect()
+					.statusCode(200)
+					.body("html.body.div", Matchers.equalTo("ab"))
+					.when()
+					.get("/html/page1");
+			}
+
+			assertEquals("Repeater data should be served from the data source cache", hits + 1, DataSourceCache.getHitCount());
+
+			try (final Tx tx = app.tx()) {
+
+				createTestNode(Widget.class, new NodeAttribute<>(AbstractNode.name, "c"));
+
+				tx.success();
+
+			} catch (FrameworkException fex) {
+
+				fail("Unexpected exception");
+				logger.warn("", fex);
+			}
+
+			// creation of a node of the result type must invalidate the cached result
+			RestAssured
+				.given()
+				.header("X-User",     "admin")
+				.header("X-Password", "admin")
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(200))
+				.expect()
+				.statusCode(200)
+				.body("html.body.div", Matchers.equalTo("abc"))
+				.when()
+				.get("/html/page1");
+
+		} finally {
+
+			Settings.HtmlDataSourceCacheTime.setValue(0);
+		}
+	}
+
 	/*
 	@Test
 	public void testTextileRenderer() {
@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import net.openhft.hashing.LongHashFunction;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class FileChecksumsTest {
+
+	@Test
+	public void testStreamingChecksum() throws Exception {
+
+		final Random random = new Random(42L);
+
+		for (final int size : new int[] { 0, 1, 3, 4, 7, 8, 31, 32, 33, 100, 65536, 100003 }) {
+
+			final byte[] data                = new byte[size];
+			final FileChecksums checksums    = new FileChecksums("");
+			final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+			random.nextBytes(data);
+
+			// write in chunks of random size
+			try (final OutputStream out = checksums.wrap(copy)) {
+
+				int position = 0;
+
+				while (position < size) {
+
+					final int count = Math.min(size - position, 1 + random.nextInt(100));
+
+					out.write(data, position, count);
+					position += count;
+				}
+			}
+
+			assertArrayEquals("Invalid data written", data, copy.toByteArray());
+			assertEquals("Invalid checksum for " + size + " bytes", LongHashFunction.xx().hashBytes(data), checksums.getChecksum());
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class StreamingRenderBufferTest {
+
+	@Test
+	public void testStreamingRenderBuffer() throws Exception {
+
+		final StreamingRenderBuffer buffer = new StreamingRenderBuffer();
+		final ByteArrayOutputStream out    = new ByteArrayOutputStream();
+		final StringBuilder expected       = new StringBuilder();
+
+		for (int i=0; i<100000; i++) {
+			expected.append("<p>Grüße € ").append(i).append("</p>");
+		}
+
+		// renderer produces much more output than the buffer can hold
+		final Thread renderer = new Thread(() -> {
+
+			for (int i=0; i<100000; i++) {
+				buffer.append("<p>Grüße € ").append(Integer.toString(i)).append("</p>");
+			}
+
+			buffer.finish();
+		});
+
+		renderer.start();
+
+		while (!buffer.isDone()) {
+
+			final ByteBuffer chunk = buffer.poll();
+			if (chunk != null) {
+
+				out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+				buffer.release(chunk);
+
+			} else {
+
+				final CountDownLatch latch = new CountDownLatch(1);
+
+				if (buffer.suspend(latch::countDown)) {
+					assertTrue("Writer should be resumed when output is available", latch.await(10, TimeUnit.SECONDS));
+				}
+			}
+		}
+
+		renderer.join();
+
+		assertEquals("Streamed output should be identical to rendered output", expected.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testCancelUnblocksRenderer() throws Exception {
+
+		final StreamingRenderBuffer buffer = new StreamingRenderBuffer();
+		final Thread renderer              = new Thread(() -> {
+
+			for (int i=0; i<100000; i++) {
+				buffer.append("<div>cancelled output</div>");
+			}
+
+			buffer.finish();
+		});
+
+		renderer.start();
+		buffer.cancel();
+		renderer.join(10000);
+
+		assertFalse("Renderer should not block after the writer was cancelled", renderer.isAlive());
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.websocket;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class WebSocketSenderTest {
+
+	@Test
+	public void testSingleFramesByDefault() throws InterruptedException {
+
+		final TestSession session    = new TestSession();
+		final WebSocketSender sender = new WebSocketSender(session.proxy(), 10);
+
+		assertTrue(sender.send("a"));
+		assertEquals("a", session.nextFrame());
+
+		// queued while "a" is in flight
+		assertTrue(sender.send("b", "key"));
+		assertTrue(sender.send("c"));
+		assertTrue(sender.send("b2", "key"));
+
+		session.completeWrite();
+		assertEquals("Messages should be sent one per frame by default", "c", session.nextFrame());
+
+		session.completeWrite();
+		assertEquals("Replaced message should be sent after messages queued before the replacement", "b2", session.nextFrame());
+
+		session.completeWrite();
+		assertNull("Replaced message should not be sent", session.pollFrame());
+	}
+
+	@Test
+	public void testArrayFrames() throws InterruptedException {
+
+		final TestSession session    = new TestSession();
+		final WebSocketSender sender = new WebSocketSender(session.proxy(), 10);
+
+		sender.setArrayFrames(true);
+
+		assertTrue(sender.send("1"));
+		assertEquals("A single message should not be wrapped in an array", "1", session.nextFrame());
+
+		// queued while "1" is in flight
+		assertTrue(sender.send("{\"id\":2}", "key"));
+		assertTrue(sender.send("3"));
+		assertTrue(sender.send("{\"id\":4}", "key"));
+
+		session.completeWrite();
+		assertEquals("Queued messages should be sent as a single array frame", "[3,{\"id\":4}]", session.nextFrame());
+
+		session.completeWrite();
+		assertNull(session.pollFrame());
+	}
+
+	@Test
+	public void testOverflowClosesSession() throws InterruptedException {
+
+		final TestSession session    = new TestSession();
+		final WebSocketSender sender = new WebSocketSender(session.proxy(), 2);
+
+		assertTrue(sender.send("a"));
+		assertEquals("a", session.nextFrame());
+
+		// queued while "a" is in flight
+		assertTrue(sender.send("b", "key"));
+		assertTrue(sender.send("c"));
+
+		// replacing a keyed message must not count against the queue size
+		assertTrue("Replacing a message should not overflow the queue", sender.send("b2", "key"));
+		assertEquals("Session should not be closed", 0, session.closeCode);
+
+		assertFalse("Overflowing queue should be rejected", sender.send("e"));
+		assertEquals("Session should be closed on overflow", StatusCode.POLICY_VIOLATION, session.closeCode);
+
+		session.completeWrite();
+		assertNull("No frames should be sent after overflow", session.pollFrame());
+		assertFalse("Closed sender should reject messages", sender.send("f"));
+	}
+
+	// ----- nested classes -----
+	private static class TestSession implements InvocationHandler {
+
+		private final BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+		private WriteCallback callback             = null;
+		private volatile int closeCode             = 0;
+
+		public Session proxy() {
+			return (Session)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { Session.class, RemoteEndpoint.class }, this);
+		}
+
+		public String nextFrame() throws InterruptedException {
+			return frames.poll(5, TimeUnit.SECONDS);
+		}
+
+		public String pollFrame() throws InterruptedException {
+			return frames.poll(200, TimeUnit.MILLISECONDS);
+		}
+
+		public synchronized void completeWrite() {
+
+			final WriteCallback current = callback;
+
+			callback = null;
+
+			if (current != null) {
+				current.writeSuccess();
+			}
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+
+			switch (method.getName()) {
+
+				case "getRemote":
+					return proxy;
+
+				case "isOpen":
+					return closeCode == 0;
+
+				case "close":
+					if (args != null && args.length == 2) {
+						closeCode = (Integer)args[0];
+					}
+					return null;
+
+				case "sendString":
+					synchronized (this) {
+						callback = (WriteCallback)args[1];
+						frames.add((String)args[0]);
+					}
+					return null;
+
+				case "hashCode":
+					return System.identityHashCode(proxy);
+
+				case "equals":
+					return proxy == args[0];
+
+				case "toString":
+					return "TestSession";
+			}
+
+			return null;
+		}
+	}
+}